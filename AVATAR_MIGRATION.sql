@@ -0,0 +1,10 @@
+-- Migration SQL for avatar URLs
+-- Responses no longer embed users.profile_picture; they link /api/media/avatars/{id}?v={avatar_version},
+-- which is cacheable forever because avatar_version is bumped whenever the picture changes
+
+ALTER TABLE users ADD COLUMN avatar_version INT NOT NULL DEFAULT 0;
+
+-- Inline base64 pictures are moved to the media store by AvatarMigrationService while the application
+-- runs. Remaining inline pictures can be counted with:
+-- SELECT COUNT(*) FROM users WHERE profile_picture IS NOT NULL AND profile_picture NOT LIKE 'http%'
+--     AND LENGTH(profile_picture) > 2048;
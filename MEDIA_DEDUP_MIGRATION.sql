@@ -0,0 +1,58 @@
+-- Migration SQL for content-hash deduplication of media
+-- media becomes an index of stored objects keyed by the SHA-256 of their content, with a
+-- reference count; the uploads users attach to posts move to media_uploads
+
+ALTER TABLE media ADD COLUMN sha256 VARCHAR(64) NULL;
+ALTER TABLE media ADD COLUMN ref_count INT NOT NULL DEFAULT 1;
+CREATE UNIQUE INDEX uk_media_sha256 ON media (sha256);
+
+CREATE TABLE IF NOT EXISTS media_uploads (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    media_id BIGINT NOT NULL,
+    attached BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at DATETIME(6),
+    CONSTRAINT fk_media_uploads_user FOREIGN KEY (user_id) REFERENCES users(id),
+    CONSTRAINT fk_media_uploads_media FOREIGN KEY (media_id) REFERENCES media(id)
+);
+
+-- Every post_media row holds one reference. An upload holds one until it is first attached, when
+-- the post takes it over. Existing uploads may already have been attached, so they default to
+-- attached: attaching them again takes a new reference. New uploads are inserted with FALSE.
+-- If media_uploads already exists:
+-- ALTER TABLE media_uploads ADD COLUMN attached BOOLEAN NOT NULL DEFAULT TRUE;
+
+-- Existing uploads keep their ids, so clients holding a media id can still attach it
+INSERT INTO media_uploads (id, user_id, media_id, created_at)
+SELECT id, user_id, id, created_at FROM media WHERE user_id IS NOT NULL;
+
+-- media.user_id is no longer mapped (nullable since MEDIA_VARIANTS_MIGRATION.sql). Once the copy
+-- above is verified, drop it together with its generated foreign key (see SHOW CREATE TABLE media):
+-- ALTER TABLE media DROP FOREIGN KEY <fk name>;
+-- ALTER TABLE media DROP COLUMN user_id;
+
+-- Before this migration one media id could be attached to several posts, and a stored URL
+-- could be kept by several posts and pictures, so the default of 1 undercounts. Recount every
+-- row from what holds its URL: post attachments (including legacy posts.media_urls not yet
+-- moved to post_media), profile and community pictures, community post media, unattached
+-- uploads and releases still queued in media_deletions. Run this with the application stopped,
+-- after the media_uploads copy above and before MediaDeletionWorker starts releasing; it scans
+-- those tables once per media row.
+UPDATE media m SET m.ref_count =
+      (SELECT COUNT(*) FROM post_media pm WHERE pm.media_url = m.url)
+    + (SELECT COALESCE(SUM((LENGTH(p.media_urls) - LENGTH(REPLACE(p.media_urls, m.url, ''))) DIV LENGTH(m.url)), 0)
+       FROM posts p WHERE p.media_urls LIKE CONCAT('%', m.url, '%'))
+    + (SELECT COUNT(*) FROM users u WHERE u.profile_picture = m.url)
+    + (SELECT COUNT(*) FROM communities c WHERE c.profile_picture = m.url)
+    + (SELECT COUNT(*) FROM community_post_media cpm WHERE cpm.media_url = m.url)
+    + (SELECT COUNT(*) FROM media_uploads mu WHERE mu.media_id = m.id AND mu.attached = FALSE)
+    + (SELECT COUNT(*) FROM media_deletions md WHERE md.url = m.url);
+
+-- Rows left at 0 are no longer used; they are kept so MediaDeletionWorker never deletes an
+-- object this recount missed. Review them before removing anything:
+-- SELECT id, storage_key FROM media WHERE ref_count = 0;
+
+-- Rows stored before this migration have no sha256 and are never deduplicated against.
+-- Identical content stored twice on the local backend gets the same URL, so each of those rows
+-- is credited with every reference to it; the shared object is only deleted once no media row
+-- points at it any more.
@@ -0,0 +1,18 @@
+-- Migration SQL for the media deletion outbox
+-- Media URLs to release are written here in the transaction of the edit/delete that dropped
+-- them and removed by MediaDeletionWorker once the storage backend confirmed the delete
+
+CREATE TABLE IF NOT EXISTS media_deletions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    url TEXT NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_error VARCHAR(500),
+    created_at DATETIME(6)
+);
+
+CREATE INDEX idx_media_deletions_due ON media_deletions (next_attempt_at);
+
+-- The worker claims due rows with SELECT ... FOR UPDATE SKIP LOCKED, which needs MySQL 8.0+.
+-- Entries failing for a long time can be inspected with:
+-- SELECT url, attempts, last_error FROM media_deletions WHERE attempts > 10;
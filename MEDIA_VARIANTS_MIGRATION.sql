@@ -0,0 +1,15 @@
+-- Migration SQL for image variants
+-- The media table now records every stored object, including inline (base64) images without an
+-- uploader, together with the URLs of their downscaled variants
+
+ALTER TABLE media MODIFY COLUMN user_id BIGINT NULL;
+
+ALTER TABLE media ADD COLUMN thumbnail_url TEXT;
+ALTER TABLE media ADD COLUMN feed_url TEXT;
+ALTER TABLE media ADD COLUMN full_url TEXT;
+
+-- Responses look variants up by the storage key of each media URL
+CREATE INDEX idx_media_storage_key ON media (storage_key);
+
+-- Images stored before this migration have no media row or no variants; responses serve the
+-- original URL for every size until they are re-uploaded
@@ -0,0 +1,15 @@
+-- Migration SQL for denormalized post like/comment counters
+-- Adds like_count and comment_count columns to posts and backfills them
+
+ALTER TABLE posts ADD COLUMN like_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE posts ADD COLUMN comment_count BIGINT NOT NULL DEFAULT 0;
+
+-- Initial backfill. On large tables prefer letting the reconciliation job
+-- (PostCounterReconciliationService) do this in id-range chunks instead.
+UPDATE posts p
+SET p.like_count = (SELECT COUNT(*) FROM likes l WHERE l.post_id = p.id),
+    p.comment_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id);
+
+-- Note: If using JPA/Hibernate with ddl-auto=update, the columns will be
+-- automatically created on application startup. This SQL is provided for
+-- manual database migration if needed.
@@ -0,0 +1,12 @@
+-- Migration SQL for indexed feed queries
+-- The profession feed filters on is_help_section = FALSE, so legacy NULLs must be normalized first
+
+UPDATE posts SET is_help_section = FALSE WHERE is_help_section IS NULL;
+
+CREATE INDEX idx_posts_home_feed ON posts(show_in_home, created_at, id);
+CREATE INDEX idx_posts_user_created ON posts(user_id, created_at, id);
+CREATE INDEX idx_posts_profession_feed ON posts(user_profession, is_help_section, created_at, id);
+
+-- Note: If using JPA/Hibernate with ddl-auto=update, the indexes will be
+-- automatically created on application startup. PostHelpSectionBackfillService
+-- also runs the UPDATE above (in id ranges) on every startup.
@@ -0,0 +1,17 @@
+-- Migration SQL for the post_media table
+-- Post media moves from the "|||MEDIA_SEPARATOR|||"-joined posts.media_urls string into one row per URL
+
+CREATE TABLE IF NOT EXISTS post_media (
+    post_id BIGINT NOT NULL,
+    position INT NOT NULL,
+    media_url TEXT,
+    PRIMARY KEY (post_id, position),
+    CONSTRAINT fk_post_media_post FOREIGN KEY (post_id) REFERENCES posts(id)
+);
+
+-- Existing rows are backfilled online by PostMediaMigrationService in chunks of
+-- posts.media.migration-chunk-size; posts.media_urls is cleared as each post is moved.
+-- Until then the legacy string is still rendered, so no downtime is needed.
+-- Once the service logs "Legacy post media migration complete" on every instance, the old
+-- column can be dropped:
+-- ALTER TABLE posts DROP COLUMN media_urls;
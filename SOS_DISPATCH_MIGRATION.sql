@@ -0,0 +1,24 @@
+-- Migration SQL for the SOS dispatch outbox
+-- A row is written in the transaction that creates an alert; SosDispatchWorker sends its push
+-- notifications in the background and records the progress shown by GET /api/sos/alert/{id}/dispatch
+
+CREATE TABLE IF NOT EXISTS sos_dispatches (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    alert_id BIGINT NOT NULL,
+    priority INT NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(6) NOT NULL,
+    last_recipient_id BIGINT,
+    total_recipients INT,
+    sent_count INT NOT NULL DEFAULT 0,
+    failed_count INT NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    created_at DATETIME(6),
+    completed_at DATETIME(6)
+);
+
+CREATE INDEX idx_sos_dispatches_due ON sos_dispatches (completed_at, priority, next_attempt_at);
+CREATE UNIQUE INDEX idx_sos_dispatches_alert ON sos_dispatches (alert_id);
+
+-- The worker claims due rows with SELECT ... FOR UPDATE SKIP LOCKED, which needs MySQL 8.0+.
+-- Rows are deleted together with their alert by the SOS cleanup job.
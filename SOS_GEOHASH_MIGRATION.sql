@@ -0,0 +1,15 @@
+-- Migration SQL for geohash lookup of nearby SOS alerts
+-- Nearby alerts are found by index range on the geohash cells around the caller, then filtered
+-- by exact distance, instead of evaluating acos() on every active alert
+
+ALTER TABLE sos_alerts ADD COLUMN geohash VARCHAR(12);
+
+CREATE INDEX idx_sos_alerts_status_geohash ON sos_alerts(status, geohash);
+
+-- Alerts created before the column existed are invisible to nearby lookups until backfilled.
+-- ST_GeoHash (MySQL 5.7+) produces the same hashes as GeoHash.encode at precision 9
+UPDATE sos_alerts SET geohash = ST_GeoHash(longitude, latitude, 9)
+WHERE geohash IS NULL AND latitude IS NOT NULL AND longitude IS NOT NULL;
+
+-- Note: If using JPA/Hibernate with ddl-auto=update, the column and index will be
+-- automatically created on application startup. The UPDATE above still has to be run once.
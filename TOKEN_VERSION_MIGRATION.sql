@@ -0,0 +1,8 @@
+-- Migration SQL for JWT claims
+-- Tokens now embed user id, roles and users.token_version, so requests no longer load the user.
+-- Bumping token_version revokes every token issued to the user before
+
+ALTER TABLE users ADD COLUMN token_version INT NOT NULL DEFAULT 0;
+
+-- Tokens issued before this change have no claims and keep working (the user is loaded by
+-- username) until they expire after jwt.expiration
@@ -0,0 +1,15 @@
+-- Migration SQL for radius-targeted SOS push notifications
+-- Clients report their location to PUT /api/sos/location; a new alert is pushed only to users
+-- whose last location is inside the push radius of its type, found by geohash prefix ranges
+
+ALTER TABLE users ADD COLUMN last_latitude DOUBLE NULL;
+ALTER TABLE users ADD COLUMN last_longitude DOUBLE NULL;
+ALTER TABLE users ADD COLUMN last_location_geohash VARCHAR(12) NULL;
+ALTER TABLE users ADD COLUMN last_location_at DATETIME(6) NULL;
+
+CREATE INDEX idx_users_last_location_geohash ON users(last_location_geohash);
+
+-- Note: If using JPA/Hibernate with ddl-auto=update, the columns and index will be
+-- automatically created on application startup. Users whose client never reported a
+-- location get no SOS pushes, unless the temporary sos.push.unlocated-fallback is turned on;
+-- a location older than sos.push.location-max-age-hours never matches.
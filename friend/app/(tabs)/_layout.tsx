@@ -2,6 +2,7 @@ import { Tabs } from 'expo-router';
 import React, { useState, useEffect, useRef } from 'react';
 import { View, Text, StyleSheet, AppState } from 'react-native';
 import * as Notifications from 'expo-notifications';
+import * as Location from 'expo-location';
 
 import { HapticTab } from '@/components/haptic-tab';
 import { IconSymbol } from '@/components/ui/icon-symbol';
@@ -21,6 +22,7 @@ export default function TabLayout() {
   useEffect(() => {
     // Initialize FCM push notifications
     initializeFcmNotifications();
+    reportLocation();
 
     // Setup notification listeners
     notificationListener.current = Notifications.addNotificationReceivedListener(notification => {
@@ -52,6 +54,20 @@ export default function TabLayout() {
     }
   };
 
+  const reportLocation = async () => {
+    // SOS alerts are pushed by distance, so the server needs a recent location
+    try {
+      const { status } = await Location.requestForegroundPermissionsAsync();
+      if (status !== 'granted') {
+        return;
+      }
+      const currentLocation = await Location.getCurrentPositionAsync({});
+      await sosService.updateLocation(currentLocation.coords.latitude, currentLocation.coords.longitude);
+    } catch (err) {
+      console.error('Error reporting location:', err);
+    }
+  };
+
   const loadSosUnreadCount = async () => {
     try {
       const count = await sosService.getUnreadCount();
@@ -76,8 +92,9 @@ export default function TabLayout() {
   useEffect(() => {
     const subscription = AppState.addEventListener('change', nextAppState => {
       if (appState.current.match(/inactive|background/) && nextAppState === 'active') {
-        // App came to foreground - refresh counts
+        // App came to foreground - refresh counts and location
         loadSosUnreadCount();
+        reportLocation();
       }
       appState.current = nextAppState;
     });
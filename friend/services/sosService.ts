@@ -143,6 +143,11 @@ const sosService = {
     }
   },
 
+  // The server pushes new SOS alerts to users whose last reported location is nearby
+  updateLocation: async (latitude: number, longitude: number): Promise<void> => {
+    await api.put('/api/sos/location', { latitude, longitude });
+  },
+
   markAlertsAsRead: async (): Promise<any> => {
     const response = await api.post('/api/sos/alerts/mark-read');
     return response.data;
@@ -0,0 +1,31 @@
+package com.social.network.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-size pools with a bounded queue and named daemon threads, for the executor beans.
+ * What happens when the queue is full is up to each pool's rejection handler.
+ */
+final class BoundedExecutors {
+
+    private BoundedExecutors() {
+    }
+
+    static ExecutorService pool(String threadPrefix, int parallelism, int queueCapacity,
+                                RejectedExecutionHandler rejectionHandler) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, threadPrefix + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                rejectionHandler);
+    }
+}
@@ -0,0 +1,34 @@
+package com.social.network.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class MediaExecutorConfig {
+
+    /**
+     * Bounded pool for media uploads and deletes. When the queue is full the submitting request
+     * thread runs the task itself, which throttles callers instead of failing their uploads.
+     */
+    @Bean(name = "mediaUploadExecutor", destroyMethod = "shutdown")
+    public ExecutorService mediaUploadExecutor(
+            @Value("${media.upload.parallelism:8}") int parallelism,
+            @Value("${media.upload.queue-capacity:64}") int queueCapacity) {
+        return BoundedExecutors.pool("media-upload-", parallelism, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Bounded pool for decoding and resizing images. Transcoding is CPU and heap heavy, so a full
+     * queue rejects the task and the upload is served without variants rather than piling up work.
+     */
+    @Bean(name = "imageVariantExecutor", destroyMethod = "shutdown")
+    public ExecutorService imageVariantExecutor(
+            @Value("${media.variants.parallelism:2}") int parallelism,
+            @Value("${media.variants.queue-capacity:16}") int queueCapacity) {
+        return BoundedExecutors.pool("image-variant-", parallelism, queueCapacity, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
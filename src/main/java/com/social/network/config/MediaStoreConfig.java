@@ -0,0 +1,62 @@
+package com.social.network.config;
+
+import com.google.firebase.FirebaseApp;
+import com.social.network.service.FirebaseMediaStore;
+import com.social.network.service.LocalMediaStore;
+import com.social.network.service.MediaStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+@Configuration
+public class MediaStoreConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaStoreConfig.class);
+
+    @Value("${media.storage:auto}")
+    private String storage;
+
+    @Value("${FIREBASE_STORAGE_BUCKET:#{null}}")
+    private String bucketName;
+
+    @Value("${media.firebase.chunk-size:262144}")
+    private int firebaseChunkSize;
+
+    @Value("${media.local.root:uploads}")
+    private String localRoot;
+
+    @Value("${media.local.base-url:/api/media/files}")
+    private String localBaseUrl;
+
+    @Value("${media.upload.chunk-size:65536}")
+    private int localChunkSize;
+
+    /**
+     * media.storage=firebase|local, or auto (default): Firebase when a bucket is configured and
+     * the Firebase Admin SDK initialized, the local filesystem otherwise.
+     */
+    @Bean
+    @DependsOn("firebaseConfig")
+    public MediaStore mediaStore() {
+        boolean firebaseAvailable = bucketName != null && !bucketName.isEmpty() && !FirebaseApp.getApps().isEmpty();
+        boolean useFirebase = switch (storage) {
+            case "firebase" -> true;
+            case "local" -> false;
+            case "auto" -> firebaseAvailable;
+            default -> throw new IllegalStateException("Unknown media.storage: " + storage);
+        };
+
+        if (useFirebase) {
+            if (!firebaseAvailable) {
+                logger.warn("media.storage=firebase but Firebase Storage is not configured; uploads will fail");
+            }
+            logger.info("Media storage: Firebase bucket {}", bucketName);
+            return new FirebaseMediaStore(bucketName, firebaseChunkSize);
+        }
+        logger.info("Media storage: local filesystem at {}", localRoot);
+        return new LocalMediaStore(localRoot, localBaseUrl, localChunkSize);
+    }
+}
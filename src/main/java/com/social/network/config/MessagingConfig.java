@@ -0,0 +1,54 @@
+package com.social.network.config;
+
+import com.social.network.service.FirebaseMessagingBackend;
+import com.social.network.service.LocalMessagingBackend;
+import com.social.network.service.MessagingBackend;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class MessagingConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessagingConfig.class);
+
+    @Value("${fcm.backend:firebase}")
+    private String backend;
+
+    @Value("${fcm.local.latency-ms:50}")
+    private long localLatencyMs;
+
+    @Value("${fcm.local.invalid-token-prefix:invalid-}")
+    private String localInvalidTokenPrefix;
+
+    /**
+     * fcm.backend=firebase (default) or local, which sends nothing (development, load tests).
+     */
+    @Bean
+    public MessagingBackend messagingBackend() {
+        return switch (backend) {
+            case "firebase" -> new FirebaseMessagingBackend();
+            case "local" -> {
+                logger.warn("fcm.backend=local: push notifications are not delivered");
+                yield new LocalMessagingBackend(localLatencyMs, localInvalidTokenPrefix);
+            }
+            default -> throw new IllegalStateException("Unknown fcm.backend: " + backend);
+        };
+    }
+
+    /**
+     * Bounded pool for FCM batches. When the queue is full the sending thread runs the batch
+     * itself, which throttles large fan-outs instead of failing them.
+     */
+    @Bean(name = "fcmSendExecutor", destroyMethod = "shutdown")
+    public ExecutorService fcmSendExecutor(
+            @Value("${fcm.send.parallelism:4}") int parallelism,
+            @Value("${fcm.send.queue-capacity:16}") int queueCapacity) {
+        return BoundedExecutors.pool("fcm-send-", parallelism, queueCapacity, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
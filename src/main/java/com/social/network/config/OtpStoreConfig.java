@@ -0,0 +1,42 @@
+package com.social.network.config;
+
+import com.social.network.repository.EmailOTPRepository;
+import com.social.network.service.InMemoryOtpStore;
+import com.social.network.service.JpaOtpStore;
+import com.social.network.service.OTPService;
+import com.social.network.service.OtpStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class OtpStoreConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(OtpStoreConfig.class);
+
+    @Value("${otp.store:memory}")
+    private String store;
+
+    @Value("${otp.memory.tick-ms:10000}")
+    private long tickMs;
+
+    /**
+     * otp.store=memory (default, single instance: codes live in process memory) or jpa (the
+     * email_otp table, needed when verification may reach another instance than the one that sent the code).
+     */
+    @Bean
+    public OtpStore otpStore(EmailOTPRepository otpRepository) {
+        switch (store) {
+            case "memory":
+                logger.info("OTP store: in memory");
+                return new InMemoryOtpStore(tickMs, OTPService.OTP_TTL);
+            case "jpa":
+                logger.info("OTP store: email_otp table");
+                return new JpaOtpStore(otpRepository);
+            default:
+                throw new IllegalStateException("Unknown otp.store: " + store);
+        }
+    }
+}
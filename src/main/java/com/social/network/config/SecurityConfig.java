@@ -1,8 +1,13 @@
 package com.social.network.config;
 
+import com.social.network.security.BCryptCostCalibrator;
 import com.social.network.security.JwtAuthenticationFilter;
 import com.social.network.security.JwtTokenProvider;
+import com.social.network.security.TokenVersionCache;
 import com.social.network.security.UserDetailsServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -22,21 +27,40 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenVersionCache tokenVersionCache;
+
+    // 0 calibrates the cost at startup
+    @Value("${security.password.bcrypt-cost:0}")
+    private int bcryptCost;
+
+    @Value("${security.password.target-hash-ms:250}")
+    private long targetHashMs;
+
+    @Value("${security.password.min-cost:10}")
+    private int minBcryptCost;
 
-    public SecurityConfig(UserDetailsServiceImpl userDetailsService) {
+    @Value("${security.password.max-cost:14}")
+    private int maxBcryptCost;
+
+    public SecurityConfig(UserDetailsServiceImpl userDetailsService, TokenVersionCache tokenVersionCache) {
         this.userDetailsService = userDetailsService;
+        this.tokenVersionCache = tokenVersionCache;
     }
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(jwtTokenProvider(), userDetailsService);
+        return new JwtAuthenticationFilter(jwtTokenProvider(), userDetailsService, tokenVersionCache);
     }
 
     @Bean("jwtProviderFromConfig")
@@ -44,9 +68,27 @@ public class SecurityConfig {
         return new JwtTokenProvider();
     }
 
+    /**
+     * BCrypt with the configured cost, or one calibrated at startup to take about target-hash-ms.
+     * Stored hashes of a lower cost are rehashed on the user's next login.
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int cost = bcryptCost > 0 ? bcryptCost : BCryptCostCalibrator.calibrate(targetHashMs, minBcryptCost, maxBcryptCost);
+        logger.info("Hashing passwords with BCrypt cost {}", cost);
+        return new BCryptPasswordEncoder(cost);
+    }
+
+    /**
+     * Bounded pool for password hashing. A full queue rejects the attempt (429) instead of
+     * letting logins queue up behind each other.
+     */
+    @Bean(name = "passwordHashingExecutor", destroyMethod = "shutdown")
+    public ExecutorService passwordHashingExecutor(
+            @Value("${security.password.parallelism:4}") int parallelism,
+            @Value("${security.password.queue-capacity:32}") int queueCapacity) {
+        return BoundedExecutors.pool("password-hashing-", parallelism, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
     }
 
     @Bean
@@ -54,6 +96,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Rehash on login when the stored hash is weaker than the current cost
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -86,6 +130,8 @@ public class SecurityConfig {
                         // public endpoints
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/posts/**").permitAll()
+                        .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/media/files/**").permitAll()
+                        .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/media/avatars/**").permitAll()
                         .requestMatchers("/signup", "/signup.html","/login.html","/home.html", "/login", "/", "/index").permitAll()
                         .requestMatchers("/signup", "/login", "/","/home").permitAll()
                         .requestMatchers("/error", "/error/**").permitAll()
@@ -0,0 +1,21 @@
+package com.social.network.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class SosDispatchConfig {
+
+    /**
+     * Workers sending SOS pushes, kept apart from request threads and the media pools so a large
+     * fan-out never waits behind uploads. SosDispatchWorker only hands it work for idle threads.
+     */
+    @Bean(name = "sosDispatchExecutor", destroyMethod = "shutdown")
+    public ExecutorService sosDispatchExecutor(@Value("${sos.dispatch.parallelism:4}") int parallelism) {
+        return BoundedExecutors.pool("sos-dispatch-", parallelism, parallelism, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -9,8 +9,13 @@ import com.social.network.dto.SendOtpRequest;
 import com.social.network.dto.SignupRequest;
 import com.social.network.dto.SignupResponse;
 import com.social.network.dto.VerifyOtpRequest;
+import com.social.network.security.PasswordHashingBusyException;
 import com.social.network.service.AuthService;
+import com.social.network.service.RateLimitExceededException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -31,6 +36,8 @@ public class AuthController {
         try {
             SignupResponse response = authService.signup(signupRequest);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -41,6 +48,8 @@ public class AuthController {
         try {
             AuthResponse response = authService.login(loginRequest);
             return ResponseEntity.ok(response);
+        } catch (PasswordHashingBusyException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -80,6 +89,17 @@ public class AuthController {
         }
     }
 
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(Authentication authentication) {
+        try {
+            String username = authentication.getName();
+            authService.revokeTokens(username);
+            return ResponseEntity.ok("Logged out of all sessions");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/fcm-token")
     public ResponseEntity<?> registerFcmToken(
             Authentication authentication,
@@ -94,20 +114,25 @@ public class AuthController {
     }
 
     @PostMapping("/send-otp")
-    public ResponseEntity<?> sendOTP(@Valid @RequestBody SendOtpRequest request) {
+    public ResponseEntity<?> sendOTP(@Valid @RequestBody SendOtpRequest request, HttpServletRequest httpRequest) {
         try {
-            authService.sendOTP(request.getEmail());
+            authService.sendOTP(request.getEmail(), httpRequest.getRemoteAddr());
             return ResponseEntity.ok("OTP sent successfully");
+        } catch (RateLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "60").body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
     @PostMapping("/verify-otp")
-    public ResponseEntity<?> verifyOTP(@Valid @RequestBody VerifyOtpRequest request) {
+    public ResponseEntity<?> verifyOTP(@Valid @RequestBody VerifyOtpRequest request, HttpServletRequest httpRequest) {
         try {
-            AuthResponse response = authService.verifyEmailOTP(request.getEmail(), request.getOtp());
+            AuthResponse response = authService.verifyEmailOTP(request.getEmail(), request.getOtp(),
+                    httpRequest.getRemoteAddr());
             return ResponseEntity.ok(response);
+        } catch (RateLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "60").body(e.getMessage());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -5,6 +5,7 @@ import com.social.network.dto.CommunityPostRequest;
 import com.social.network.dto.CommunityPostResponse;
 import com.social.network.dto.CommunityRequest;
 import com.social.network.dto.CommunityResponse;
+import com.social.network.security.CurrentUser;
 import com.social.network.security.UserDetailsImpl;
 import com.social.network.service.CommunityService;
 import jakarta.validation.Valid;
@@ -39,9 +40,8 @@ public class CommunityController {
     }
 
     @GetMapping("/public")
-    public ResponseEntity<?> getAllPublicCommunities(Authentication authentication) {
+    public ResponseEntity<?> getAllPublicCommunities(@CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             List<CommunityResponse> communities = communityService.getAllPublicCommunities(userDetails.getId());
             return ResponseEntity.ok(communities);
         } catch (RuntimeException e) {
@@ -50,9 +50,8 @@ public class CommunityController {
     }
 
     @GetMapping("/my")
-    public ResponseEntity<?> getMyCommunities(Authentication authentication) {
+    public ResponseEntity<?> getMyCommunities(@CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             List<CommunityResponse> communities = communityService.getUserCommunities(userDetails.getId());
             return ResponseEntity.ok(communities);
         } catch (RuntimeException e) {
@@ -63,9 +62,8 @@ public class CommunityController {
     @GetMapping("/{communityId}")
     public ResponseEntity<?> getCommunityById(
             @PathVariable Long communityId,
-            Authentication authentication) {
+            @CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             CommunityResponse community = communityService.getCommunityById(communityId, userDetails.getId());
             return ResponseEntity.ok(community);
         } catch (RuntimeException e) {
@@ -76,9 +74,8 @@ public class CommunityController {
     @PostMapping("/{communityId}/join")
     public ResponseEntity<?> joinCommunity(
             @PathVariable Long communityId,
-            Authentication authentication) {
+            @CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             communityService.joinCommunity(communityId, userDetails.getId());
             return ResponseEntity.ok("Joined community successfully");
         } catch (RuntimeException e) {
@@ -89,9 +86,8 @@ public class CommunityController {
     @PostMapping("/{communityId}/leave")
     public ResponseEntity<?> leaveCommunity(
             @PathVariable Long communityId,
-            Authentication authentication) {
+            @CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             communityService.leaveCommunity(communityId, userDetails.getId());
             return ResponseEntity.ok("Left community successfully");
         } catch (RuntimeException e) {
@@ -116,9 +112,8 @@ public class CommunityController {
     @GetMapping("/{communityId}/posts")
     public ResponseEntity<?> getCommunityPosts(
             @PathVariable Long communityId,
-            Authentication authentication) {
+            @CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             List<CommunityPostResponse> posts = communityService.getCommunityPosts(communityId, userDetails.getId());
             return ResponseEntity.ok(posts);
         } catch (RuntimeException e) {
@@ -129,9 +124,8 @@ public class CommunityController {
     @GetMapping("/{communityId}/posts/pending")
     public ResponseEntity<?> getPendingPosts(
             @PathVariable Long communityId,
-            Authentication authentication) {
+            @CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             List<CommunityPostResponse> posts = communityService.getPendingPosts(communityId, userDetails.getId());
             return ResponseEntity.ok(posts);
         } catch (RuntimeException e) {
@@ -142,9 +136,8 @@ public class CommunityController {
     @PostMapping("/posts/{postId}/approve")
     public ResponseEntity<?> approvePost(
             @PathVariable Long postId,
-            Authentication authentication) {
+            @CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             communityService.approvePost(postId, userDetails.getId());
             return ResponseEntity.ok("Post approved successfully");
         } catch (RuntimeException e) {
@@ -155,9 +148,8 @@ public class CommunityController {
     @PostMapping("/posts/{postId}/reject")
     public ResponseEntity<?> rejectPost(
             @PathVariable Long postId,
-            Authentication authentication) {
+            @CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             communityService.rejectPost(postId, userDetails.getId());
             return ResponseEntity.ok("Post rejected successfully");
         } catch (RuntimeException e) {
@@ -168,9 +160,8 @@ public class CommunityController {
     @GetMapping("/{communityId}/members")
     public ResponseEntity<?> getCommunityMembers(
             @PathVariable Long communityId,
-            Authentication authentication) {
+            @CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             List<CommunityMemberResponse> members = communityService.getCommunityMembers(communityId, userDetails.getId());
             return ResponseEntity.ok(members);
         } catch (RuntimeException e) {
@@ -182,9 +173,8 @@ public class CommunityController {
     public ResponseEntity<?> removeMember(
             @PathVariable Long communityId,
             @PathVariable Long userId,
-            Authentication authentication) {
+            @CurrentUser UserDetailsImpl userDetails) {
         try {
-            UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
             communityService.removeMember(communityId, userId, userDetails.getId());
             return ResponseEntity.ok("Member removed successfully");
         } catch (RuntimeException e) {
@@ -0,0 +1,190 @@
+package com.social.network.controller;
+
+import com.social.network.dto.MediaUploadResponse;
+import com.social.network.service.AvatarService;
+import com.social.network.service.MediaService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/media")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class MediaController {
+
+    private static final String FILES_PATTERN = "/api/media/files/**";
+
+    private final MediaService mediaService;
+    private final AvatarService avatarService;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public MediaController(MediaService mediaService, AvatarService avatarService) {
+        this.mediaService = mediaService;
+        this.avatarService = avatarService;
+    }
+
+    /**
+     * Multipart upload (form field "file"). Returns the media id to reference from PostRequest.mediaIds.
+     */
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadMultipart(
+            Authentication authentication,
+            @RequestParam("file") MultipartFile file) {
+        try (InputStream content = file.getInputStream()) {
+            String username = authentication.getName();
+            MediaUploadResponse response = mediaService.upload(username, content, file.getContentType());
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Failed to read upload");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Raw upload: the request body is the file and Content-Type its media type.
+     * The body is streamed to storage as it arrives.
+     */
+    @PostMapping(consumes = {"image/*", "video/*"})
+    public ResponseEntity<?> uploadStream(
+            Authentication authentication,
+            HttpServletRequest request) {
+        try (InputStream content = request.getInputStream()) {
+            String username = authentication.getName();
+            MediaUploadResponse response = mediaService.upload(username, content, request.getContentType());
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Failed to read upload");
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Files of the local storage backend. Keys are content-addressed, so the bytes behind a URL never
+     * change: the hash doubles as ETag and responses are cacheable forever. The file is streamed
+     * with FileChannel.transferTo rather than read into memory.
+     */
+    @GetMapping("/files/**")
+    public ResponseEntity<StreamingResponseBody> getFile(HttpServletRequest request) {
+        String key = pathMatcher.extractPathWithinPattern(FILES_PATTERN,
+                request.getRequestURI().substring(request.getContextPath().length()));
+        Optional<Path> file;
+        try {
+            file = mediaService.localFile(key);
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+        if (file.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Path path = file.get();
+        String fileName = path.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String etag = "\"" + (extension > 0 ? fileName.substring(0, extension) : fileName) + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic();
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        long size;
+        try {
+            size = Files.size(path);
+        } catch (IOException e) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentLength(size)
+                .contentType(MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .body(body);
+    }
+
+    /**
+     * A user's profile picture, as linked from responses (AvatarService.avatarUrl). Requests
+     * carrying the current version are cacheable forever since a new picture bumps the version;
+     * unversioned or stale ones must revalidate. Stored pictures redirect to the variant of the
+     * requested size, legacy inline pictures are decoded and streamed.
+     */
+    @GetMapping("/avatars/{userId}")
+    public ResponseEntity<StreamingResponseBody> getAvatar(
+            @PathVariable Long userId,
+            @RequestParam(value = "v", required = false) Integer version,
+            @RequestParam(value = "size", defaultValue = "thumbnail") String size,
+            HttpServletRequest request) {
+        if (!AvatarService.SIZES.contains(size)) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<AvatarService.Avatar> found = avatarService.findAvatar(userId, size);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        AvatarService.Avatar avatar = found.get();
+        String etag = "\"" + userId + "-" + avatar.version() + "-" + size + "\"";
+        CacheControl cacheControl = version != null && version == avatar.version()
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic()
+                : CacheControl.noCache();
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        if (avatar.redirectUrl() != null) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create(avatar.redirectUrl()))
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        MediaType contentType;
+        try {
+            contentType = MediaType.parseMediaType(avatar.contentType());
+        } catch (InvalidMediaTypeException e) {
+            contentType = MediaType.APPLICATION_OCTET_STREAM;
+        }
+        StreamingResponseBody body = out -> {
+            try (InputStream in = avatar.content()) {
+                in.transferTo(out);
+            }
+        };
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(contentType)
+                .body(body);
+    }
+}
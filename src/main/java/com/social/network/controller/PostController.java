@@ -2,11 +2,13 @@ package com.social.network.controller;
 
 import com.social.network.dto.CommentRequest;
 import com.social.network.dto.CommentResponse;
+import com.social.network.dto.PostPageResponse;
 import com.social.network.dto.PostRequest;
 import com.social.network.dto.PostResponse;
 import com.social.network.service.CommentService;
 import com.social.network.service.PostService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -51,6 +53,37 @@ public class PostController {
         }
     }
 
+    @GetMapping("/feed")
+    public ResponseEntity<?> getHomeFeed(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            String username = authentication != null ? authentication.getName() : null;
+            PostPageResponse page = postService.getHomeFeedPage(username, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/following")
+    public ResponseEntity<?> getFollowingFeed(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            String username = authentication.getName();
+            PostPageResponse page = postService.getFollowingFeedPage(username, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/profession")
     public ResponseEntity<?> getPostsByProfession(Authentication authentication) {
         try {
@@ -62,6 +95,23 @@ public class PostController {
         }
     }
 
+    @GetMapping("/profession/feed")
+    public ResponseEntity<?> getProfessionFeed(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            String username = authentication.getName();
+            PostPageResponse page = postService.getProfessionFeedPage(username, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/help")
     public ResponseEntity<List<PostResponse>> getHelpPosts(Authentication authentication) {
         if (authentication != null && authentication.isAuthenticated()) {
@@ -1,8 +1,10 @@
 package com.social.network.controller;
 
 import com.social.network.dto.LeaderboardResponse;
+import com.social.network.dto.LocationRequest;
 import com.social.network.dto.SosAlertRequest;
 import com.social.network.dto.SosAlertResponse;
+import com.social.network.dto.SosDispatchResponse;
 import com.social.network.dto.SosResponseRequest;
 import com.social.network.dto.SosResponseResponse;
 import com.social.network.service.SosAlertCleanupService;
@@ -98,6 +100,19 @@ public class SosController {
         }
     }
 
+    @GetMapping("/alert/{alertId}/dispatch")
+    public ResponseEntity<?> getDispatchProgress(
+            Authentication authentication,
+            @PathVariable Long alertId) {
+        try {
+            String username = authentication.getName();
+            SosDispatchResponse response = sosService.getDispatchProgress(username, alertId);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/alert/{alertId}/responses")
     public ResponseEntity<List<SosResponseResponse>> getAlertResponses(@PathVariable Long alertId) {
         try {
@@ -151,6 +166,22 @@ public class SosController {
         }
     }
 
+    @PutMapping("/location")
+    public ResponseEntity<?> updateLocation(
+            Authentication authentication,
+            @Valid @RequestBody LocationRequest request) {
+        try {
+            String username = authentication.getName();
+            sosService.updateLocation(username, request);
+            return ResponseEntity.ok(Map.of(
+                "message", "Location updated",
+                "status", "success"
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/alerts/unread-count")
     public ResponseEntity<Map<String, Long>> getUnreadSosAlertsCount(Authentication authentication) {
         String username = authentication.getName();
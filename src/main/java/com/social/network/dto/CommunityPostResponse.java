@@ -14,6 +14,7 @@ public class CommunityPostResponse {
     private Long id;
     private String content;
     private List<String> mediaUrls;
+    private List<MediaVariants> mediaVariants;
     private Long communityId;
     private String communityName;
     private Long userId;
@@ -0,0 +1,20 @@
+package com.social.network.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class LocationRequest {
+
+    @NotNull(message = "Latitude is required")
+    @DecimalMin("-90.0")
+    @DecimalMax("90.0")
+    private Double latitude;
+
+    @NotNull(message = "Longitude is required")
+    @DecimalMin("-180.0")
+    @DecimalMax("180.0")
+    private Double longitude;
+}
@@ -0,0 +1,15 @@
+package com.social.network.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaUploadResponse {
+    private Long id;
+    private String url;
+    private String contentType;
+    private Long sizeBytes;
+}
@@ -0,0 +1,23 @@
+package com.social.network.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Sized renditions of a media URL. Clients pick the smallest one that fits; a size is the
+ * original URL when no smaller variant exists (videos, GIFs, small or external images).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaVariants {
+    private String url;
+    private String thumbnailUrl;
+    private String feedUrl;
+    private String fullUrl;
+
+    public static MediaVariants original(String url) {
+        return new MediaVariants(url, url, url, url);
+    }
+}
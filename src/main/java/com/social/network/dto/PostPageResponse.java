@@ -0,0 +1,16 @@
+package com.social.network.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostPageResponse {
+    private List<PostResponse> posts;
+    private String nextCursor; // Opaque token to pass back as ?cursor= for the next page, null on the last page
+    private boolean hasMore;
+}
@@ -19,5 +19,9 @@ public class PostRequest {
     
     private Boolean showInHome = true;
     
+    // Legacy: base64 images inline in the request. Prefer uploading to /api/media and passing mediaIds.
     private List<String> mediaUrls;
+
+    // Ids returned by POST /api/media, in display order
+    private List<Long> mediaIds;
 }
@@ -18,6 +18,7 @@ public class PostResponse {
     private Boolean isSolved;
     private Boolean showInHome;
     private List<String> mediaUrls;
+    private List<MediaVariants> mediaVariants;
     private Long userId;
     private String username;
     private String userProfession;
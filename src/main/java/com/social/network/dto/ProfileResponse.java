@@ -17,4 +17,5 @@ public class ProfileResponse {
     private String location;
     private Boolean profileCompleted;
     private String profilePicture;
+    private MediaVariants profilePictureVariants;
 }
@@ -0,0 +1,21 @@
+package com.social.network.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SosDispatchResponse {
+    private Long sosAlertId;
+    private String status; // PENDING, IN_PROGRESS, COMPLETED
+    private Integer totalRecipients; // Null until the recipients were looked up
+    private Integer sentCount;
+    private Integer failedCount;
+    private Integer attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,60 @@
+package com.social.network.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A stored media object, indexed by the SHA-256 of its content so identical content is stored
+ * once. refCount counts the uploads, post attachments and pictures holding it; the object is
+ * deleted when it drops to zero.
+ * Images also carry the URLs of their downscaled variants; a null variant URL means the
+ * original is served for that size.
+ */
+@Entity
+@Table(name = "media", indexes = @Index(name = "idx_media_storage_key", columnList = "storage_key"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Media {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Null only for objects stored before deduplication
+    @Column(unique = true, length = 64)
+    private String sha256;
+
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String url;
+
+    @Column(name = "content_type", nullable = false)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private Long sizeBytes;
+
+    @Column(name = "ref_count", nullable = false, columnDefinition = "INT NOT NULL DEFAULT 1")
+    private Integer refCount = 1;
+
+    @Column(name = "thumbnail_url", columnDefinition = "TEXT")
+    private String thumbnailUrl;
+
+    @Column(name = "feed_url", columnDefinition = "TEXT")
+    private String feedUrl;
+
+    @Column(name = "full_url", columnDefinition = "TEXT")
+    private String fullUrl;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,42 @@
+package com.social.network.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox entry for a media URL to release. Written in the transaction that stops referencing
+ * the media and removed by MediaDeletionWorker once the storage backend confirmed the delete.
+ */
+@Entity
+@Table(name = "media_deletions", indexes = @Index(name = "idx_media_deletions_due", columnList = "next_attempt_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String url;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // Also serves as the lease of the worker that claimed the entry
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
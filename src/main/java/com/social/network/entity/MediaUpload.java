@@ -0,0 +1,44 @@
+package com.social.network.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's streamed upload. Posts reference uploads by id and render the URL of the
+ * (possibly shared) media object. The upload holds one reference to the media until it is
+ * first attached to a post, which takes that reference over (see MediaService.attachUploads).
+ */
+@Entity
+@Table(name = "media_uploads")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaUpload {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Uploader; only they can attach the media to a post
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "media_id", nullable = false)
+    private Media media;
+
+    // Rows from before attachments were tracked default to attached, so attaching them again
+    // takes a new reference rather than one they may already have handed to a post
+    @Column(nullable = false, columnDefinition = "BOOLEAN NOT NULL DEFAULT TRUE")
+    private Boolean attached = false;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -4,13 +4,20 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+    @Index(name = "idx_posts_home_feed", columnList = "show_in_home, created_at, id"),
+    @Index(name = "idx_posts_user_created", columnList = "user_id, created_at, id"),
+    @Index(name = "idx_posts_profession_feed", columnList = "user_profession, is_help_section, created_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -23,8 +30,17 @@ public class Post {
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
-    @Column(name = "media_urls", columnDefinition = "TEXT")
-    private String mediaUrls;
+    @ElementCollection
+    @CollectionTable(name = "post_media", joinColumns = @JoinColumn(name = "post_id"))
+    @OrderColumn(name = "position")
+    @Column(name = "media_url", columnDefinition = "TEXT")
+    @BatchSize(size = 100)
+    private List<String> mediaUrls = new ArrayList<>();
+
+    // Pre-post_media storage ("|||MEDIA_SEPARATOR|||"-joined). Read-only: PostMediaMigrationService
+    // moves it into post_media and clears it; PostRepository.clearLegacyMediaUrls drops it on edit.
+    @Column(name = "media_urls", columnDefinition = "TEXT", insertable = false, updatable = false)
+    private String legacyMediaUrls;
 
     @Column(name = "is_help_section")
     private Boolean isHelpSection = false;
@@ -42,6 +58,16 @@ public class Post {
     @Column(name = "user_profession")
     private String userProfession;
 
+    // Denormalized counters. Never written by entity saves (a stale copy would clobber concurrent
+    // increments); only the atomic UPDATE statements in PostRepository change them.
+    @Column(name = "like_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long likeCount = 0L;
+
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long commentCount = 0L;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
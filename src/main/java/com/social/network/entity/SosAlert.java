@@ -10,7 +10,7 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sos_alerts")
+@Table(name = "sos_alerts", indexes = @Index(name = "idx_sos_alerts_status_geohash", columnList = "status, geohash"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,6 +30,9 @@ public class SosAlert {
     @Column(name = "longitude")
     private Double longitude;
 
+    @Column(name = "geohash", length = 12)
+    private String geohash; // GeoHash.STORED_PRECISION characters, null without a location
+
     @Column(name = "location_address")
     private String locationAddress;
 
@@ -0,0 +1,65 @@
+package com.social.network.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outbox entry for the push notifications of an SOS alert. Written in the transaction that
+ * creates the alert and worked off by SosDispatchWorker, which records its progress here.
+ */
+@Entity
+@Table(name = "sos_dispatches", indexes = {
+    @Index(name = "idx_sos_dispatches_due", columnList = "completed_at, priority, next_attempt_at"),
+    @Index(name = "idx_sos_dispatches_alert", columnList = "alert_id", unique = true)
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SosDispatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "alert_id", nullable = false)
+    private Long alertId;
+
+    // Higher first; see SosDispatchQueue.priority
+    @Column(nullable = false)
+    private Integer priority;
+
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    // Also serves as the lease of the worker that claimed the entry
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    // Recipients are notified in user id order; a retry resumes after the last one handled
+    @Column(name = "last_recipient_id")
+    private Long lastRecipientId;
+
+    @Column(name = "total_recipients")
+    private Integer totalRecipients;
+
+    @Column(name = "sent_count", nullable = false)
+    private Integer sentCount = 0;
+
+    @Column(name = "failed_count", nullable = false)
+    private Integer failedCount = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,48 @@
+package com.social.network.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One post in a user's materialized "following" timeline, written at post time (fan-out on write).
+ */
+@Entity
+@Table(name = "timeline_entries", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"user_id", "post_id"})
+}, indexes = {
+    @Index(name = "idx_timeline_user_post_created", columnList = "user_id, post_created_at, post_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Owner of the timeline (a follower of the post author)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id", nullable = false)
+    private Post post;
+
+    // Copied from the post so unfollow cleanup and ordering need no join
+    @Column(name = "author_id", nullable = false)
+    private Long authorId;
+
+    @Column(name = "post_created_at", nullable = false)
+    private LocalDateTime postCreatedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -10,7 +10,7 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_last_location_geohash", columnList = "last_location_geohash"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -50,6 +50,14 @@ public class User {
     @Column(name = "profile_picture", columnDefinition = "TEXT")
     private String profilePicture;
 
+    // Bumped whenever the picture changes; part of the avatar URL so clients can cache it forever
+    @Column(name = "avatar_version", columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer avatarVersion = 0;
+
+    // Embedded in issued JWTs; bumping it revokes every token issued before
+    @Column(name = "token_version", columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer tokenVersion = 0;
+
     @Column(name = "leaderboard_points")
     private Integer leaderboardPoints = 0;
 
@@ -59,6 +67,19 @@ public class User {
     @Column(name = "fcm_token", columnDefinition = "TEXT")
     private String fcmToken;
 
+    // Last location reported by the client, used to push SOS alerts to users nearby
+    @Column(name = "last_latitude")
+    private Double lastLatitude;
+
+    @Column(name = "last_longitude")
+    private Double lastLongitude;
+
+    @Column(name = "last_location_geohash", length = 12)
+    private String lastLocationGeohash;
+
+    @Column(name = "last_location_at")
+    private LocalDateTime lastLocationAt;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
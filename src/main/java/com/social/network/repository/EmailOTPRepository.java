@@ -2,6 +2,9 @@ package com.social.network.repository;
 
 import com.social.network.entity.EmailOTP;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -19,4 +22,8 @@ public interface EmailOTPRepository extends JpaRepository<EmailOTP, Long> {
     Optional<EmailOTP> findFirstByEmailAndVerifiedFalseOrderByCreatedAtDesc(String email);
     
     void deleteByEmail(String email);
+
+    @Modifying
+    @Query("DELETE FROM EmailOTP o WHERE o.expiresAt < :now OR o.verified = true")
+    int deleteExpiredOrVerified(@Param("now") LocalDateTime now);
 }
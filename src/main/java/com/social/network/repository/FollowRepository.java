@@ -30,4 +30,12 @@ public interface FollowRepository extends JpaRepository<Follow, Long> {
     long countFollowingByUserId(Long userId);
     
     boolean existsByFollowerAndFollowing(User follower, User following);
+    
+    @Query("SELECT f.follower.id FROM Follow f WHERE f.following.id = :userId AND f.isAccepted = true")
+    List<Long> findAcceptedFollowerIdsByUserId(Long userId);
+    
+    // Followed accounts too large to fan out on write; their posts are merged into timelines on read
+    @Query("SELECT f.following.id FROM Follow f WHERE f.follower.id = :userId AND f.isAccepted = true AND " +
+           "(SELECT COUNT(f2) FROM Follow f2 WHERE f2.following.id = f.following.id AND f2.isAccepted = true) > :maxFollowers")
+    List<Long> findAcceptedFollowingIdsWithMoreFollowersThan(Long userId, long maxFollowers);
 }
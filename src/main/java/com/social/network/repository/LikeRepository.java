@@ -4,8 +4,13 @@ import com.social.network.entity.Like;
 import com.social.network.entity.Post;
 import com.social.network.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +18,13 @@ public interface LikeRepository extends JpaRepository<Like, Long> {
     long countByPost(Post post);
     Optional<Like> findByPostAndUser(Post post, User user);
     boolean existsByPostAndUser(Post post, User user);
+    boolean existsByPostIdAndUserId(Long postId, Long userId);
+
+    // Bulk variant used when rendering a page of posts: one round trip per page instead of per post
+    @Query("SELECT l.post.id FROM Like l WHERE l.user.id = :userId AND l.post.id IN :postIds")
+    List<Long> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
+
+    @Modifying
+    @Query("DELETE FROM Like l WHERE l.post.id = :postId AND l.user.id IN :userIds")
+    int deleteByPostIdAndUserIds(@Param("postId") Long postId, @Param("userIds") Collection<Long> userIds);
 }
@@ -0,0 +1,31 @@
+package com.social.network.repository;
+
+import com.social.network.entity.MediaDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MediaDeletionRepository extends JpaRepository<MediaDeletion, Long> {
+
+    // Rows locked by another instance's claim are skipped rather than waited for
+    @Query(value = "SELECT * FROM media_deletions WHERE next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<MediaDeletion> findDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE MediaDeletion d SET d.attempts = d.attempts + 1, d.nextAttemptAt = :leaseUntil WHERE d.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE MediaDeletion d SET d.nextAttemptAt = :nextAttemptAt, d.lastError = :lastError WHERE d.id = :id")
+    int reschedule(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("lastError") String lastError);
+}
@@ -0,0 +1,39 @@
+package com.social.network.repository;
+
+import com.social.network.entity.Media;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MediaRepository extends JpaRepository<Media, Long> {
+
+    Optional<Media> findBySha256(String sha256);
+
+    List<Media> findByStorageKeyIn(Collection<String> storageKeys);
+
+    boolean existsByStorageKey(String storageKey);
+
+    // Never revives an object whose last reference is being released
+    @Modifying
+    @Query("UPDATE Media m SET m.refCount = m.refCount + 1 WHERE m.sha256 = :sha256 AND m.refCount > 0")
+    int acquire(@Param("sha256") String sha256);
+
+    @Modifying
+    @Query("UPDATE Media m SET m.refCount = m.refCount + 1 WHERE m.id = :id AND m.refCount > 0")
+    int acquireById(@Param("id") Long id);
+
+    @Modifying
+    @Query("UPDATE Media m SET m.refCount = m.refCount - 1 WHERE m.id = :id AND m.refCount > 0")
+    int release(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM Media m WHERE m.id = :id AND m.refCount = 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
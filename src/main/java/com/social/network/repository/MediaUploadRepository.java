@@ -0,0 +1,27 @@
+package com.social.network.repository;
+
+import com.social.network.entity.MediaUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MediaUploadRepository extends JpaRepository<MediaUpload, Long> {
+
+    @Query("SELECT u FROM MediaUpload u JOIN FETCH u.media WHERE u.id IN :ids AND u.user.id = :userId")
+    List<MediaUpload> findByIdsAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // The first attachment of an upload takes over its reference; only one caller can win it
+    @Modifying
+    @Query("UPDATE MediaUpload u SET u.attached = true WHERE u.id = :id AND u.attached = false")
+    int markAttached(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM MediaUpload u WHERE u.media.id = :mediaId")
+    int deleteByMediaId(@Param("mediaId") Long mediaId);
+}
@@ -2,16 +2,112 @@ package com.social.network.repository;
 
 import com.social.network.entity.Post;
 import com.social.network.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
+    // Feed queries fetch the author in the same statement; every rendered post needs it
+    @EntityGraph(attributePaths = "user")
     List<Post> findAllByOrderByCreatedAtDesc();
+
+    @EntityGraph(attributePaths = "user")
     List<Post> findByShowInHomeTrueOrderByCreatedAtDesc();
+
+    @EntityGraph(attributePaths = "user")
     List<Post> findByUserProfessionOrderByCreatedAtDesc(String profession);
+
+    @EntityGraph(attributePaths = "user")
     List<Post> findByIsHelpSectionTrueOrderByCreatedAtDesc();
+
+    @EntityGraph(attributePaths = "user")
     List<Post> findByUserOrderByCreatedAtDesc(User user);
+
+    // Keyset pagination for the home feed: first page, then everything strictly after the cursor.
+    // Both use the (show_in_home, created_at, id) index so page cost does not depend on table size.
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT p FROM Post p WHERE p.showInHome = true ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findHomeFeed(Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT p FROM Post p WHERE p.showInHome = true AND " +
+           "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findHomeFeedBefore(
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
+    // Profession feed (help posts excluded), served by the (user_profession, is_help_section, created_at, id) index.
+    // Legacy NULL is_help_section rows are normalized at startup by PostHelpSectionBackfillService.
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT p FROM Post p WHERE p.userProfession = :profession AND p.isHelpSection = false " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findProfessionFeed(@Param("profession") String profession, Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT p FROM Post p WHERE p.userProfession = :profession AND p.isHelpSection = false AND " +
+           "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findProfessionFeedBefore(
+        @Param("profession") String profession,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
+    // Posts by a set of authors, for timelines merged on read
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT p FROM Post p WHERE p.user.id IN :authorIds ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findByAuthors(@Param("authorIds") Collection<Long> authorIds, Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT p FROM Post p WHERE p.user.id IN :authorIds AND " +
+           "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Post> findByAuthorsBefore(
+        @Param("authorIds") Collection<Long> authorIds,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("id") Long id,
+        Pageable pageable
+    );
+
+    // Atomic counter maintenance; callers must be inside a transaction
+    @Modifying
+    @Query(value = "UPDATE posts SET like_count = GREATEST(like_count + :delta, 0) WHERE id = :postId",
+           nativeQuery = true)
+    int adjustLikeCount(@Param("postId") Long postId, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "UPDATE posts SET comment_count = GREATEST(comment_count + :delta, 0) WHERE id = :postId",
+           nativeQuery = true)
+    int adjustCommentCount(@Param("postId") Long postId, @Param("delta") long delta);
+
+    @Query("SELECT MAX(p.id) FROM Post p")
+    Long findMaxId();
+
+    // Recompute counters from the likes/comments tables for posts in (fromId, toId], touching only drifted rows
+    @Modifying
+    @Query(value = "UPDATE posts p " +
+                   "SET p.like_count = (SELECT COUNT(*) FROM likes l WHERE l.post_id = p.id), " +
+                   "p.comment_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id) " +
+                   "WHERE p.id > :fromId AND p.id <= :toId AND (" +
+                   "p.like_count <> (SELECT COUNT(*) FROM likes l2 WHERE l2.post_id = p.id) OR " +
+                   "p.comment_count <> (SELECT COUNT(*) FROM comments c2 WHERE c2.post_id = p.id))",
+           nativeQuery = true)
+    int reconcileCounters(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Modifying
+    @Query(value = "UPDATE posts SET media_urls = NULL WHERE id = :postId", nativeQuery = true)
+    int clearLegacyMediaUrls(@Param("postId") Long postId);
 }
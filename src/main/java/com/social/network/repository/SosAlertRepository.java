@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface SosAlertRepository extends JpaRepository<SosAlert, Long> {
+public interface SosAlertRepository extends JpaRepository<SosAlert, Long>, SosAlertRepositoryCustom {
     List<SosAlert> findByStatusOrderByCreatedAtDesc(String status);
     
     List<SosAlert> findByUserAndStatusOrderByCreatedAtDesc(User user, String status);
@@ -20,6 +20,10 @@ public interface SosAlertRepository extends JpaRepository<SosAlert, Long> {
     
     List<SosAlert> findByEmergencyTypeAndCreatedAtBefore(String emergencyType, LocalDateTime before);
     
+    @Query("SELECT s FROM SosAlert s JOIN FETCH s.user WHERE s.status = :status")
+    List<SosAlert> findWithUserByStatus(@Param("status") String status);
+
+    // Evaluates the distance on every row in the status; SosService goes through findByStatusInCells
     @Query("SELECT s FROM SosAlert s WHERE s.status = :status AND " +
            "(6371 * acos(cos(radians(:latitude)) * cos(radians(s.latitude)) * " +
            "cos(radians(s.longitude) - radians(:longitude)) + " +
@@ -0,0 +1,15 @@
+package com.social.network.repository;
+
+import com.social.network.entity.SosAlert;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SosAlertRepositoryCustom {
+
+    /**
+     * Alerts in the given status whose geohash starts with one of the cells, newest first.
+     * One index range per cell on (status, geohash).
+     */
+    List<SosAlert> findByStatusInCells(String status, Collection<String> cells);
+}
@@ -0,0 +1,36 @@
+package com.social.network.repository;
+
+import com.social.network.entity.SosAlert;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.Collection;
+import java.util.List;
+
+public class SosAlertRepositoryCustomImpl implements SosAlertRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SosAlert> findByStatusInCells(String status, Collection<String> cells) {
+        if (cells.isEmpty()) {
+            return List.of();
+        }
+        // The number of cells varies per call, so the OR of prefix ranges is built here
+        StringBuilder jpql = new StringBuilder("SELECT s FROM SosAlert s WHERE s.status = :status AND (");
+        for (int i = 0; i < cells.size(); i++) {
+            jpql.append(i == 0 ? "" : " OR ").append("s.geohash LIKE :cell").append(i);
+        }
+        jpql.append(") ORDER BY s.createdAt DESC");
+
+        TypedQuery<SosAlert> query = entityManager.createQuery(jpql.toString(), SosAlert.class)
+                .setParameter("status", status);
+        int i = 0;
+        for (String cell : cells) {
+            query.setParameter("cell" + i++, cell + "%");
+        }
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,49 @@
+package com.social.network.repository;
+
+import com.social.network.entity.SosDispatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SosDispatchRepository extends JpaRepository<SosDispatch, Long> {
+
+    Optional<SosDispatch> findByAlertId(Long alertId);
+
+    // Rows locked by another instance's claim are skipped rather than waited for
+    @Query(value = "SELECT * FROM sos_dispatches WHERE completed_at IS NULL AND next_attempt_at <= :now " +
+                   "ORDER BY priority DESC, next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<SosDispatch> findDueForUpdate(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE SosDispatch d SET d.attempts = d.attempts + 1, d.nextAttemptAt = :leaseUntil WHERE d.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE SosDispatch d SET d.totalRecipients = :totalRecipients, d.lastRecipientId = :lastRecipientId, " +
+           "d.sentCount = :sentCount, d.failedCount = :failedCount, d.nextAttemptAt = :leaseUntil WHERE d.id = :id")
+    int recordProgress(@Param("id") Long id, @Param("totalRecipients") int totalRecipients,
+                       @Param("lastRecipientId") Long lastRecipientId, @Param("sentCount") int sentCount,
+                       @Param("failedCount") int failedCount, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE SosDispatch d SET d.completedAt = :completedAt, d.lastError = NULL WHERE d.id = :id")
+    int complete(@Param("id") Long id, @Param("completedAt") LocalDateTime completedAt);
+
+    @Modifying
+    @Query("UPDATE SosDispatch d SET d.nextAttemptAt = :nextAttemptAt, d.lastError = :lastError WHERE d.id = :id")
+    int reschedule(@Param("id") Long id, @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+    @Modifying
+    @Query("DELETE FROM SosDispatch d WHERE d.alertId IN :alertIds")
+    int deleteByAlertIds(@Param("alertIds") Collection<Long> alertIds);
+}
@@ -4,6 +4,8 @@ import com.social.network.entity.SosAlert;
 import com.social.network.entity.SosResponse;
 import com.social.network.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -19,4 +21,7 @@ public interface SosResponseRepository extends JpaRepository<SosResponse, Long>
     boolean existsBySosAlertAndResponder(SosAlert sosAlert, User responder);
     
     SosResponse findBySosAlertAndResponder(SosAlert sosAlert, User responder);
+
+    @Query("SELECT r FROM SosResponse r WHERE r.sosAlert.status = :status")
+    List<SosResponse> findByAlertStatus(@Param("status") String status);
 }
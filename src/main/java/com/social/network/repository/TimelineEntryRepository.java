@@ -0,0 +1,52 @@
+package com.social.network.repository;
+
+import com.social.network.entity.Post;
+import com.social.network.entity.TimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+
+    // Range scans on (user_id, post_created_at, post_id), newest first
+    @Query("SELECT p FROM TimelineEntry t JOIN t.post p JOIN FETCH p.user " +
+           "WHERE t.user.id = :userId ORDER BY t.postCreatedAt DESC, p.id DESC")
+    List<Post> findTimelinePosts(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT p FROM TimelineEntry t JOIN t.post p JOIN FETCH p.user " +
+           "WHERE t.user.id = :userId AND " +
+           "(t.postCreatedAt < :createdAt OR (t.postCreatedAt = :createdAt AND p.id < :postId)) " +
+           "ORDER BY t.postCreatedAt DESC, p.id DESC")
+    List<Post> findTimelinePostsBefore(
+        @Param("userId") Long userId,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("postId") Long postId,
+        Pageable pageable
+    );
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.user.id = :userId AND t.authorId = :authorId")
+    int deleteByUserIdAndAuthorId(@Param("userId") Long userId, @Param("authorId") Long authorId);
+
+    // Trimming timelines back to their bound
+    @Query("SELECT t.user.id FROM TimelineEntry t GROUP BY t.user.id HAVING COUNT(t) > :maxEntries")
+    List<Long> findUserIdsWithMoreEntriesThan(@Param("maxEntries") long maxEntries);
+
+    @Query("SELECT t.postCreatedAt FROM TimelineEntry t WHERE t.user.id = :userId ORDER BY t.postCreatedAt DESC")
+    List<LocalDateTime> findPostCreatedAtByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.user.id = :userId AND t.postCreatedAt < :cutoff")
+    int deleteByUserIdAndPostCreatedAtBefore(@Param("userId") Long userId, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -3,17 +3,44 @@ package com.social.network.repository;
 import com.social.network.entity.User;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
     List<User> findByOrderByLeaderboardPointsDesc(Pageable pageable);
-    List<User> findByFcmTokenIsNotNull();
+
+    /**
+     * Id and token of the users with an FCM token that never reported a location, for the
+     * temporary sos.push.unlocated-fallback. Uses the index on last_location_geohash, which is set
+     * with every location.
+     */
+    @Query("SELECT u.id AS id, u.fcmToken AS fcmToken FROM User u " +
+           "WHERE u.lastLocationGeohash IS NULL AND u.fcmToken IS NOT NULL")
+    List<FcmRecipient> findUnlocatedFcmRecipients();
+
+    interface FcmRecipient {
+        Long getId();
+
+        String getFcmToken();
+    }
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.fcmToken = NULL WHERE u.fcmToken IN :tokens")
+    int clearFcmTokens(@Param("tokens") Collection<String> tokens);
 }
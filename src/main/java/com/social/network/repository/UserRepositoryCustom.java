@@ -0,0 +1,16 @@
+package com.social.network.repository;
+
+import com.social.network.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Users with an FCM token whose last location, reported after locatedAfter, has a geohash
+     * starting with one of the cells. One index range per cell on last_location_geohash.
+     */
+    List<User> findWithFcmTokenInCells(Collection<String> cells, LocalDateTime locatedAfter);
+}
@@ -0,0 +1,38 @@
+package com.social.network.repository;
+
+import com.social.network.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<User> findWithFcmTokenInCells(Collection<String> cells, LocalDateTime locatedAfter) {
+        if (cells.isEmpty()) {
+            return List.of();
+        }
+        // The number of cells varies per call, so the OR of prefix ranges is built here
+        StringBuilder jpql = new StringBuilder("SELECT u FROM User u WHERE u.fcmToken IS NOT NULL " +
+                "AND u.lastLocationAt > :locatedAfter AND (");
+        for (int i = 0; i < cells.size(); i++) {
+            jpql.append(i == 0 ? "" : " OR ").append("u.lastLocationGeohash LIKE :cell").append(i);
+        }
+        jpql.append(")");
+
+        TypedQuery<User> query = entityManager.createQuery(jpql.toString(), User.class)
+                .setParameter("locatedAfter", locatedAfter);
+        int i = 0;
+        for (String cell : cells) {
+            query.setParameter("cell" + i++, cell + "%");
+        }
+        return query.getResultList();
+    }
+}
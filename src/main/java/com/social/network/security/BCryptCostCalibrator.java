@@ -0,0 +1,36 @@
+package com.social.network.security;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Picks the BCrypt cost whose hash takes about a target time on this machine. Every cost step
+ * doubles the work, so one timed hash at the minimum cost predicts the others.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(long targetMs, int minCost, int maxCost) {
+        String salt = BCrypt.gensalt(minCost);
+        BCrypt.hashpw(SAMPLE_PASSWORD, salt); // Warm up the JIT
+        long start = System.nanoTime();
+        BCrypt.hashpw(SAMPLE_PASSWORD, salt);
+        return costFor(System.nanoTime() - start, targetMs * 1_000_000L, minCost, maxCost);
+    }
+
+    /**
+     * Highest cost whose predicted hash time stays within the target, clamped to [minCost, maxCost].
+     */
+    static int costFor(long nanosAtMinCost, long targetNanos, int minCost, int maxCost) {
+        int cost = minCost;
+        long predicted = Math.max(1, nanosAtMinCost);
+        while (cost < maxCost && predicted * 2 <= targetNanos) {
+            predicted *= 2;
+            cost++;
+        }
+        return cost;
+    }
+}
@@ -0,0 +1,21 @@
+package com.social.network.security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects the authenticated user into a controller method parameter of type
+ * {@link com.social.network.entity.User} (loaded at most once per request),
+ * {@link UserDetailsImpl} or {@code Long} (the user id; neither needs a lookup).
+ * Unauthenticated requests get null, or a 401 if the parameter is required.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+
+    boolean required() default true;
+}
@@ -0,0 +1,50 @@
+package com.social.network.security;
+
+import com.social.network.entity.User;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resolves {@link CurrentUser} controller parameters.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final CurrentUserResolver currentUserResolver;
+
+    public CurrentUserArgumentResolver(CurrentUserResolver currentUserResolver) {
+        this.currentUserResolver = currentUserResolver;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        Class<?> type = parameter.getParameterType();
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && (type == User.class || type == UserDetailsImpl.class || type == Long.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Class<?> type = parameter.getParameterType();
+        Object value;
+        if (type == User.class) {
+            value = currentUserResolver.currentUser().orElse(null);
+        } else {
+            value = currentUserResolver.currentPrincipal()
+                    .map(principal -> type == Long.class ? principal.getId() : principal)
+                    .orElse(null);
+        }
+
+        CurrentUser annotation = parameter.getParameterAnnotation(CurrentUser.class);
+        if (value == null && annotation != null && annotation.required()) {
+            throw new AuthenticationCredentialsNotFoundException("Not authenticated");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,75 @@
+package com.social.network.security;
+
+import com.social.network.entity.User;
+import com.social.network.repository.UserRepository;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * The authenticated user's entity, loaded by the principal's id at most once per request and
+ * shared by the controller and every service the request calls.
+ *
+ * The loaded user is kept as a request attribute; with spring.jpa.open-in-view (the default)
+ * it stays managed for the whole request. Outside of web requests (scheduled jobs, tests)
+ * nothing is memoized.
+ */
+@Component
+public class CurrentUserResolver {
+
+    private static final String ATTRIBUTE = CurrentUserResolver.class.getName() + ".user";
+
+    private final UserRepository userRepository;
+
+    public CurrentUserResolver(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Principal of the current request, without any lookup.
+     */
+    public Optional<UserDetailsImpl> currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails
+                && userDetails.getId() != null) {
+            return Optional.of(userDetails);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The authenticated user, loaded on first use in the request.
+     */
+    public Optional<User> currentUser() {
+        Optional<UserDetailsImpl> principal = currentPrincipal();
+        if (principal.isEmpty()) {
+            return Optional.empty();
+        }
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User cached
+                && principal.get().getId().equals(cached.getId())) {
+            return Optional.of(cached);
+        }
+        Optional<User> user = userRepository.findById(principal.get().getId());
+        if (request != null && user.isPresent()) {
+            request.setAttribute(ATTRIBUTE, user.get(), RequestAttributes.SCOPE_REQUEST);
+        }
+        return user;
+    }
+
+    /**
+     * User by username; the authenticated user's own name is served from {@link #currentUser()}.
+     */
+    public Optional<User> findByUsername(String username) {
+        Optional<UserDetailsImpl> principal = currentPrincipal();
+        if (principal.isPresent() && principal.get().getUsername().equals(username)) {
+            return currentUser();
+        }
+        return userRepository.findByUsername(username);
+    }
+}
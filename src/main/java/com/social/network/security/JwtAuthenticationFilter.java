@@ -1,5 +1,6 @@
 package com.social.network.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -19,12 +20,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsServiceImpl userDetailsService;
+    private final TokenVersionCache tokenVersionCache;
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsServiceImpl userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsServiceImpl userDetailsService,
+                                   TokenVersionCache tokenVersionCache) {
         this.tokenProvider = tokenProvider;
         this.userDetailsService = userDetailsService;
+        this.tokenVersionCache = tokenVersionCache;
     }
 
     @Override
@@ -33,10 +37,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromJWT(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.getValidClaims(jwt) : null;
+            UserDetails userDetails = claims != null ? resolveUser(claims) : null;
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -50,6 +53,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * The principal is built from the token's claims; only the token version is checked against
+     * the (cached) user. Tokens without claims, issued before they were embedded, still load the user.
+     */
+    private UserDetails resolveUser(Claims claims) {
+        UserDetailsImpl userDetails = JwtTokenProvider.userDetailsFromClaims(claims);
+        if (userDetails == null) {
+            return userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        if (!tokenVersionCache.isCurrent(userDetails.getId(), userDetails.getTokenVersion())) {
+            logger.debug("Rejected revoked token of user {}", userDetails.getId());
+            return null;
+        }
+        return userDetails;
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -13,11 +13,18 @@ import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class JwtTokenProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+    static final String TOKEN_VERSION_CLAIM = "ver";
 
     /**
      * Provide jwt.secret in application.properties or application.yml.
@@ -37,7 +44,36 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration:86400000}") // default 1 day
     private long jwtExpirationMs;
 
+    // Verifications cached by token; 0 disables the cache
+    @Value("${jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    // Derived once; the key and the parser are immutable and thread-safe. Racing first calls build equal instances
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+    private final Map<String, Claims> verified = new LinkedHashMap<>(16, 0.75f, true);
+
     private Key getSigningKey() {
+        Key key = signingKey;
+        if (key == null) {
+            key = deriveSigningKey();
+            signingKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser current = parser;
+        if (current == null) {
+            current = Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build();
+            parser = current;
+        }
+        return current;
+    }
+
+    private Key deriveSigningKey() {
         if (jwtSecret == null || jwtSecret.isEmpty()) {
             throw new IllegalStateException("JWT secret is not configured. Set 'jwt.secret' in application properties.");
         }
@@ -69,31 +105,93 @@ public class JwtTokenProvider {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + jwtExpirationMs);
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(username)
                 .setIssuedAt(now)
-                .setExpiration(expiry)
+                .setExpiration(expiry);
+        // Identity and authorities travel in the token so requests authenticate without loading the user
+        if (authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            builder.claim(USER_ID_CLAIM, userDetails.getId())
+                    .claim(ROLES_CLAIM, userDetails.getRoles())
+                    .claim(TOKEN_VERSION_CLAIM, userDetails.getTokenVersion());
+        }
+        return builder
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Principal described by the token's claims, or null for tokens issued before user id and
+     * authorities were embedded (their user has to be loaded by username).
+     */
+    public UserDetailsImpl getUserDetailsFromJWT(String token) {
+        return userDetailsFromClaims(getParser().parseClaimsJws(token).getBody());
+    }
+
+    public static UserDetailsImpl userDetailsFromClaims(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        if (userId == null) {
+            return null;
+        }
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        Integer tokenVersion = claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+        return new UserDetailsImpl(
+                userId,
+                claims.getSubject(),
+                null,
+                null,
+                roles != null ? roles.stream().map(String::valueOf).toList() : List.of(),
+                tokenVersion != null ? tokenVersion : 0
+        );
+    }
 
-        return claims.getSubject();
+    public String getUsernameFromJWT(String token) {
+        return getParser().parseClaimsJws(token).getBody().getSubject();
     }
 
     public boolean validateToken(String authToken) {
+        return getValidClaims(authToken) != null;
+    }
+
+    /**
+     * Validate the token and return its claims in one pass, or null if it is invalid or expired.
+     *
+     * Clients send the same token with every request, so verified tokens are remembered in a
+     * bounded LRU map (jwt.verified-cache.max-entries) and only their expiry is re-checked.
+     */
+    public Claims getValidClaims(String authToken) {
+        if (verifiedCacheMaxEntries > 0 && authToken != null) {
+            Claims cached;
+            synchronized (verified) {
+                cached = verified.get(authToken);
+            }
+            if (cached != null) {
+                if (cached.getExpiration() == null || cached.getExpiration().after(new Date())) {
+                    return cached;
+                }
+                synchronized (verified) {
+                    verified.remove(authToken);
+                }
+            }
+        }
+
+        Claims claims = parseClaims(authToken);
+        if (claims != null && verifiedCacheMaxEntries > 0) {
+            synchronized (verified) {
+                verified.put(authToken, claims);
+                Iterator<Claims> eldest = verified.values().iterator();
+                while (verified.size() > verifiedCacheMaxEntries && eldest.hasNext()) {
+                    eldest.next();
+                    eldest.remove();
+                }
+            }
+        }
+        return claims;
+    }
+
+    private Claims parseClaims(String authToken) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            return getParser().parseClaimsJws(authToken).getBody();
         } catch (SecurityException ex) {
             logger.error("Invalid JWT signature: {}", ex.getMessage());
         } catch (MalformedJwtException ex) {
@@ -107,6 +205,6 @@ public class JwtTokenProvider {
         } catch (Exception ex) {
             logger.error("Unexpected error while validating JWT: {}", ex.getMessage(), ex);
         }
-        return false;
+        return null;
     }
 }
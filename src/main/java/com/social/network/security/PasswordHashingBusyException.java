@@ -0,0 +1,11 @@
+package com.social.network.security;
+
+/**
+ * Thrown when the password hashing pool is saturated; controllers answer 429 Too Many Requests.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+package com.social.network.security;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs password hashing and verification (signup, login) on the bounded passwordHashingExecutor
+ * instead of request threads, so a login burst cannot occupy every request thread with BCrypt.
+ * Work beyond the pool and its queue is refused with {@link PasswordHashingBusyException}.
+ */
+@Service
+public class PasswordHashingService {
+
+    private final ExecutorService executor;
+
+    @Value("${security.password.timeout-ms:5000}")
+    private long timeoutMs;
+
+    public PasswordHashingService(@Qualifier("passwordHashingExecutor") ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Run the work on the hashing pool and wait for its result. Exceptions of the work
+     * (e.g. BadCredentialsException) are rethrown as is.
+     */
+    public <T> T run(Callable<T> work) {
+        Future<T> result;
+        try {
+            result = executor.submit(work);
+        } catch (RejectedExecutionException e) {
+            throw new PasswordHashingBusyException("Too many sign-in attempts, please retry shortly");
+        }
+
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new PasswordHashingBusyException("Too many sign-in attempts, please retry shortly");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException("Interrupted while hashing password");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+}
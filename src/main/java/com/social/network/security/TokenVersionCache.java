@@ -0,0 +1,89 @@
+package com.social.network.security;
+
+import com.social.network.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Current token version of each user, so revoked JWTs (issued before User.tokenVersion was
+ * bumped) are rejected without loading the user on every request.
+ *
+ * Versions are cached in a bounded in-process LRU map for jwt.version-check.ttl-ms. A bump on
+ * this instance evicts the entry right away, and a version loaded while an eviction happened is
+ * not cached, since it may predate the bump; other instances pick it up within the TTL.
+ * With jwt.version-check.enabled=false tokens are trusted until they expire.
+ */
+@Component
+public class TokenVersionCache {
+
+    private final UserRepository userRepository;
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped on every eviction; a load that started before the bump is not cached
+    private long generation;
+
+    @Value("${jwt.version-check.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.version-check.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Value("${jwt.version-check.max-entries:10000}")
+    private int maxEntries;
+
+    public TokenVersionCache(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Whether a token carrying this version is still valid for the user. Tokens of deleted users are not.
+     */
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        if (!enabled) {
+            return true;
+        }
+        Integer current = currentVersion(userId);
+        return current != null && current == tokenVersion;
+    }
+
+    /**
+     * Forget the cached version after changing it.
+     */
+    public synchronized void evict(Long userId) {
+        generation++;
+        entries.remove(userId);
+    }
+
+    private Integer currentVersion(Long userId) {
+        long now = System.currentTimeMillis();
+        long stamp;
+        synchronized (this) {
+            Entry entry = entries.get(userId);
+            if (entry != null && entry.expiresAt > now) {
+                return entry.version;
+            }
+            stamp = generation;
+        }
+
+        // Concurrent misses for the same user may both query; the result is the same
+        Integer version = userRepository.findTokenVersionById(userId).orElse(null);
+        synchronized (this) {
+            if (stamp != generation) {
+                return version; // Evicted while loading; answer this request but don't cache it
+            }
+            entries.put(userId, new Entry(version, now + ttlMs));
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return version;
+    }
+
+    private record Entry(Integer version, long expiresAt) {
+    }
+}
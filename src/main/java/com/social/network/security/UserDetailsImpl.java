@@ -5,11 +5,16 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 
+/**
+ * Authenticated user. Principals of API requests are built from JWT claims
+ * ({@link JwtTokenProvider#getUserDetailsFromJWT}) and carry no email or password.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,19 +24,23 @@ public class UserDetailsImpl implements UserDetails {
     private String username;
     private String email;
     private String password;
+    private List<String> roles = List.of();
+    private int tokenVersion;
 
     public static UserDetailsImpl build(User user) {
         return new UserDetailsImpl(
                 user.getId(),
                 user.getUsername(),
                 user.getEmail(),
-                user.getPassword()
+                user.getPassword(),
+                List.of(),
+                user.getTokenVersion() != null ? user.getTokenVersion() : 0
         );
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.emptyList();
+        return roles.stream().map(SimpleGrantedAuthority::new).toList();
     }
 
     @Override
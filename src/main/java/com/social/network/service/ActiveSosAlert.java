@@ -0,0 +1,73 @@
+package com.social.network.service;
+
+import com.social.network.entity.SosAlert;
+import com.social.network.entity.SosResponse;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of an active SOS alert with everything its {@code SosAlertResponse} shows,
+ * kept in {@link ActiveSosAlertIndex}. Responses are keyed by responder id, which is also what
+ * the viewer-specific fields of the response need.
+ */
+public record ActiveSosAlert(
+        Long id,
+        Long userId,
+        String username,
+        String profession,
+        String avatarUrl,
+        Double latitude,
+        Double longitude,
+        String locationAddress,
+        String emergencyType,
+        String description,
+        LocalDateTime createdAt,
+        LocalDateTime expiresAt,
+        Map<Long, Response> responses) {
+
+    public record Response(String type, String message) {
+    }
+
+    /**
+     * Snapshot of the alert; its user must be loaded and the responses must all belong to it.
+     */
+    public static ActiveSosAlert of(SosAlert alert, List<SosResponse> responses, String avatarUrl) {
+        Map<Long, Response> byResponder = new HashMap<>();
+        for (SosResponse response : responses) {
+            byResponder.put(response.getResponder().getId(), new Response(response.getResponseType(), response.getMessage()));
+        }
+        return new ActiveSosAlert(
+                alert.getId(),
+                alert.getUser().getId(),
+                alert.getUser().getUsername(),
+                alert.getUser().getProfession(),
+                avatarUrl,
+                alert.getLatitude(),
+                alert.getLongitude(),
+                alert.getLocationAddress(),
+                alert.getEmergencyType(),
+                alert.getDescription(),
+                alert.getCreatedAt(),
+                alert.getCreatedAt().plus(SosService.retention(alert.getEmergencyType())),
+                Map.copyOf(byResponder));
+    }
+
+    public boolean hasLocation() {
+        return latitude != null && longitude != null;
+    }
+
+    ActiveSosAlert withResponse(Long responderId, Response response) {
+        Map<Long, Response> updated = new HashMap<>(responses);
+        updated.put(responderId, response);
+        return new ActiveSosAlert(id, userId, username, profession, avatarUrl, latitude, longitude, locationAddress,
+                emergencyType, description, createdAt, expiresAt, Map.copyOf(updated));
+    }
+
+    ActiveSosAlert withAuthor(String username, String profession, String avatarUrl) {
+        return new ActiveSosAlert(id, userId, username, profession, avatarUrl, latitude, longitude, locationAddress,
+                emergencyType, description, createdAt, expiresAt, responses);
+    }
+}
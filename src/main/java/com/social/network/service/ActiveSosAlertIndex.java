@@ -0,0 +1,331 @@
+package com.social.network.service;
+
+import com.social.network.entity.SosAlert;
+import com.social.network.entity.SosResponse;
+import com.social.network.entity.User;
+import com.social.network.repository.SosAlertRepository;
+import com.social.network.repository.SosResponseRepository;
+import com.social.network.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Active SOS alerts in process memory, bucketed in a uniform lat/lon grid (sos.index.cell-degrees),
+ * so polling clients get nearby alerts without a database round trip.
+ *
+ * SosService and the cleanup job keep it current; changes made inside a transaction are applied
+ * after it commits. It is loaded when the application is ready and reloaded every
+ * sos.index.refresh-ms, which is also how long other instances take to see an alert created
+ * elsewhere. A reload that raced a change is dropped and retried on the next run. Until the
+ * first load succeeds {@link #isReady()} is false and callers query the database.
+ */
+@Component
+public class ActiveSosAlertIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ActiveSosAlertIndex.class);
+    private static final Comparator<ActiveSosAlert> NEWEST_FIRST =
+            Comparator.comparing(ActiveSosAlert::createdAt).thenComparing(ActiveSosAlert::id).reversed();
+
+    private final SosAlertRepository sosAlertRepository;
+    private final SosResponseRepository sosResponseRepository;
+    private final UserRepository userRepository;
+    private final AvatarService avatarService;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private Map<Long, ActiveSosAlert> alerts = new HashMap<>();
+    private Map<Long, Map<Long, ActiveSosAlert>> cells = new HashMap<>();
+    // Bumped on every change; a reload that started before the bump is not applied
+    private long generation;
+    private volatile boolean ready;
+
+    @Value("${sos.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sos.index.cell-degrees:0.5}")
+    private double cellDegrees;
+
+    public ActiveSosAlertIndex(SosAlertRepository sosAlertRepository,
+                               SosResponseRepository sosResponseRepository,
+                               UserRepository userRepository,
+                               AvatarService avatarService) {
+        this.sosAlertRepository = sosAlertRepository;
+        this.sosResponseRepository = sosResponseRepository;
+        this.userRepository = userRepository;
+        this.avatarService = avatarService;
+    }
+
+    public record Nearby(ActiveSosAlert alert, double distanceKm) {
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    /**
+     * Unexpired alerts within radiusKm of the point, newest first.
+     */
+    public List<Nearby> nearby(double latitude, double longitude, double radiusKm) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Nearby> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (ActiveSosAlert alert : candidates(latitude, longitude, radiusKm)) {
+                if (!alert.hasLocation() || !alert.expiresAt().isAfter(now)) {
+                    continue;
+                }
+                double distance = GeoHash.distanceKm(latitude, longitude, alert.latitude(), alert.longitude());
+                if (distance <= radiusKm) {
+                    found.add(new Nearby(alert, distance));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        found.sort(Comparator.comparing(Nearby::alert, NEWEST_FIRST));
+        return found;
+    }
+
+    /**
+     * Every unexpired alert, newest first.
+     */
+    public List<ActiveSosAlert> all() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ActiveSosAlert> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (ActiveSosAlert alert : alerts.values()) {
+                if (alert.expiresAt().isAfter(now)) {
+                    found.add(alert);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        found.sort(NEWEST_FIRST);
+        return found;
+    }
+
+    public void put(ActiveSosAlert alert) {
+        afterCommit(() -> {
+            delete(alert.id(), alerts, cells);
+            insert(alert, alerts, cells);
+        });
+    }
+
+    public void remove(Long alertId) {
+        afterCommit(() -> delete(alertId, alerts, cells));
+    }
+
+    public void removeAll(Collection<Long> alertIds) {
+        List<Long> ids = List.copyOf(alertIds);
+        afterCommit(() -> ids.forEach(id -> delete(id, alerts, cells)));
+    }
+
+    public void addResponse(Long alertId, Long responderId, String type, String message) {
+        afterCommit(() -> {
+            ActiveSosAlert alert = alerts.get(alertId);
+            if (alert != null) {
+                ActiveSosAlert updated = alert.withResponse(responderId, new ActiveSosAlert.Response(type, message));
+                delete(alertId, alerts, cells);
+                insert(updated, alerts, cells);
+            }
+        });
+    }
+
+    /**
+     * Alerts show their author's name, profession and avatar; refresh them when those change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        if (!isReady() || event.type() != PostChangedEvent.Type.AUTHOR_UPDATED) {
+            return;
+        }
+        boolean hasAlerts;
+        lock.readLock().lock();
+        try {
+            hasAlerts = alerts.values().stream().anyMatch(alert -> alert.userId().equals(event.authorId()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!hasAlerts) {
+            return;
+        }
+        User author = userRepository.findById(event.authorId()).orElse(null);
+        if (author == null) {
+            return;
+        }
+        String avatarUrl = avatarService.avatarUrl(author);
+        apply(() -> alerts.values().stream()
+                .filter(alert -> alert.userId().equals(author.getId()))
+                .toList()
+                .forEach(alert -> {
+                    delete(alert.id(), alerts, cells);
+                    insert(alert.withAuthor(author.getUsername(), author.getProfession(), avatarUrl), alerts, cells);
+                }));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            logger.warn("Could not load active SOS alerts, serving them from the database until the next reload", e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${sos.index.refresh-ms:60000}", fixedDelayString = "${sos.index.refresh-ms:60000}")
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+
+        long stamp;
+        lock.readLock().lock();
+        try {
+            stamp = generation;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Long, List<SosResponse>> responsesByAlert = new HashMap<>();
+        for (SosResponse response : sosResponseRepository.findByAlertStatus("ACTIVE")) {
+            responsesByAlert.computeIfAbsent(response.getSosAlert().getId(), id -> new ArrayList<>()).add(response);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, ActiveSosAlert> loadedAlerts = new HashMap<>();
+        Map<Long, Map<Long, ActiveSosAlert>> loadedCells = new HashMap<>();
+        for (SosAlert alert : sosAlertRepository.findWithUserByStatus("ACTIVE")) {
+            ActiveSosAlert snapshot = ActiveSosAlert.of(alert, responsesByAlert.getOrDefault(alert.getId(), List.of()),
+                    avatarService.avatarUrl(alert.getUser()));
+            if (snapshot.expiresAt().isAfter(now)) {
+                insert(snapshot, loadedAlerts, loadedCells);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (stamp != generation) {
+                logger.debug("Active SOS alerts changed while reloading, keeping the current index");
+                return;
+            }
+            alerts = loadedAlerts;
+            cells = loadedCells;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.debug("Loaded {} active SOS alerts", loadedAlerts.size());
+    }
+
+    /**
+     * Alerts in the grid cells overlapping the radius, or every alert when that's fewer to check.
+     */
+    private Collection<ActiveSosAlert> candidates(double latitude, double longitude, double radiusKm) {
+        int rows = (int) Math.ceil(180 / cellDegrees);
+        int columns = (int) Math.ceil(360 / cellDegrees);
+        double dLat = radiusKm / GeoHash.KM_PER_DEGREE;
+        double south = Math.max(-90, latitude - dLat);
+        double north = Math.min(90, latitude + dLat);
+        // Longitude degrees shrink towards the poles, so size the box at its widest latitude
+        double widestCos = Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+        double dLon = widestCos > 0 ? dLat / widestCos : 360;
+
+        int rowMin = row(south, rows);
+        int rowMax = row(north, rows);
+        long colMin = dLon >= 180 ? 0 : (long) Math.floor((longitude - dLon + 180) / cellDegrees);
+        long colMax = dLon >= 180 ? columns - 1 : Math.min((long) Math.floor((longitude + dLon + 180) / cellDegrees),
+                colMin + columns - 1);
+        if ((long) (rowMax - rowMin + 1) * (colMax - colMin + 1) > alerts.size()) {
+            return alerts.values();
+        }
+
+        List<ActiveSosAlert> found = new ArrayList<>();
+        for (int row = rowMin; row <= rowMax; row++) {
+            for (long col = colMin; col <= colMax; col++) {
+                Map<Long, ActiveSosAlert> cell = cells.get(cellKey(row, (int) Math.floorMod(col, columns), columns));
+                if (cell != null) {
+                    found.addAll(cell.values());
+                }
+            }
+        }
+        return found;
+    }
+
+    private void insert(ActiveSosAlert alert, Map<Long, ActiveSosAlert> alerts, Map<Long, Map<Long, ActiveSosAlert>> cells) {
+        alerts.put(alert.id(), alert);
+        if (alert.hasLocation()) {
+            cells.computeIfAbsent(cellKey(alert), key -> new HashMap<>()).put(alert.id(), alert);
+        }
+    }
+
+    private void delete(Long alertId, Map<Long, ActiveSosAlert> alerts, Map<Long, Map<Long, ActiveSosAlert>> cells) {
+        ActiveSosAlert alert = alerts.remove(alertId);
+        if (alert != null && alert.hasLocation()) {
+            Long key = cellKey(alert);
+            Map<Long, ActiveSosAlert> cell = cells.get(key);
+            if (cell != null) {
+                cell.remove(alertId);
+                if (cell.isEmpty()) {
+                    cells.remove(key);
+                }
+            }
+        }
+    }
+
+    private long cellKey(ActiveSosAlert alert) {
+        int rows = (int) Math.ceil(180 / cellDegrees);
+        int columns = (int) Math.ceil(360 / cellDegrees);
+        int column = (int) Math.floorMod((long) Math.floor((alert.longitude() + 180) / cellDegrees), columns);
+        return cellKey(row(alert.latitude(), rows), column, columns);
+    }
+
+    private int row(double latitude, int rows) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private static long cellKey(int row, int column, int columns) {
+        return (long) row * columns + column;
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(change);
+                }
+            });
+        } else {
+            apply(change);
+        }
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            generation++;
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
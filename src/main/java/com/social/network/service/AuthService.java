@@ -2,6 +2,7 @@ package com.social.network.service;
 
 import com.social.network.dto.AuthResponse;
 import com.social.network.dto.LoginRequest;
+import com.social.network.dto.MediaVariants;
 import com.social.network.dto.ProfileRequest;
 import com.social.network.dto.ProfileResponse;
 import com.social.network.dto.SignupRequest;
@@ -9,36 +10,64 @@ import com.social.network.dto.SignupResponse;
 import com.social.network.entity.User;
 import com.social.network.repository.UserRepository;
 import com.social.network.security.JwtTokenProvider;
+import com.social.network.security.PasswordHashingService;
+import com.social.network.security.TokenVersionCache;
 import com.social.network.security.UserDetailsImpl;
+import com.social.network.security.CurrentUserResolver;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Service
 public class AuthService {
 
     private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
     private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final AuthenticationManager authenticationManager;
     private final JwtTokenProvider jwtTokenProvider;
+    private final TokenVersionCache tokenVersionCache;
     private final OTPService otpService;
     private final FirebaseStorageService firebaseStorageService;
+    private final MediaService mediaService;
+    private final MediaDeletionQueue mediaDeletionQueue;
+    private final AvatarService avatarService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AuthService(UserRepository userRepository, 
+    public AuthService(UserRepository userRepository,
+                      CurrentUserResolver currentUserResolver,
                       PasswordEncoder passwordEncoder,
+                      PasswordHashingService passwordHashingService,
                       AuthenticationManager authenticationManager,
                       JwtTokenProvider jwtTokenProvider,
+                      TokenVersionCache tokenVersionCache,
                       OTPService otpService,
-                      FirebaseStorageService firebaseStorageService) {
+                      FirebaseStorageService firebaseStorageService,
+                      MediaService mediaService,
+                      MediaDeletionQueue mediaDeletionQueue,
+                      AvatarService avatarService,
+                      ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.currentUserResolver = currentUserResolver;
         this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.authenticationManager = authenticationManager;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenVersionCache = tokenVersionCache;
         this.otpService = otpService;
         this.firebaseStorageService = firebaseStorageService;
+        this.mediaService = mediaService;
+        this.mediaDeletionQueue = mediaDeletionQueue;
+        this.avatarService = avatarService;
+        this.eventPublisher = eventPublisher;
     }
 
     public SignupResponse signup(SignupRequest signupRequest) {
@@ -54,7 +83,7 @@ public class AuthService {
         user.setUsername(signupRequest.getUsername());
         user.setName(signupRequest.getName());
         user.setEmail(signupRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(signupRequest.getPassword()));
+        user.setPassword(passwordHashingService.run(() -> passwordEncoder.encode(signupRequest.getPassword())));
         user.setProfileCompleted(false);
         user.setEmailVerified(false);
 
@@ -71,12 +100,12 @@ public class AuthService {
     }
 
     public AuthResponse login(LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
+        Authentication authentication = passwordHashingService.run(() -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         loginRequest.getUsername(),
                         loginRequest.getPassword()
                 )
-        );
+        ));
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = jwtTokenProvider.generateToken(authentication);
@@ -95,7 +124,8 @@ public class AuthService {
         );
     }
 
-    public void sendOTP(String email) {
+    public void sendOTP(String email, String clientIp) {
+        otpService.checkSendAllowed(email, clientIp);
         // Always generate and send OTP if email exists, but don't reveal if it doesn't
         // This prevents user enumeration attacks
         if (userRepository.existsByEmail(email)) {
@@ -104,7 +134,8 @@ public class AuthService {
         // Note: We silently ignore non-existent emails to prevent user enumeration
     }
 
-    public AuthResponse verifyEmailOTP(String email, String otp) {
+    public AuthResponse verifyEmailOTP(String email, String otp, String clientIp) {
+        otpService.checkVerifyAllowed(email, clientIp);
         if (!otpService.verifyOTP(email, otp)) {
             throw new RuntimeException("Invalid or expired OTP");
         }
@@ -117,12 +148,7 @@ public class AuthService {
         userRepository.save(user);
 
         // Create authentication token manually since user has verified via OTP
-        UserDetailsImpl userDetails = new UserDetailsImpl(
-                user.getId(),
-                user.getUsername(),
-                user.getEmail(),
-                user.getPassword()
-        );
+        UserDetailsImpl userDetails = UserDetailsImpl.build(user);
         
         Authentication auth = new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -143,35 +169,46 @@ public class AuthService {
         );
     }
 
+    @Transactional
     public void updateProfile(String username, ProfileRequest profileRequest) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         user.setProfession(profileRequest.getProfession());
         user.setOrganization(profileRequest.getOrganization());
         user.setLocation(profileRequest.getLocation());
         
-        if (profileRequest.getProfilePicture() != null && !profileRequest.getProfilePicture().isEmpty()) {
-            // Delete old profile picture from Firebase Storage if it exists
-            if (user.getProfilePicture() != null && !user.getProfilePicture().isEmpty()) {
-                firebaseStorageService.deleteImage(user.getProfilePicture());
-            }
-            
-            // Upload new profile picture to Firebase Storage
+        // Clients echo back the avatar URL (or the stored URL) they were given when the picture is left unchanged
+        if (profileRequest.getProfilePicture() != null && !profileRequest.getProfilePicture().isEmpty()
+                && !AvatarService.isAvatarUrl(profileRequest.getProfilePicture())
+                && !profileRequest.getProfilePicture().equals(user.getProfilePicture())) {
+            // Upload new profile picture first; a failed upload must not cost the user the old one
             String imageUrl = firebaseStorageService.uploadImage(
                 profileRequest.getProfilePicture(), 
                 "profiles"
             );
+
+            // The new picture holds its own reference, even when it deduplicates to the current
+            // URL or is stored media passed by URL, so the old picture's reference is always released
+            mediaDeletionQueue.enqueueOnRollback(List.of(imageUrl));
+            if (user.getProfilePicture() != null && !user.getProfilePicture().isEmpty()) {
+                mediaDeletionQueue.enqueue(List.of(user.getProfilePicture()));
+            }
+            if (!imageUrl.equals(user.getProfilePicture())) {
+                user.setAvatarVersion(AvatarService.versionOf(user) + 1);
+            }
             user.setProfilePicture(imageUrl);
         }
         
         user.setProfileCompleted(true);
 
         userRepository.save(user);
+        // Author name and picture are rendered into cached post pages
+        eventPublisher.publishEvent(PostChangedEvent.authorUpdated(user.getId()));
     }
 
     public ProfileResponse getUserProfile(String username) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         return new ProfileResponse(
@@ -183,7 +220,8 @@ public class AuthService {
                 user.getOrganization(),
                 user.getLocation(),
                 user.getProfileCompleted(),
-                user.getProfilePicture()
+                avatarService.avatarUrl(user),
+                profilePictureVariants(user)
         );
     }
 
@@ -200,12 +238,34 @@ public class AuthService {
                 user.getOrganization(),
                 user.getLocation(),
                 user.getProfileCompleted(),
-                user.getProfilePicture()
+                avatarService.avatarUrl(user),
+                profilePictureVariants(user)
         );
     }
 
+    // Inline legacy pictures have no stored variants; the avatar URL serves them
+    private MediaVariants profilePictureVariants(User user) {
+        String picture = user.getProfilePicture();
+        if (picture == null || picture.isEmpty() || !firebaseStorageService.isUrl(picture)) {
+            return null;
+        }
+        return mediaService.variantsOf(picture);
+    }
+
+    /**
+     * Revoke every token issued to the user so far (log out everywhere), including the caller's.
+     */
+    public void revokeTokens(String username) {
+        User user = currentUserResolver.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        user.setTokenVersion((user.getTokenVersion() != null ? user.getTokenVersion() : 0) + 1);
+        userRepository.save(user);
+        tokenVersionCache.evict(user.getId());
+    }
+
     public void registerFcmToken(String username, String fcmToken) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         user.setFcmToken(fcmToken);
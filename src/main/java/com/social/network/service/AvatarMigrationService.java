@@ -0,0 +1,158 @@
+package com.social.network.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Online extraction of inline base64 profile pictures out of users.profile_picture into the
+ * media store, leaving the stored URL behind.
+ *
+ * Users are scanned in id order, users.avatar.migration-chunk-size at a time. Each picture is
+ * uploaded outside any transaction and swapped in with a compare-and-set, so a user changing
+ * their picture meanwhile wins and the extracted copy is released. The avatar version is bumped
+ * so clients drop the cached inline rendering.
+ */
+@Service
+public class AvatarMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvatarMigrationService.class);
+    // Local store URLs don't start with http either; FirebaseStorageService.isUrl tells them apart
+    private static final String SELECT_CHUNK_SQL =
+            "SELECT id, profile_picture FROM users WHERE profile_picture IS NOT NULL AND profile_picture <> '' "
+                    + "AND profile_picture NOT LIKE 'http%' AND id > ? ORDER BY id LIMIT ?";
+    private static final String SWAP_PICTURE_SQL =
+            "UPDATE users SET profile_picture = ?, avatar_version = avatar_version + 1 WHERE id = ? AND profile_picture = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FirebaseStorageService firebaseStorageService;
+    private final MediaDeletionQueue mediaDeletionQueue;
+    private final ApplicationEventPublisher eventPublisher;
+    // Pictures are never stored inline any more, so once a run finds nothing it can still extract
+    // there is nothing left to do
+    private volatile boolean completed;
+
+    // Rows are whole base64 images, keep chunks small
+    @Value("${users.avatar.migration-chunk-size:50}")
+    private int chunkSize;
+
+    public AvatarMigrationService(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  FirebaseStorageService firebaseStorageService,
+                                  MediaDeletionQueue mediaDeletionQueue,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.firebaseStorageService = firebaseStorageService;
+        this.mediaDeletionQueue = mediaDeletionQueue;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Scheduled task that extracts every inline profile picture still in the users table.
+     */
+    @Scheduled(initialDelayString = "${users.avatar.migration-initial-delay-ms:60000}",
+               fixedDelayString = "${users.avatar.migration-interval-ms:3600000}")
+    public void migrateInlineAvatars() {
+        if (completed) {
+            return;
+        }
+        long afterId = 0;
+        int migrated = 0;
+        int undecodable = 0;
+        int failed = 0;
+        boolean retryNeeded = false;
+
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_CHUNK_SQL, afterId, chunkSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Map<String, Object> row : rows) {
+                Long userId = ((Number) row.get("id")).longValue();
+                String picture = (String) row.get("profile_picture");
+                if (firebaseStorageService.isUrl(picture)) {
+                    continue;
+                }
+                switch (migrate(userId, picture)) {
+                    case MIGRATED -> migrated++;
+                    // The next run checks what replaced it
+                    case CHANGED -> retryNeeded = true;
+                    case UNDECODABLE -> undecodable++;
+                    case FAILED -> {
+                        failed++;
+                        retryNeeded = true;
+                    }
+                }
+            }
+            afterId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+        }
+
+        if (migrated > 0 || undecodable > 0 || failed > 0) {
+            logger.info("Extracted {} inline profile pictures, {} undecodable, {} failed", migrated, undecodable, failed);
+        }
+        // Undecodable pictures would fail again on every run; they keep being served by the avatar endpoint.
+        // Anything else that was found (upload failures during a storage outage, lost races) is retried
+        if (migrated == 0 && !retryNeeded) {
+            completed = true;
+            logger.info("Inline profile picture migration complete");
+        }
+    }
+
+    private enum Outcome { MIGRATED, CHANGED, UNDECODABLE, FAILED }
+
+    private Outcome migrate(Long userId, String picture) {
+        if (!decodes(picture)) {
+            logger.warn("The profile picture of user {} is not valid base64, leaving it inline", userId);
+            return Outcome.UNDECODABLE;
+        }
+        String url;
+        try {
+            url = firebaseStorageService.uploadImage(picture, "profiles");
+        } catch (RuntimeException e) {
+            logger.warn("Could not extract the profile picture of user {}: {}", userId, e.getMessage());
+            return Outcome.FAILED;
+        }
+
+        Boolean swapped = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(SWAP_PICTURE_SQL, url, userId, picture) == 1) {
+                return true;
+            }
+            // Changed concurrently; the new picture replaced the inline one
+            mediaDeletionQueue.enqueue(List.of(url));
+            return false;
+        });
+        if (!Boolean.TRUE.equals(swapped)) {
+            return Outcome.CHANGED;
+        }
+        // Author pictures are rendered into cached post pages
+        eventPublisher.publishEvent(PostChangedEvent.authorUpdated(userId));
+        return Outcome.MIGRATED;
+    }
+
+    /**
+     * Whether the picture decodes at all, streamed without keeping the bytes. Upload failures of
+     * pictures that do are transient.
+     */
+    private static boolean decodes(String picture) {
+        try (InputStream content = FirebaseStorageService.decodeInline(picture).content()) {
+            content.transferTo(OutputStream.nullOutputStream());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
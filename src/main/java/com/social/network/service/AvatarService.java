@@ -0,0 +1,98 @@
+package com.social.network.service;
+
+import com.social.network.dto.MediaVariants;
+import com.social.network.entity.User;
+import com.social.network.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Profile pictures by reference. Responses carry a short versioned avatar URL instead of the
+ * stored picture, which for legacy users is a whole base64 image; the avatar endpoint resolves
+ * it to the stored picture's variant or streams the decoded inline image.
+ *
+ * Clients are not served from the API's origin, so avatar URLs are absolute, built from
+ * users.avatar.base-url.
+ */
+@Service
+public class AvatarService {
+
+    public static final String AVATAR_PATH = "/api/media/avatars/";
+    public static final Set<String> SIZES = Set.of("thumbnail", "feed", "full", "original");
+
+    private final UserRepository userRepository;
+    private final FirebaseStorageService firebaseStorageService;
+    private final MediaService mediaService;
+
+    // Where clients reach the avatar endpoint, e.g. https://api.example.com/api/media/avatars
+    @Value("${users.avatar.base-url:/api/media/avatars}")
+    private String baseUrl;
+
+    public AvatarService(UserRepository userRepository,
+                         FirebaseStorageService firebaseStorageService,
+                         MediaService mediaService) {
+        this.userRepository = userRepository;
+        this.firebaseStorageService = firebaseStorageService;
+        this.mediaService = mediaService;
+    }
+
+    /**
+     * Avatar URL of the user, or null without a picture. The version changes with the picture,
+     * so the URL of a given picture never serves different bytes.
+     */
+    public String avatarUrl(User user) {
+        if (user.getProfilePicture() == null || user.getProfilePicture().isEmpty()) {
+            return null;
+        }
+        String base = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+        return base + user.getId() + "?v=" + versionOf(user);
+    }
+
+    /**
+     * Whether the value is an avatar URL (e.g. a client re-sending the picture it was given).
+     */
+    public static boolean isAvatarUrl(String value) {
+        return value != null && value.contains(AVATAR_PATH);
+    }
+
+    public static int versionOf(User user) {
+        return user.getAvatarVersion() != null ? user.getAvatarVersion() : 0;
+    }
+
+    /**
+     * The user's picture in the given size: a redirect target for stored pictures, the decoded
+     * content for legacy inline ones. Empty if the user has no picture.
+     */
+    public Optional<Avatar> findAvatar(Long userId, String size) {
+        Optional<User> found = userRepository.findById(userId);
+        if (found.isEmpty() || found.get().getProfilePicture() == null || found.get().getProfilePicture().isEmpty()) {
+            return Optional.empty();
+        }
+
+        User user = found.get();
+        String picture = user.getProfilePicture();
+        if (firebaseStorageService.isUrl(picture)) {
+            MediaVariants variants = mediaService.variantsOf(picture);
+            String url = switch (size) {
+                case "original" -> variants.getUrl();
+                case "full" -> variants.getFullUrl();
+                case "feed" -> variants.getFeedUrl();
+                default -> variants.getThumbnailUrl();
+            };
+            return Optional.of(new Avatar(versionOf(user), url, null, null));
+        }
+
+        FirebaseStorageService.InlineImage image = FirebaseStorageService.decodeInline(picture);
+        return Optional.of(new Avatar(versionOf(user), null, image.contentType(), image.content()));
+    }
+
+    /**
+     * Either redirectUrl or contentType and content are set.
+     */
+    public record Avatar(int version, String redirectUrl, String contentType, InputStream content) {
+    }
+}
@@ -8,7 +8,10 @@ import com.social.network.entity.User;
 import com.social.network.repository.CommentRepository;
 import com.social.network.repository.PostRepository;
 import com.social.network.repository.UserRepository;
+import com.social.network.security.CurrentUserResolver;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -19,18 +22,24 @@ public class CommentService {
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final ApplicationEventPublisher eventPublisher;
 
     public CommentService(CommentRepository commentRepository, PostRepository postRepository,
-                          UserRepository userRepository) {
+                          UserRepository userRepository, CurrentUserResolver currentUserResolver,
+                          ApplicationEventPublisher eventPublisher) {
         this.commentRepository = commentRepository;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
+        this.currentUserResolver = currentUserResolver;
+        this.eventPublisher = eventPublisher;
     }
 
+    @Transactional
     public CommentResponse createComment(Long postId, String username, CommentRequest commentRequest) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Comment comment = new Comment();
@@ -39,6 +48,8 @@ public class CommentService {
         comment.setContent(commentRequest.getContent());
 
         Comment savedComment = commentRepository.save(comment);
+        postRepository.adjustCommentCount(postId, 1);
+        eventPublisher.publishEvent(PostChangedEvent.commented(postId));
         return convertToResponse(savedComment);
     }
 
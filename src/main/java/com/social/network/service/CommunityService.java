@@ -5,6 +5,7 @@ import com.social.network.dto.CommunityPostRequest;
 import com.social.network.dto.CommunityPostResponse;
 import com.social.network.dto.CommunityRequest;
 import com.social.network.dto.CommunityResponse;
+import com.social.network.dto.MediaVariants;
 import com.social.network.entity.Community;
 import com.social.network.entity.CommunityMember;
 import com.social.network.entity.CommunityPost;
@@ -13,10 +14,13 @@ import com.social.network.repository.CommunityMemberRepository;
 import com.social.network.repository.CommunityPostRepository;
 import com.social.network.repository.CommunityRepository;
 import com.social.network.repository.UserRepository;
+import com.social.network.security.CurrentUserResolver;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,23 +30,32 @@ public class CommunityService {
     private final CommunityMemberRepository communityMemberRepository;
     private final CommunityPostRepository communityPostRepository;
     private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
     private final FirebaseStorageService firebaseStorageService;
+    private final MediaService mediaService;
+    private final AvatarService avatarService;
 
     public CommunityService(CommunityRepository communityRepository,
                           CommunityMemberRepository communityMemberRepository,
                           CommunityPostRepository communityPostRepository,
                           UserRepository userRepository,
-                          FirebaseStorageService firebaseStorageService) {
+                          CurrentUserResolver currentUserResolver,
+                          FirebaseStorageService firebaseStorageService,
+                          MediaService mediaService,
+                          AvatarService avatarService) {
         this.communityRepository = communityRepository;
         this.communityMemberRepository = communityMemberRepository;
         this.communityPostRepository = communityPostRepository;
         this.userRepository = userRepository;
+        this.currentUserResolver = currentUserResolver;
         this.firebaseStorageService = firebaseStorageService;
+        this.mediaService = mediaService;
+        this.avatarService = avatarService;
     }
 
     @Transactional
     public CommunityResponse createCommunity(String username, CommunityRequest request) {
-        User admin = userRepository.findByUsername(username)
+        User admin = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Community community = new Community();
@@ -135,7 +148,7 @@ public class CommunityService {
         Community community = communityRepository.findById(communityId)
                 .orElseThrow(() -> new RuntimeException("Community not found"));
 
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Check if user is a member
@@ -162,7 +175,7 @@ public class CommunityService {
 
         post = communityPostRepository.save(post);
 
-        return toCommunityPostResponse(post);
+        return toCommunityPostResponses(List.of(post)).get(0);
     }
 
     public List<CommunityPostResponse> getCommunityPosts(Long communityId, Long userId) {
@@ -175,9 +188,7 @@ public class CommunityService {
         }
 
         List<CommunityPost> posts = communityPostRepository.findApprovedPostsByCommunityId(communityId);
-        return posts.stream()
-                .map(this::toCommunityPostResponse)
-                .collect(Collectors.toList());
+        return toCommunityPostResponses(posts);
     }
 
     public List<CommunityPostResponse> getPendingPosts(Long communityId, Long userId) {
@@ -190,9 +201,7 @@ public class CommunityService {
         }
 
         List<CommunityPost> posts = communityPostRepository.findPendingPostsByCommunityId(communityId);
-        return posts.stream()
-                .map(this::toCommunityPostResponse)
-                .collect(Collectors.toList());
+        return toCommunityPostResponses(posts);
     }
 
     @Transactional
@@ -282,16 +291,34 @@ public class CommunityService {
         );
     }
 
-    private CommunityPostResponse toCommunityPostResponse(CommunityPost post) {
+    /**
+     * Image variants of every post in the list are looked up with a single query.
+     */
+    private List<CommunityPostResponse> toCommunityPostResponses(List<CommunityPost> posts) {
+        Set<String> mediaUrls = posts.stream()
+                .filter(post -> post.getMediaUrls() != null)
+                .flatMap(post -> post.getMediaUrls().stream())
+                .collect(Collectors.toSet());
+        Map<String, MediaVariants> variants = mediaUrls.isEmpty() ? Map.of() : mediaService.findVariants(mediaUrls);
+        return posts.stream()
+                .map(post -> toCommunityPostResponse(post, variants))
+                .collect(Collectors.toList());
+    }
+
+    private CommunityPostResponse toCommunityPostResponse(CommunityPost post, Map<String, MediaVariants> variants) {
+        List<MediaVariants> mediaVariants = post.getMediaUrls() == null ? null : post.getMediaUrls().stream()
+                .map(url -> variants.getOrDefault(url, MediaVariants.original(url)))
+                .collect(Collectors.toList());
         return new CommunityPostResponse(
                 post.getId(),
                 post.getContent(),
                 post.getMediaUrls(),
+                mediaVariants,
                 post.getCommunity().getId(),
                 post.getCommunity().getName(),
                 post.getUser().getId(),
                 post.getUser().getUsername(),
-                post.getUser().getProfilePicture(),
+                avatarService.avatarUrl(post.getUser()),
                 post.getIsApproved(),
                 post.getCreatedAt()
         );
@@ -304,7 +331,7 @@ public class CommunityService {
                 user.getId(),
                 user.getUsername(),
                 user.getName(),
-                user.getProfilePicture(),
+                avatarService.avatarUrl(user),
                 user.getProfession(),
                 member.getJoinedAt(),
                 user.getId().equals(adminId)
@@ -5,86 +5,130 @@ import com.social.network.entity.User;
 import com.social.network.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 
+/**
+ * Push notifications through the configured {@link MessagingBackend}. Messages are sent in
+ * batches of up to 500 (one sendEach call each), several batches at a time on the
+ * fcmSendExecutor; tokens the backend reports as invalid are cleared in one update afterwards.
+ */
 @Service
 public class FcmService {
 
     private static final Logger logger = LoggerFactory.getLogger(FcmService.class);
     private final UserRepository userRepository;
+    private final MessagingBackend messagingBackend;
+    private final ExecutorService executor;
 
-    public FcmService(UserRepository userRepository) {
+    public FcmService(UserRepository userRepository,
+                      MessagingBackend messagingBackend,
+                      @Qualifier("fcmSendExecutor") ExecutorService executor) {
         this.userRepository = userRepository;
+        this.messagingBackend = messagingBackend;
+        this.executor = executor;
+    }
+
+    public record Push(User user, String title, String body, Map<String, String> data) {
     }
 
     /**
-     * Send push notification to a single user
+     * Users without a token count as failed.
      */
-    public void sendNotificationToUser(User user, String title, String body, Map<String, String> data) {
-        if (user.getFcmToken() == null || user.getFcmToken().isEmpty()) {
-            logger.warn("User {} has no FCM token registered", user.getUsername());
-            return;
-        }
+    public record SendSummary(int sent, int failed, int invalidTokens) {
+    }
 
-        try {
-            Message message = Message.builder()
-                    .setToken(user.getFcmToken())
-                    .setNotification(Notification.builder()
-                            .setTitle(title)
-                            .setBody(body)
-                            .build())
-                    .putAllData(data != null ? data : new HashMap<>())
-                    .setAndroidConfig(AndroidConfig.builder()
-                            .setPriority(AndroidConfig.Priority.HIGH)
-                            .setNotification(AndroidNotification.builder()
-                                    .setChannelId("sos-alerts")
-                                    .setSound("default")
-                                    .setPriority(AndroidNotification.Priority.MAX)
-                                    .setVisibility(AndroidNotification.Visibility.PUBLIC)
-                                    .setColor("#FF0000")
-                                    .build())
-                            .build())
-                    .setApnsConfig(ApnsConfig.builder()
-                            .setAps(Aps.builder()
-                                    .setSound("default")
-                                    .setBadge(1)
-                                    .setContentAvailable(true)
-                                    .build())
-                            .build())
-                    .build();
-
-            String response = FirebaseMessaging.getInstance().send(message);
-            logger.info("Successfully sent notification to user {}: {}", user.getUsername(), response);
-        } catch (FirebaseMessagingException e) {
-            logger.error("Failed to send notification to user {}: {}", user.getUsername(), e.getMessage());
-            
-            // If token is invalid, clear it from user record
-            if (e.getMessagingErrorCode() == MessagingErrorCode.INVALID_ARGUMENT ||
-                e.getMessagingErrorCode() == MessagingErrorCode.UNREGISTERED) {
-                logger.info("Clearing invalid FCM token for user {}", user.getUsername());
-                user.setFcmToken(null);
-                userRepository.save(user);
-            }
-        }
+    /**
+     * Send push notification to a single user
+     *
+     * @return whether FCM accepted the message
+     */
+    public boolean sendNotificationToUser(User user, String title, String body, Map<String, String> data) {
+        return sendAll(List.of(new Push(user, title, body, data))).sent() == 1;
     }
 
     /**
      * Send push notification to multiple users
      */
-    public void sendNotificationToUsers(List<User> users, String title, String body, Map<String, String> data) {
-        for (User user : users) {
-            sendNotificationToUser(user, title, body, data);
-        }
+    public SendSummary sendNotificationToUsers(List<User> users, String title, String body, Map<String, String> data) {
+        return sendAll(users.stream().map(user -> new Push(user, title, body, data)).toList());
     }
 
     /**
      * Send SOS alert notification
      */
-    public void sendSosAlertNotification(User user, String alertUsername, String emergencyType, Double distance) {
+    public boolean sendSosAlertNotification(User user, String alertUsername, String emergencyType, Double distance) {
+        return sendAll(List.of(sosAlertPush(user, alertUsername, emergencyType, distance))).sent() == 1;
+    }
+
+    /**
+     * Send the pushes in batches, waiting until every batch is done.
+     */
+    public SendSummary sendAll(List<Push> pushes) {
+        List<MessagingBackend.Outgoing> outgoing = new ArrayList<>(pushes.size());
+        for (Push push : pushes) {
+            String token = push.user().getFcmToken();
+            if (token == null || token.isEmpty()) {
+                logger.warn("User {} has no FCM token registered", push.user().getUsername());
+                continue;
+            }
+            outgoing.add(new MessagingBackend.Outgoing(token, buildMessage(token, push)));
+        }
+
+        List<List<MessagingBackend.Outgoing>> batches = new ArrayList<>();
+        List<CompletableFuture<List<MessagingBackend.Outcome>>> results = new ArrayList<>();
+        for (int from = 0; from < outgoing.size(); from += MessagingBackend.MAX_BATCH_SIZE) {
+            List<MessagingBackend.Outgoing> batch =
+                    outgoing.subList(from, Math.min(from + MessagingBackend.MAX_BATCH_SIZE, outgoing.size()));
+            batches.add(batch);
+            results.add(CompletableFuture.supplyAsync(() -> messagingBackend.sendEach(batch), executor));
+        }
+
+        int sent = 0;
+        Set<String> invalidTokens = new HashSet<>();
+        for (int i = 0; i < batches.size(); i++) {
+            List<MessagingBackend.Outgoing> batch = batches.get(i);
+            List<MessagingBackend.Outcome> outcomes;
+            try {
+                outcomes = results.get(i).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                logger.error("Failed to send a batch of {} notifications: {}", batch.size(), cause.getMessage());
+                continue;
+            }
+            for (int j = 0; j < batch.size(); j++) {
+                MessagingBackend.Outcome outcome = j < outcomes.size() ? outcomes.get(j) : MessagingBackend.Outcome.FAILED;
+                if (outcome == MessagingBackend.Outcome.SENT) {
+                    sent++;
+                } else if (outcome == MessagingBackend.Outcome.INVALID_TOKEN) {
+                    invalidTokens.add(batch.get(j).token());
+                }
+            }
+        }
+
+        if (!invalidTokens.isEmpty()) {
+            // By token rather than user, so a token re-registered in the meantime is kept
+            int cleared = userRepository.clearFcmTokens(invalidTokens);
+            logger.info("Cleared {} invalid FCM tokens from {} users", invalidTokens.size(), cleared);
+        }
+        logger.info("Sent {} of {} notifications in {} batches", sent, pushes.size(), batches.size());
+        return new SendSummary(sent, pushes.size() - sent, invalidTokens.size());
+    }
+
+    /**
+     * SOS alert notification for one user, for {@link #sendAll}
+     */
+    public static Push sosAlertPush(User user, String alertUsername, String emergencyType, Double distance) {
         Map<String, String> emergencyLabels = Map.of(
                 "IMMEDIATE_EMERGENCY", "🚨 Emergency",
                 "ACCIDENT", "🚑 Accident",
@@ -94,7 +138,7 @@ public class FcmService {
         );
 
         String title = emergencyLabels.getOrDefault(emergencyType, "🚨 SOS Alert");
-        
+
         String distanceText = "location nearby";
         if (distance != null) {
             if (distance < 1) {
@@ -115,6 +159,34 @@ public class FcmService {
             data.put("distance", distance.toString());
         }
 
-        sendNotificationToUser(user, title, body, data);
+        return new Push(user, title, body, data);
+    }
+
+    private static Message buildMessage(String token, Push push) {
+        return Message.builder()
+                .setToken(token)
+                .setNotification(Notification.builder()
+                        .setTitle(push.title())
+                        .setBody(push.body())
+                        .build())
+                .putAllData(push.data() != null ? push.data() : new HashMap<>())
+                .setAndroidConfig(AndroidConfig.builder()
+                        .setPriority(AndroidConfig.Priority.HIGH)
+                        .setNotification(AndroidNotification.builder()
+                                .setChannelId("sos-alerts")
+                                .setSound("default")
+                                .setPriority(AndroidNotification.Priority.MAX)
+                                .setVisibility(AndroidNotification.Visibility.PUBLIC)
+                                .setColor("#FF0000")
+                                .build())
+                        .build())
+                .setApnsConfig(ApnsConfig.builder()
+                        .setAps(Aps.builder()
+                                .setSound("default")
+                                .setBadge(1)
+                                .setContentAvailable(true)
+                                .build())
+                        .build())
+                .build();
     }
 }
@@ -0,0 +1,63 @@
+package com.social.network.service;
+
+import com.social.network.entity.Post;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Keyset position in a feed ordered by (createdAt DESC, id DESC).
+ * Clients only ever see the encoded form, so the format can change without breaking them.
+ */
+public final class FeedCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public FeedCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = Objects.requireNonNull(createdAt, "createdAt");
+        this.id = Objects.requireNonNull(id, "id");
+    }
+
+    public static FeedCursor of(Post post) {
+        return new FeedCursor(post.getCreatedAt(), post.getId());
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     *
+     * @return the cursor, or null for a null/blank token (first page)
+     * @throws RuntimeException if the token is malformed
+     */
+    public static FeedCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, separator));
+            Long id = Long.parseLong(raw.substring(separator + 1));
+            return new FeedCursor(createdAt, id);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
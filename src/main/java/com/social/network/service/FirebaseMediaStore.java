@@ -0,0 +1,124 @@
+package com.social.network.service;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Bucket;
+import com.google.cloud.storage.Storage;
+import com.google.firebase.cloud.StorageClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Media streamed to Firebase Storage through a resumable upload, one chunk at a time.
+ */
+public class FirebaseMediaStore implements MediaStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebaseMediaStore.class);
+
+    private final String bucketName;
+    // Resumable uploads need a multiple of 256 KiB
+    private final int chunkSize;
+
+    public FirebaseMediaStore(String bucketName, int chunkSize) {
+        this.bucketName = bucketName;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public StoredMedia store(String folder, InputStream content, String contentType) throws IOException {
+        String key = folder + "/" + UUID.randomUUID() + MediaStore.extensionFor(contentType);
+        Storage storage = bucket().getStorage();
+        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, key)).setContentType(contentType).build();
+
+        WriteChannel writer = storage.writer(blobInfo);
+        writer.setChunkSize(chunkSize);
+        try {
+            byte[] buffer = new byte[chunkSize];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    writer.write(chunk);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Closing the channel finalizes the upload, so remove whatever part of it was written
+            try {
+                writer.close();
+            } catch (IOException | RuntimeException closeError) {
+                e.addSuppressed(closeError);
+            }
+            try {
+                delete(key);
+            } catch (RuntimeException deleteError) {
+                e.addSuppressed(deleteError);
+            }
+            throw e;
+        }
+        writer.close();
+
+        // Generate public URL (tokens not required for public buckets)
+        String publicUrl = String.format("https://storage.googleapis.com/%s/%s", bucketName, key);
+        logger.info("Successfully streamed media to Firebase Storage: {}", publicUrl);
+        return new StoredMedia(key, publicUrl);
+    }
+
+    @Override
+    public InputStream open(String key) {
+        return Channels.newInputStream(bucket().getStorage().reader(BlobId.of(bucketName, key)));
+    }
+
+    @Override
+    public boolean delete(String key) {
+        boolean deleted = bucket().getStorage().delete(BlobId.of(bucketName, key));
+        if (deleted) {
+            logger.info("Successfully deleted media from Firebase Storage: {}", key);
+        } else {
+            logger.warn("Media not found in Firebase Storage: {}", key);
+        }
+        return deleted;
+    }
+
+    @Override
+    public Optional<String> keyOf(String url) {
+        if (url == null) {
+            return Optional.empty();
+        }
+        // Handle both formats:
+        // https://storage.googleapis.com/bucket-name/path/file.jpg
+        // https://firebasestorage.googleapis.com/v0/b/bucket-name/o/path%2Ffile.jpg?...
+        String directPrefix = "https://storage.googleapis.com/" + bucketName + "/";
+        if (url.startsWith(directPrefix)) {
+            return Optional.of(url.substring(directPrefix.length()).split("\\?")[0]);
+        }
+        if (url.contains("firebasestorage.googleapis.com") && url.contains("/b/" + bucketName + "/o/")) {
+            String encodedPath = url.split("/o/", 2)[1].split("\\?")[0];
+            return Optional.of(URLDecoder.decode(encodedPath, StandardCharsets.UTF_8));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        return Optional.empty(); // Served directly from the bucket's public URL
+    }
+
+    private Bucket bucket() {
+        Bucket bucket = StorageClient.getInstance().bucket(bucketName);
+        if (bucket == null) {
+            throw new RuntimeException("Firebase Storage bucket not available");
+        }
+        return bucket;
+    }
+}
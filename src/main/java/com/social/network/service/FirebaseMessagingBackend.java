@@ -0,0 +1,36 @@
+package com.social.network.service;
+
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.SendResponse;
+
+import java.util.List;
+
+/**
+ * Firebase Cloud Messaging through the Admin SDK; each batch is one sendEach call.
+ */
+public class FirebaseMessagingBackend implements MessagingBackend {
+
+    @Override
+    public List<Outcome> sendEach(List<Outgoing> batch) {
+        try {
+            BatchResponse response = FirebaseMessaging.getInstance()
+                    .sendEach(batch.stream().map(Outgoing::message).toList());
+            return response.getResponses().stream().map(FirebaseMessagingBackend::outcome).toList();
+        } catch (FirebaseMessagingException e) {
+            throw new IllegalStateException("FCM batch failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static Outcome outcome(SendResponse response) {
+        if (response.isSuccessful()) {
+            return Outcome.SENT;
+        }
+        MessagingErrorCode code = response.getException() != null ? response.getException().getMessagingErrorCode() : null;
+        return code == MessagingErrorCode.INVALID_ARGUMENT || code == MessagingErrorCode.UNREGISTERED
+                ? Outcome.INVALID_TOKEN
+                : Outcome.FAILED;
+    }
+}
@@ -1,40 +1,43 @@
 package com.social.network.service;
 
-import com.google.cloud.storage.*;
-import com.google.firebase.cloud.StorageClient;
-import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
-import java.util.UUID;
 
+/**
+ * Uploads of inline base64 images (profile pictures, community images, legacy post media)
+ * to the active {@link MediaStore}, with their downscaled variants (see {@link ImageVariantService}).
+ * Despite the name the backend is not necessarily Firebase.
+ */
 @Service
 public class FirebaseStorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(FirebaseStorageService.class);
-    
-    @Value("${FIREBASE_STORAGE_BUCKET:#{null}}")
-    private String bucketName;
-    
-    @PostConstruct
-    public void init() {
-        if (bucketName != null && !bucketName.isEmpty()) {
-            logger.info("Firebase Storage configured with bucket: {}", bucketName);
-        } else {
-            logger.warn("Firebase Storage bucket not configured. Image uploads will fall back to base64 storage.");
-        }
+
+    private final MediaStore mediaStore;
+    private final MediaService mediaService;
+
+    public FirebaseStorageService(MediaStore mediaStore, MediaService mediaService) {
+        this.mediaStore = mediaStore;
+        this.mediaService = mediaService;
     }
 
     /**
-     * Upload a base64 encoded image to Firebase Storage
-     * 
+     * Upload a base64 encoded image to the media store
+     *
      * @param base64Image The base64 encoded image string (with or without data URI prefix)
-     * @param folder The folder path in Firebase Storage (e.g., "profiles", "posts")
-     * @return The public URL of the uploaded image, or null if upload fails
+     * @param folder The folder path in the store (e.g., "profiles", "posts")
+     * @return The public URL of the uploaded image, or null for an empty image. Content that is
+     *         already stored is not uploaded again; the existing URL is returned and the caller
+     *         holds one more reference to it. URLs of stored media passed in are returned
+     *         unchanged, also with one more reference; other URLs are returned as they are.
+     * @throws RuntimeException if the upload fails; base64 is never returned in place of a URL
      */
     public String uploadImage(String base64Image, String folder) {
         if (base64Image == null || base64Image.isEmpty()) {
@@ -42,169 +45,81 @@ public class FirebaseStorageService {
             return null;
         }
 
-        // Check if Firebase Storage is configured
-        if (bucketName == null || bucketName.isEmpty()) {
-            logger.warn("Firebase Storage bucket not configured. Falling back to base64 storage.");
-            return base64Image; // Return base64 as fallback
+        // Already uploaded (e.g. a client re-sending media it was given). The caller keeps the URL
+        // and releases it later, like anything it uploaded, so it needs its own reference
+        if (isUrl(base64Image)) {
+            mediaService.acquireUrl(base64Image);
+            return base64Image;
         }
 
-        try {
-            // Check if StorageClient is initialized
-            Bucket bucket = StorageClient.getInstance().bucket(bucketName);
-            if (bucket == null) {
-                logger.warn("Firebase Storage bucket not available. Falling back to base64 storage.");
-                return base64Image;
-            }
-
-            // Remove data URI prefix if present (e.g., "data:image/png;base64,")
-            String base64Data = base64Image;
-            String contentType = "image/jpeg"; // Default
-            
-            if (base64Image.contains(",")) {
-                String[] parts = base64Image.split(",", 2);
-                base64Data = parts[1];
-                
-                // Extract content type from data URI
-                if (parts[0].contains(":") && parts[0].contains(";")) {
-                    String dataUri = parts[0];
-                    contentType = dataUri.substring(dataUri.indexOf(":") + 1, dataUri.indexOf(";"));
-                }
-            }
-
-            // Decode base64 to bytes
-            byte[] imageBytes = Base64.getDecoder().decode(base64Data);
-
-            // Generate unique filename
-            String filename = folder + "/" + UUID.randomUUID().toString() + getFileExtension(contentType);
-
-            // Upload to Firebase Storage using bucket
-            Blob blob = bucket.create(filename, imageBytes, contentType);
-
-            // Generate public URL (tokens not required for public buckets)
-            String publicUrl = String.format("https://storage.googleapis.com/%s/%s", bucketName, filename);
-            
-            logger.info("Successfully uploaded image to Firebase Storage: {}", publicUrl);
-            return publicUrl;
-
-        } catch (IllegalStateException e) {
-            logger.error("Firebase not initialized. Falling back to base64 storage.", e);
-            return base64Image;
-        } catch (Exception e) {
-            logger.error("Error uploading image to Firebase Storage. Falling back to base64.", e);
-            return base64Image;
+        InlineImage image = decodeInline(base64Image);
+        try (InputStream decoded = image.content()) {
+            String url = mediaService.storeInline(folder, decoded, image.contentType());
+            logger.info("Successfully uploaded image: {}", url);
+            return url;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error uploading image to {}", folder, e);
+            throw new RuntimeException("Failed to upload image");
         }
     }
 
     /**
-     * Delete an image from Firebase Storage
-     * 
+     * Release an image uploaded with {@link #uploadImage}. Identical uploads share one stored
+     * object, which is deleted with its variants once the last of them is released.
+     *
      * @param imageUrl The public URL of the image to delete
-     * @return true if deletion was successful, false otherwise
+     * @return true if a reference was released, false otherwise
+     * @throws RuntimeException if the backend failed to delete the object; callers go through
+     *         {@link MediaDeletionQueue}, which retries it
      */
     public boolean deleteImage(String imageUrl) {
         if (imageUrl == null || imageUrl.isEmpty()) {
             return false;
         }
 
-        // Check if it's a Firebase Storage URL
-        if (!imageUrl.contains("storage.googleapis.com") && !imageUrl.contains("firebasestorage.googleapis.com")) {
-            logger.info("Not a Firebase Storage URL, skipping deletion: {}", imageUrl);
-            return false;
-        }
-
-        // Check if Firebase Storage is configured
-        if (bucketName == null || bucketName.isEmpty()) {
-            logger.warn("Firebase Storage bucket not configured");
-            return false;
-        }
-
-        try {
-            Bucket bucket = StorageClient.getInstance().bucket(bucketName);
-            if (bucket == null) {
-                logger.warn("Firebase Storage bucket not available");
-                return false;
-            }
-
-            // Extract filename from URL
-            String filename = extractFilenameFromUrl(imageUrl);
-            if (filename == null) {
-                logger.warn("Could not extract filename from URL: {}", imageUrl);
-                return false;
-            }
-
-            // Delete from Firebase Storage
-            Blob blob = bucket.get(filename);
-            if (blob != null && blob.exists()) {
-                boolean deleted = blob.delete();
-                if (deleted) {
-                    logger.info("Successfully deleted image from Firebase Storage: {}", filename);
-                } else {
-                    logger.warn("Failed to delete image from Firebase Storage: {}", filename);
-                }
-                return deleted;
-            } else {
-                logger.warn("Image not found in Firebase Storage: {}", filename);
-                return false;
-            }
-
-        } catch (IllegalStateException e) {
-            logger.error("Firebase not initialized", e);
-            return false;
-        } catch (Exception e) {
-            logger.error("Error deleting image from Firebase Storage", e);
-            return false;
-        }
+        return mediaStore.keyOf(imageUrl)
+                .map(mediaService::release)
+                .orElseGet(() -> {
+                    logger.info("Not a stored media URL, skipping deletion: {}", abbreviate(imageUrl));
+                    return false;
+                });
     }
 
     /**
-     * Get file extension based on content type
+     * Whether the value is a URL rather than an inline base64 image.
      */
-    private String getFileExtension(String contentType) {
-        switch (contentType) {
-            case "image/jpeg":
-            case "image/jpg":
-                return ".jpg";
-            case "image/png":
-                return ".png";
-            case "image/gif":
-                return ".gif";
-            case "image/webp":
-                return ".webp";
-            case "video/mp4":
-                return ".mp4";
-            case "video/webm":
-                return ".webm";
-            default:
-                return ".jpg";
-        }
+    public boolean isUrl(String value) {
+        return value.startsWith("http://") || value.startsWith("https://") || mediaStore.keyOf(value).isPresent();
     }
 
     /**
-     * Extract filename from Firebase Storage URL
+     * Decode an inline base64 image (with or without data URI prefix) as a stream, without
+     * materializing the decoded bytes.
      */
-    private String extractFilenameFromUrl(String url) {
-        try {
-            // Handle both formats:
-            // https://storage.googleapis.com/bucket-name/path/file.jpg
-            // https://firebasestorage.googleapis.com/v0/b/bucket-name/o/path%2Ffile.jpg?...
-            
-            if (url.contains("storage.googleapis.com")) {
-                // Extract path after bucket name
-                String[] parts = url.split(bucketName + "/", 2);
-                if (parts.length == 2) {
-                    return parts[1].split("\\?")[0]; // Remove query params if any
-                }
-            } else if (url.contains("firebasestorage.googleapis.com")) {
-                // Extract encoded path
-                String[] parts = url.split("/o/", 2);
-                if (parts.length == 2) {
-                    String encodedPath = parts[1].split("\\?")[0];
-                    return java.net.URLDecoder.decode(encodedPath, StandardCharsets.UTF_8);
-                }
+    public static InlineImage decodeInline(String base64Image) {
+        // Remove data URI prefix if present (e.g., "data:image/png;base64,")
+        int dataStart = 0;
+        String contentType = "image/jpeg"; // Default
+        int comma = base64Image.indexOf(',');
+        if (comma >= 0) {
+            dataStart = comma + 1;
+            String dataUri = base64Image.substring(0, comma);
+            // Extract content type from data URI
+            if (dataUri.contains(":") && dataUri.contains(";")) {
+                contentType = dataUri.substring(dataUri.indexOf(":") + 1, dataUri.indexOf(";"));
             }
-        } catch (Exception e) {
-            logger.error("Error extracting filename from URL", e);
         }
-        return null;
+
+        byte[] encoded = base64Image.getBytes(StandardCharsets.ISO_8859_1);
+        return new InlineImage(contentType, Base64.getDecoder().wrap(
+                new ByteArrayInputStream(encoded, dataStart, encoded.length - dataStart)));
+    }
+
+    public record InlineImage(String contentType, InputStream content) {
+    }
+
+    // Legacy rows can hold whole base64 images; keep them out of the logs
+    private String abbreviate(String value) {
+        return value.length() > 100 ? value.substring(0, 100) + "..." : value;
     }
 }
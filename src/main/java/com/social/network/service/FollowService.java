@@ -6,6 +6,7 @@ import com.social.network.entity.Follow;
 import com.social.network.entity.User;
 import com.social.network.repository.FollowRepository;
 import com.social.network.repository.UserRepository;
+import com.social.network.security.CurrentUserResolver;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,15 +24,23 @@ public class FollowService {
 
     private final FollowRepository followRepository;
     private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
+    private final TimelineService timelineService;
+    private final AvatarService avatarService;
 
-    public FollowService(FollowRepository followRepository, UserRepository userRepository) {
+    public FollowService(FollowRepository followRepository, UserRepository userRepository,
+                         CurrentUserResolver currentUserResolver,
+                         TimelineService timelineService, AvatarService avatarService) {
         this.followRepository = followRepository;
         this.userRepository = userRepository;
+        this.currentUserResolver = currentUserResolver;
+        this.timelineService = timelineService;
+        this.avatarService = avatarService;
     }
 
     @Transactional
     public void sendFollowRequest(String followerUsername, Long followingId) {
-        User follower = userRepository.findByUsername(followerUsername)
+        User follower = currentUserResolver.findByUsername(followerUsername)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         User following = userRepository.findById(followingId)
                 .orElseThrow(() -> new RuntimeException("User to follow not found"));
@@ -56,7 +65,7 @@ public class FollowService {
         Follow follow = followRepository.findById(followId)
                 .orElseThrow(() -> new RuntimeException("Follow request not found"));
         
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         if (!follow.getFollowing().getId().equals(user.getId())) {
@@ -72,7 +81,7 @@ public class FollowService {
         Follow follow = followRepository.findById(followId)
                 .orElseThrow(() -> new RuntimeException("Follow request not found"));
         
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         if (!follow.getFollowing().getId().equals(user.getId())) {
@@ -84,7 +93,7 @@ public class FollowService {
 
     @Transactional
     public void unfollow(String followerUsername, Long followingId) {
-        User follower = userRepository.findByUsername(followerUsername)
+        User follower = currentUserResolver.findByUsername(followerUsername)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         User following = userRepository.findById(followingId)
                 .orElseThrow(() -> new RuntimeException("User to unfollow not found"));
@@ -93,6 +102,7 @@ public class FollowService {
                 .orElseThrow(() -> new RuntimeException("Follow relationship not found"));
 
         followRepository.delete(follow);
+        timelineService.removeAuthorFromTimeline(follower.getId(), following.getId());
     }
 
     public List<FollowResponse> getFollowers(Long userId) {
@@ -110,7 +120,7 @@ public class FollowService {
     }
 
     public List<FollowResponse> getPendingRequests(String username) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
         List<Follow> pendingRequests = followRepository.findPendingRequestsByUserId(user.getId());
@@ -129,7 +139,7 @@ public class FollowService {
         stats.setFollowersCount(followerCount);  // Alias field for mobile app compatibility
         
         if (currentUsername != null) {
-            User currentUser = userRepository.findByUsername(currentUsername).orElse(null);
+            User currentUser = currentUserResolver.findByUsername(currentUsername).orElse(null);
             if (currentUser != null && !currentUser.getId().equals(userId)) {
                 User targetUser = userRepository.findById(userId).orElse(null);
                 if (targetUser != null) {
@@ -170,7 +180,7 @@ public class FollowService {
         response.setUsername(user.getUsername());
         response.setName(user.getName());
         response.setProfession(user.getProfession());
-        response.setProfilePicture(user.getProfilePicture());
+        response.setProfilePicture(avatarService.avatarUrl(user));
         response.setIsAccepted(follow.getIsAccepted());
         response.setCreatedAt(follow.getCreatedAt());
         
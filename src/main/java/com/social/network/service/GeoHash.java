@@ -0,0 +1,121 @@
+package com.social.network.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Standard base32 geohashes (the same strings MySQL's ST_GeoHash produces). Points in the same
+ * cell share the cell's hash as a prefix, so "within a cell" is an index range on the column.
+ */
+public final class GeoHash {
+
+    /** Precision stored on rows, cells of roughly 5m x 5m */
+    public static final int STORED_PRECISION = 9;
+
+    static final double EARTH_RADIUS_KM = 6371;
+    static final double KM_PER_DEGREE = EARTH_RADIUS_KM * Math.PI / 180;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final int MAX_COVERING_CELLS = 16;
+
+    private GeoHash() {
+    }
+
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean lonBit = true;
+        int bits = 0, ch = 0;
+        while (hash.length() < precision) {
+            if (lonBit) {
+                double mid = (minLon + maxLon) / 2;
+                ch <<= 1;
+                if (longitude >= mid) {
+                    ch |= 1;
+                    minLon = mid;
+                } else {
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                ch <<= 1;
+                if (latitude >= mid) {
+                    ch |= 1;
+                    minLat = mid;
+                } else {
+                    maxLat = mid;
+                }
+            }
+            lonBit = !lonBit;
+            if (++bits == 5) {
+                hash.append(BASE32.charAt(ch));
+                bits = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Great-circle distance in kilometers (Haversine formula).
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    /**
+     * Cells covering every point within radiusKm of the center, at the finest precision that
+     * needs no more than a handful of them. Every point in range has one of the returned cells
+     * as a prefix of its hash; points in the corners of the cells still need an exact distance
+     * check. A single empty prefix is returned when the radius covers most of the globe.
+     */
+    public static List<String> coveringCells(double latitude, double longitude, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEGREE;
+        double south = Math.max(-90, latitude - dLat);
+        double north = Math.min(90, latitude + dLat);
+        // Longitude degrees shrink towards the poles, so size the box at its widest latitude
+        double widestCos = Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+        double dLon = widestCos > 0 ? dLat / widestCos : 360;
+
+        for (int precision = STORED_PRECISION; precision >= 1; precision--) {
+            int lonBits = (5 * precision + 1) / 2;
+            int latBits = 5 * precision / 2;
+            long lonCells = 1L << lonBits;
+            long latCells = 1L << latBits;
+            double cellWidth = 360.0 / lonCells;
+            double cellHeight = 180.0 / latCells;
+
+            long rowMin = Math.min(latCells - 1, (long) Math.floor((south + 90) / cellHeight));
+            long rowMax = Math.min(latCells - 1, (long) Math.floor((north + 90) / cellHeight));
+            long colMin, colMax;
+            if (dLon >= 180) {
+                colMin = 0;
+                colMax = lonCells - 1;
+            } else {
+                // May run past either edge across the antimeridian, wrapped below
+                colMin = (long) Math.floor((longitude - dLon + 180) / cellWidth);
+                colMax = (long) Math.floor((longitude + dLon + 180) / cellWidth);
+                colMax = Math.min(colMax, colMin + lonCells - 1);
+            }
+            if ((rowMax - rowMin + 1) * (colMax - colMin + 1) > MAX_COVERING_CELLS) {
+                continue;
+            }
+
+            List<String> cells = new ArrayList<>();
+            for (long row = rowMin; row <= rowMax; row++) {
+                double cellLat = -90 + (row + 0.5) * cellHeight;
+                for (long col = colMin; col <= colMax; col++) {
+                    long wrapped = Math.floorMod(col, lonCells);
+                    cells.add(encode(cellLat, -180 + (wrapped + 0.5) * cellWidth, precision));
+                }
+            }
+            return cells;
+        }
+        return List.of("");
+    }
+}
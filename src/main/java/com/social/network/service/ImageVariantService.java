@@ -0,0 +1,220 @@
+package com.social.network.service;
+
+import com.social.network.entity.Media;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Upload-time image transcoding. Each stored image gets downscaled thumbnail, feed and full
+ * variants (longest side media.variants.*-size) stored next to the original, so clients no
+ * longer download full-size originals to render a feed.
+ *
+ * Work runs on the bounded imageVariantExecutor. Images are never upscaled; a size whose
+ * variant would not be smaller than the original is left null and the original is served.
+ * Animated GIFs, videos and formats ImageIO cannot decode are stored without variants.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final Set<String> TRANSCODABLE_TYPES = Set.of("image/jpeg", "image/jpg", "image/png", "image/bmp");
+    private static final String VARIANT_FOLDER = "variants";
+
+    private final MediaStore mediaStore;
+    private final ExecutorService executor;
+
+    @Value("${media.variants.enabled:true}")
+    private boolean enabled;
+
+    @Value("${media.variants.thumbnail-size:160}")
+    private int thumbnailSize;
+
+    @Value("${media.variants.feed-size:640}")
+    private int feedSize;
+
+    @Value("${media.variants.full-size:1280}")
+    private int fullSize;
+
+    @Value("${media.variants.jpeg-quality:0.8}")
+    private float jpegQuality;
+
+    // Decoding allocates 4 bytes per pixel; refuse decompression bombs before touching pixel data
+    @Value("${media.variants.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${media.variants.timeout-ms:15000}")
+    private long timeoutMs;
+
+    public ImageVariantService(MediaStore mediaStore, @Qualifier("imageVariantExecutor") ExecutorService executor) {
+        this.mediaStore = mediaStore;
+        this.executor = executor;
+    }
+
+    /**
+     * Generate the variants of a stored image and set their URLs on the media. On failure,
+     * timeout or a saturated pool the media is left without variants; the upload itself never fails.
+     */
+    public void generate(Media media) {
+        if (!enabled || !TRANSCODABLE_TYPES.contains(media.getContentType())) {
+            return;
+        }
+
+        Future<String[]> variants;
+        try {
+            variants = executor.submit(() -> render(media));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Image variant pool saturated, serving original of {}", media.getStorageKey());
+            return;
+        }
+
+        try {
+            String[] urls = variants.get(timeoutMs, TimeUnit.MILLISECONDS);
+            media.setThumbnailUrl(urls[0]);
+            media.setFeedUrl(urls[1]);
+            media.setFullUrl(urls[2]);
+        } catch (TimeoutException e) {
+            variants.cancel(true);
+            logger.warn("Timed out generating variants of {}", media.getStorageKey());
+        } catch (InterruptedException e) {
+            variants.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.warn("Could not generate variants of {}", media.getStorageKey(), e.getCause());
+        }
+    }
+
+    private String[] render(Media media) throws IOException {
+        BufferedImage original = decode(media.getStorageKey());
+        boolean alpha = original.getColorModel().hasAlpha();
+        int[] sizes = {thumbnailSize, feedSize, fullSize};
+        String[] urls = new String[sizes.length];
+        List<String> storedKeys = new ArrayList<>();
+
+        try {
+            // Largest first, each variant scaled from the previous one
+            BufferedImage source = original;
+            for (int i = sizes.length - 1; i >= 0; i--) {
+                if (Math.max(source.getWidth(), source.getHeight()) <= sizes[i]) {
+                    continue; // Never upscale
+                }
+                source = scale(source, sizes[i], alpha);
+                byte[] encoded = encode(source, alpha);
+                if (media.getSizeBytes() != null && encoded.length >= media.getSizeBytes()) {
+                    continue; // The original is already smaller
+                }
+                MediaStore.StoredMedia stored = mediaStore.store(VARIANT_FOLDER,
+                        new ByteArrayInputStream(encoded), alpha ? "image/png" : "image/jpeg");
+                storedKeys.add(stored.key());
+                urls[i] = stored.url();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IOException("Variant generation cancelled");
+            }
+        } catch (IOException | RuntimeException e) {
+            for (String key : storedKeys) {
+                try {
+                    mediaStore.delete(key); // Nobody will reference them
+                } catch (RuntimeException deleteError) {
+                    e.addSuppressed(deleteError);
+                }
+            }
+            throw e;
+        }
+        return urls;
+    }
+
+    private BufferedImage decode(String key) throws IOException {
+        try (InputStream in = mediaStore.open(key); ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = stream != null ? ImageIO.getImageReaders(stream) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("Image too large to transcode: " + pixels + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale the image so its longest side is maxSide, halving in steps so bilinear filtering
+     * doesn't skip source pixels on large reductions.
+     */
+    static BufferedImage scale(BufferedImage source, int maxSide, boolean alpha) {
+        double ratio = (double) maxSide / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(width, height,
+                    alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+        return current;
+    }
+
+    private byte[] encode(BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", out); // JPEG has no transparency
+            return out.toByteArray();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
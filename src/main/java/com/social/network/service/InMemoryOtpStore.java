@@ -0,0 +1,99 @@
+package com.social.network.service;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OTP store in process memory, for single-instance deployments: codes never touch MySQL.
+ *
+ * Expired codes are evicted with a timing wheel of tick-ms slots spanning the longest TTL.
+ * Each code is registered in the slot of its expiry tick, and every tick only visits the
+ * slots that came due, so eviction cost is proportional to the codes expiring rather than to
+ * all codes held. Lookups check expiry themselves, so a late tick never accepts an expired code.
+ */
+public class InMemoryOtpStore implements OtpStore {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final List<Set<String>> wheel;
+    private final long tickMs;
+    private final Duration maxTtl;
+    // Next tick whose slot has not been evicted yet
+    private long cursor;
+
+    public InMemoryOtpStore(long tickMs, Duration maxTtl) {
+        this.tickMs = tickMs;
+        this.maxTtl = maxTtl;
+        // One extra slot so a code never lands in the slot currently being evicted
+        int slots = (int) (maxTtl.toMillis() / tickMs) + 2;
+        this.wheel = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            wheel.add(ConcurrentHashMap.newKeySet());
+        }
+        this.cursor = System.currentTimeMillis() / tickMs;
+    }
+
+    @Override
+    public void put(String email, String otp, Duration ttl) {
+        if (ttl.compareTo(maxTtl) > 0) {
+            throw new IllegalArgumentException("OTP TTL " + ttl + " exceeds the eviction wheel span " + maxTtl);
+        }
+        long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+        entries.put(email, new Entry(otp, expiresAt));
+        long expiryTick = (expiresAt + tickMs - 1) / tickMs;
+        wheel.get((int) (expiryTick % wheel.size())).add(email);
+    }
+
+    @Override
+    public boolean consume(String email, String otp) {
+        long now = System.currentTimeMillis();
+        boolean[] matched = {false};
+        entries.computeIfPresent(email, (key, entry) -> {
+            if (entry.expiresAt <= now) {
+                return null;
+            }
+            if (MessageDigest.isEqual(entry.otp.getBytes(StandardCharsets.UTF_8), otp.getBytes(StandardCharsets.UTF_8))) {
+                matched[0] = true;
+                return null;
+            }
+            return entry;
+        });
+        return matched[0];
+    }
+
+    /**
+     * Advance the wheel to the current tick, evicting the codes of every slot that came due.
+     */
+    @Scheduled(fixedDelayString = "${otp.memory.tick-ms:10000}")
+    public synchronized void evictExpired() {
+        long now = System.currentTimeMillis();
+        long nowTick = now / tickMs;
+        // After a long pause visit every slot once rather than lapping the wheel
+        long from = Math.max(cursor, nowTick - wheel.size() + 1);
+        for (long tick = from; tick <= nowTick; tick++) {
+            Iterator<String> emails = wheel.get((int) (tick % wheel.size())).iterator();
+            while (emails.hasNext()) {
+                String email = emails.next();
+                emails.remove();
+                // A replaced code is registered in its own, later slot
+                entries.computeIfPresent(email, (key, entry) -> entry.expiresAt <= now ? null : entry);
+            }
+        }
+        cursor = nowTick + 1;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private record Entry(String otp, long expiresAt) {
+    }
+}
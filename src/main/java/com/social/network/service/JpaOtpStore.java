@@ -0,0 +1,63 @@
+package com.social.network.service;
+
+import com.social.network.entity.EmailOTP;
+import com.social.network.repository.EmailOTPRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * OTP store in the email_otp table, for deployments with several instances behind a
+ * non-sticky load balancer. Expired and used codes are purged periodically.
+ */
+public class JpaOtpStore implements OtpStore {
+
+    private final EmailOTPRepository otpRepository;
+
+    public JpaOtpStore(EmailOTPRepository otpRepository) {
+        this.otpRepository = otpRepository;
+    }
+
+    @Override
+    @Transactional
+    public void put(String email, String otp, Duration ttl) {
+        // Delete any existing unverified OTPs for this email
+        otpRepository.deleteByEmail(email);
+
+        EmailOTP emailOTP = new EmailOTP();
+        emailOTP.setEmail(email);
+        emailOTP.setOtp(otp);
+        emailOTP.setExpiresAt(LocalDateTime.now().plus(ttl));
+        emailOTP.setVerified(false);
+        otpRepository.save(emailOTP);
+    }
+
+    @Override
+    @Transactional
+    public boolean consume(String email, String otp) {
+        Optional<EmailOTP> otpRecord = otpRepository
+            .findByEmailAndOtpAndVerifiedFalseAndExpiresAtAfter(
+                email,
+                otp,
+                LocalDateTime.now()
+            );
+
+        if (otpRecord.isPresent()) {
+            EmailOTP emailOTP = otpRecord.get();
+            emailOTP.setVerified(true);
+            otpRepository.save(emailOTP);
+            return true;
+        }
+
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${otp.jpa.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        otpRepository.deleteExpiredOrVerified(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,282 @@
+package com.social.network.service;
+
+import com.social.network.repository.LikeRepository;
+import com.social.network.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Optional write-behind buffer for like toggles (likes.write-behind.enabled).
+ *
+ * Toggles are recorded in memory keyed by (postId, userId) and flushed every
+ * likes.write-behind.flush-interval-ms as batched INSERT IGNORE / DELETE statements plus one
+ * counter update per post. A like followed by an unlike before the next flush cancels out
+ * and never reaches MySQL. Keys are spread over independently locked stripes so toggles on
+ * different posts do not contend with each other.
+ *
+ * Read-your-writes: {@link #pendingState} and {@link #pendingLikeDelta} expose toggles that
+ * are buffered or being flushed, and PostService overlays them on what it reads from the
+ * database, so the toggling user sees their own like immediately (on this instance).
+ *
+ * Durability: a toggle is acknowledged before it is persisted. Toggles buffered on an
+ * instance that dies without a clean shutdown (at most one flush interval's worth) are lost;
+ * a clean shutdown flushes the buffer. A failed flush is merged back and retried on the next
+ * interval. Leave the buffer disabled where every like must be durable on acknowledgement.
+ */
+@Component
+public class LikeWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LikeWriteBuffer.class);
+    private static final int STRIPE_COUNT = 16;
+    private static final String INSERT_LIKE_SQL =
+            "INSERT IGNORE INTO likes (post_id, user_id, created_at) VALUES (?, ?, NOW())";
+
+    private final LikeRepository likeRepository;
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+    // Toggles drained from the stripes whose flush has not committed yet
+    private final Map<LikeKey, PendingLike> inFlight = new ConcurrentHashMap<>();
+    // Net like count change per post that is buffered or in flight
+    private final Map<Long, Long> pendingDeltas = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+
+    @Value("${likes.write-behind.enabled:false}")
+    private boolean enabled;
+
+    public LikeWriteBuffer(LikeRepository likeRepository, PostRepository postRepository,
+                           JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher) {
+        this.likeRepository = likeRepository;
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Record a like toggle.
+     *
+     * @return true if the user now likes the post
+     */
+    public boolean toggle(Long postId, Long userId) {
+        LikeKey key = new LikeKey(postId, userId);
+        Stripe stripe = stripeFor(key);
+
+        synchronized (stripe) {
+            PendingLike pending = stripe.pending.get(key);
+            if (pending != null) {
+                return applyToggle(stripe, key, pending);
+            }
+        }
+
+        // Resolve the persisted state outside the stripe lock; only the first toggle per flush needs it
+        boolean persisted = resolvePersistedState(key);
+
+        synchronized (stripe) {
+            PendingLike pending = stripe.pending.computeIfAbsent(key, k -> new PendingLike(persisted));
+            return applyToggle(stripe, key, pending);
+        }
+    }
+
+    /**
+     * Buffered or in-flight state for this user's like on the post, if any.
+     */
+    public Optional<Boolean> pendingState(Long postId, Long userId) {
+        LikeKey key = new LikeKey(postId, userId);
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            PendingLike pending = stripe.pending.get(key);
+            if (pending != null) {
+                return Optional.of(pending.desired);
+            }
+        }
+        PendingLike flushing = inFlight.get(key);
+        return flushing != null ? Optional.of(flushing.desired) : Optional.empty();
+    }
+
+    /**
+     * Net like count change on the post that is not yet reflected in posts.like_count.
+     */
+    public long pendingLikeDelta(Long postId) {
+        return pendingDeltas.getOrDefault(postId, 0L);
+    }
+
+    @Scheduled(fixedDelayString = "${likes.write-behind.flush-interval-ms:500}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            Map<LikeKey, PendingLike> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                Set<Long> changedPostIds = transactionTemplate.execute(status -> persist(batch));
+                // Evict cached counts before dropping the pending deltas that were compensating for them
+                changedPostIds.forEach(postId -> eventPublisher.publishEvent(PostChangedEvent.liked(postId)));
+                batch.forEach((key, pending) -> {
+                    addDelta(key.postId(), -pending.contribution());
+                    inFlight.remove(key, pending);
+                });
+                logger.debug("Flushed {} buffered like toggles", batch.size());
+            } catch (RuntimeException e) {
+                logger.error("Failed to flush {} buffered like toggles, will retry: {}", batch.size(), e.getMessage());
+                requeue(batch);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private Map<LikeKey, PendingLike> drain() {
+        Map<LikeKey, PendingLike> batch = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (!stripe.pending.isEmpty()) {
+                    inFlight.putAll(stripe.pending);
+                    batch.putAll(stripe.pending);
+                    stripe.pending.clear();
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * @return ids of the posts whose like_count changed
+     */
+    private Set<Long> persist(Map<LikeKey, PendingLike> batch) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<LikeKey> insertKeys = new ArrayList<>();
+        Map<Long, List<Long>> deletesByPost = new HashMap<>();
+
+        batch.forEach((key, pending) -> {
+            if (pending.desired) {
+                inserts.add(new Object[]{key.postId(), key.userId()});
+                insertKeys.add(key);
+            } else {
+                deletesByPost.computeIfAbsent(key.postId(), id -> new ArrayList<>()).add(key.userId());
+            }
+        });
+
+        // Counter deltas are taken from affected row counts, so races with other writers stay exact
+        Map<Long, Long> counterDeltas = new HashMap<>();
+        if (!inserts.isEmpty()) {
+            int[] inserted = jdbcTemplate.batchUpdate(INSERT_LIKE_SQL, inserts);
+            for (int i = 0; i < inserted.length; i++) {
+                if (inserted[i] > 0) {
+                    counterDeltas.merge(insertKeys.get(i).postId(), 1L, Long::sum);
+                }
+            }
+        }
+        deletesByPost.forEach((postId, userIds) -> {
+            int deleted = likeRepository.deleteByPostIdAndUserIds(postId, userIds);
+            if (deleted > 0) {
+                counterDeltas.merge(postId, (long) -deleted, Long::sum);
+            }
+        });
+        counterDeltas.values().removeIf(delta -> delta == 0);
+        counterDeltas.forEach(postRepository::adjustLikeCount);
+        return counterDeltas.keySet();
+    }
+
+    private void requeue(Map<LikeKey, PendingLike> batch) {
+        batch.forEach((key, failed) -> {
+            Stripe stripe = stripeFor(key);
+            synchronized (stripe) {
+                PendingLike newer = stripe.pending.get(key);
+                if (newer == null) {
+                    stripe.pending.put(key, failed);
+                } else {
+                    // The newer toggle assumed the failed one had been persisted; restore the real baseline
+                    newer.persisted = failed.persisted;
+                    if (newer.desired == newer.persisted) {
+                        stripe.pending.remove(key);
+                    }
+                }
+                inFlight.remove(key, failed);
+            }
+        });
+    }
+
+    // Caller holds the stripe lock
+    private boolean applyToggle(Stripe stripe, LikeKey key, PendingLike pending) {
+        pending.desired = !pending.desired;
+        addDelta(key.postId(), pending.desired ? 1 : -1);
+        if (pending.desired == pending.persisted) {
+            stripe.pending.remove(key); // like + unlike (or the reverse) coalesced away
+        }
+        return pending.desired;
+    }
+
+    private boolean resolvePersistedState(LikeKey key) {
+        PendingLike flushing = inFlight.get(key);
+        if (flushing != null) {
+            return flushing.desired; // Will be persisted by the flush in progress
+        }
+        return likeRepository.existsByPostIdAndUserId(key.postId(), key.userId());
+    }
+
+    private void addDelta(Long postId, long delta) {
+        pendingDeltas.compute(postId, (id, current) -> {
+            long updated = (current != null ? current : 0L) + delta;
+            return updated != 0 ? updated : null;
+        });
+    }
+
+    private Stripe stripeFor(LikeKey key) {
+        return stripes[Math.floorMod(key.hashCode(), STRIPE_COUNT)];
+    }
+
+    private record LikeKey(Long postId, Long userId) {
+    }
+
+    private static final class PendingLike {
+        private boolean persisted;
+        private boolean desired;
+
+        private PendingLike(boolean persisted) {
+            this.persisted = persisted;
+            this.desired = persisted;
+        }
+
+        private long contribution() {
+            return (desired ? 1 : 0) - (persisted ? 1 : 0);
+        }
+    }
+
+    private static final class Stripe {
+        private final Map<LikeKey, PendingLike> pending = new HashMap<>();
+    }
+}
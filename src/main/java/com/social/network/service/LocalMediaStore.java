@@ -0,0 +1,121 @@
+package com.social.network.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Content-addressed media on the local filesystem, served by MediaController.
+ *
+ * Objects are stored as {folder}/{sha256[0..2]}/{sha256}{ext}, so identical uploads share one
+ * file and a URL always denotes the same bytes (clients can cache it forever). Content is
+ * hashed while it streams to a temp file and moved into place atomically once complete.
+ * Deleting an object removes it for every upload of the same content, so callers go through
+ * MediaService, which only deletes it with the last reference.
+ */
+public class LocalMediaStore implements MediaStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalMediaStore.class);
+
+    private final Path root;
+    private final Path tempDir;
+    private final String baseUrl;
+    private final int chunkSize;
+
+    public LocalMediaStore(String root, String baseUrl, int chunkSize) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.tempDir = this.root.resolve(".tmp");
+        this.baseUrl = baseUrl;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public StoredMedia store(String folder, InputStream content, String contentType) throws IOException {
+        Files.createDirectories(tempDir);
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+        MessageDigest digest = sha256();
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            byte[] buffer = new byte[chunkSize];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest());
+        String key = folder + "/" + hash.substring(0, 2) + "/" + hash + MediaStore.extensionFor(contentType);
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        if (Files.exists(target)) {
+            Files.delete(temp); // Same content is already stored
+        } else {
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(temp); // Stored concurrently by an identical upload
+            }
+        }
+
+        logger.info("Stored media locally: {}", target);
+        return new StoredMedia(key, baseUrl + "/" + key);
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public boolean delete(String key) {
+        try {
+            return Files.deleteIfExists(resolve(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error deleting local media " + key, e);
+        }
+    }
+
+    @Override
+    public Optional<String> keyOf(String url) {
+        String prefix = baseUrl + "/";
+        return url != null && url.startsWith(prefix) ? Optional.of(url.substring(prefix.length())) : Optional.empty();
+    }
+
+    @Override
+    public Optional<Path> localFile(String key) {
+        Path path = resolve(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.startsWith(tempDir)) {
+            throw new RuntimeException("Invalid media key");
+        }
+        return path;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.social.network.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Messaging backend that sends nothing, for development and for load testing the push path
+ * offline. Each batch takes latencyMs, like a round trip to FCM. Every message succeeds except
+ * those whose token starts with invalidTokenPrefix, which come back as unregistered tokens.
+ */
+public class LocalMessagingBackend implements MessagingBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalMessagingBackend.class);
+
+    private final long latencyMs;
+    private final String invalidTokenPrefix;
+
+    public LocalMessagingBackend(long latencyMs, String invalidTokenPrefix) {
+        this.latencyMs = latencyMs;
+        this.invalidTokenPrefix = invalidTokenPrefix;
+    }
+
+    @Override
+    public List<Outcome> sendEach(List<Outgoing> batch) {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while sending", e);
+            }
+        }
+        logger.debug("Local messaging backend: {} messages", batch.size());
+        return batch.stream()
+                .map(outgoing -> !invalidTokenPrefix.isEmpty() && outgoing.token().startsWith(invalidTokenPrefix)
+                        ? Outcome.INVALID_TOKEN
+                        : Outcome.SENT)
+                .toList();
+    }
+}
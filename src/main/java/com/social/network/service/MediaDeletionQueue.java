@@ -0,0 +1,73 @@
+package com.social.network.service;
+
+import com.social.network.entity.MediaDeletion;
+import com.social.network.repository.MediaDeletionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Persistent queue of media URLs to release, drained by {@link MediaDeletionWorker}. Enqueueing
+ * is a single insert, so edits and deletes no longer wait for storage round trips, and a
+ * deletion that fails (or an instance that dies mid-way) is retried instead of lost.
+ */
+@Service
+public class MediaDeletionQueue {
+
+    private final MediaDeletionRepository mediaDeletionRepository;
+    private final TransactionTemplate newTransaction;
+
+    public MediaDeletionQueue(MediaDeletionRepository mediaDeletionRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.mediaDeletionRepository = mediaDeletionRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Enqueue URLs for deletion. Inside a transaction the entries commit or roll back with it,
+     * so media a rolled-back change still references is never deleted.
+     */
+    public void enqueue(Collection<String> urls) {
+        LocalDateTime now = LocalDateTime.now();
+        List<MediaDeletion> entries = urls.stream()
+                .filter(Objects::nonNull)
+                .map(url -> {
+                    MediaDeletion entry = new MediaDeletion();
+                    entry.setUrl(url);
+                    entry.setNextAttemptAt(now);
+                    return entry;
+                })
+                .toList();
+        if (!entries.isEmpty()) {
+            mediaDeletionRepository.saveAll(entries);
+        }
+    }
+
+    /**
+     * Enqueue freshly uploaded URLs if the current transaction rolls back.
+     */
+    public void enqueueOnRollback(Collection<String> urls) {
+        if (urls.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<String> uploaded = List.copyOf(urls);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    // The finished transaction's resources may still be bound; don't write through them
+                    newTransaction.executeWithoutResult(tx -> enqueue(uploaded));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package com.social.network.service;
+
+import com.social.network.entity.MediaDeletion;
+import com.social.network.repository.MediaDeletionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Drains the media_deletions outbox. Due entries are claimed in batches of
+ * media.deletion.batch-size with SKIP LOCKED, so several instances can drain concurrently, and
+ * deleted in parallel on the mediaUploadExecutor. A claim leases the entries for
+ * media.deletion.lease-ms; entries of a worker that died are picked up again after the lease.
+ * Failed deletions are retried with exponential backoff and never dropped.
+ */
+@Service
+public class MediaDeletionWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaDeletionWorker.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MediaDeletionRepository mediaDeletionRepository;
+    private final FirebaseStorageService firebaseStorageService;
+    private final ExecutorService executor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${media.deletion.batch-size:100}")
+    private int batchSize;
+
+    @Value("${media.deletion.max-batches-per-run:50}")
+    private int maxBatchesPerRun;
+
+    @Value("${media.deletion.lease-ms:300000}")
+    private long leaseMs;
+
+    @Value("${media.deletion.base-backoff-ms:10000}")
+    private long baseBackoffMs;
+
+    @Value("${media.deletion.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    public MediaDeletionWorker(MediaDeletionRepository mediaDeletionRepository,
+                               FirebaseStorageService firebaseStorageService,
+                               @Qualifier("mediaUploadExecutor") ExecutorService executor,
+                               PlatformTransactionManager transactionManager) {
+        this.mediaDeletionRepository = mediaDeletionRepository;
+        this.firebaseStorageService = firebaseStorageService;
+        this.executor = executor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${media.deletion.initial-delay-ms:10000}",
+               fixedDelayString = "${media.deletion.poll-interval-ms:5000}")
+    public void drain() {
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            List<MediaDeletion> batch = claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            process(batch);
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private List<MediaDeletion> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<MediaDeletion> due = mediaDeletionRepository.findDueForUpdate(now, batchSize);
+            if (!due.isEmpty()) {
+                mediaDeletionRepository.claim(due.stream().map(MediaDeletion::getId).toList(),
+                        now.plusNanos(leaseMs * 1_000_000));
+            }
+            return due;
+        });
+    }
+
+    private void process(List<MediaDeletion> batch) {
+        List<CompletableFuture<Boolean>> deletions = new ArrayList<>(batch.size());
+        for (MediaDeletion entry : batch) {
+            deletions.add(CompletableFuture.supplyAsync(() -> firebaseStorageService.deleteImage(entry.getUrl()), executor));
+        }
+
+        // Nothing left to release (already deleted, not a stored URL) counts as done too
+        List<Long> done = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            MediaDeletion entry = batch.get(i);
+            try {
+                deletions.get(i).join();
+                done.add(entry.getId());
+            } catch (CompletionException e) {
+                retryLater(entry, e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        if (!done.isEmpty()) {
+            mediaDeletionRepository.deleteAllByIdInBatch(done);
+        }
+    }
+
+    private void retryLater(MediaDeletion entry, Throwable error) {
+        int attempts = entry.getAttempts() + 1;
+        long backoffMs = backoffMs(attempts, baseBackoffMs, maxBackoffMs);
+        String message = String.valueOf(error.getMessage());
+        String lastError = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+        transactionTemplate.executeWithoutResult(status -> mediaDeletionRepository.reschedule(entry.getId(),
+                LocalDateTime.now().plusNanos(backoffMs * 1_000_000), lastError));
+        logger.warn("Deleting media {} failed (attempt {}), retrying in {} ms: {}",
+                entry.getUrl(), attempts, backoffMs, lastError);
+    }
+
+    /**
+     * base, 2x base, 4x base, ... capped at max.
+     */
+    static long backoffMs(int attempts, long baseMs, long maxMs) {
+        int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(baseMs << doublings, maxMs);
+    }
+}
@@ -0,0 +1,415 @@
+package com.social.network.service;
+
+import com.social.network.dto.MediaUploadResponse;
+import com.social.network.dto.MediaVariants;
+import com.social.network.entity.Media;
+import com.social.network.entity.MediaUpload;
+import com.social.network.entity.User;
+import com.social.network.repository.MediaRepository;
+import com.social.network.repository.MediaUploadRepository;
+import com.social.network.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streaming media uploads. The request body is spooled to a temp file in fixed-size chunks
+ * while it is hashed, so an upload costs one buffer of heap regardless of its size.
+ *
+ * Stored objects are indexed by the SHA-256 of their content: an upload of content that is
+ * already stored only increments the media row's refCount, so duplicates cost neither storage
+ * nor a transfer to the backend. Releasing the last reference deletes the object and its variants.
+ *
+ * References are held by unattached uploads, post attachments (one per post_media row) and the
+ * other places media URLs are kept (profile and community pictures). Whoever stops using a URL
+ * releases exactly the reference it took.
+ */
+@Service
+public class MediaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaService.class);
+
+    private final MediaStore mediaStore;
+    private final MediaRepository mediaRepository;
+    private final MediaUploadRepository mediaUploadRepository;
+    private final UserRepository userRepository;
+    private final ImageVariantService imageVariantService;
+    private final MediaDeletionQueue mediaDeletionQueue;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${media.upload.max-bytes:20971520}")
+    private long maxUploadBytes;
+
+    @Value("${media.upload.spool-dir:${java.io.tmpdir}}")
+    private String spoolDir;
+
+    public MediaService(MediaStore mediaStore, MediaRepository mediaRepository,
+                        MediaUploadRepository mediaUploadRepository, UserRepository userRepository,
+                        ImageVariantService imageVariantService, MediaDeletionQueue mediaDeletionQueue,
+                        PlatformTransactionManager transactionManager) {
+        this.mediaStore = mediaStore;
+        this.mediaRepository = mediaRepository;
+        this.mediaUploadRepository = mediaUploadRepository;
+        this.userRepository = userRepository;
+        this.imageVariantService = imageVariantService;
+        this.mediaDeletionQueue = mediaDeletionQueue;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public MediaUploadResponse upload(String username, InputStream content, String contentType) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Media media;
+        try {
+            media = store("media", content, normalizeContentType(contentType), maxUploadBytes);
+        } catch (IOException e) {
+            logger.error("Error storing media for {}", username, e);
+            throw new RuntimeException("Failed to store media");
+        }
+
+        // The upload owns the reference store() acquired
+        MediaUpload upload = new MediaUpload();
+        upload.setUser(user);
+        upload.setMedia(media);
+        try {
+            upload = mediaUploadRepository.save(upload);
+        } catch (RuntimeException e) {
+            mediaDeletionQueue.enqueue(List.of(media.getUrl()));
+            throw e;
+        }
+        return new MediaUploadResponse(upload.getId(), media.getUrl(), media.getContentType(), media.getSizeBytes());
+    }
+
+    /**
+     * Store an inline (base64 decoded) image, with its variants. The caller owns one reference
+     * and gives it back with {@link #release(String)}.
+     *
+     * @return the public URL of the original
+     */
+    public String storeInline(String folder, InputStream content, String contentType) throws IOException {
+        return store(folder, content, contentType, Long.MAX_VALUE).getUrl();
+    }
+
+    /**
+     * Store content, or share the stored copy of identical content. Either way the caller
+     * acquires one reference.
+     */
+    private Media store(String folder, InputStream content, String contentType, long maxBytes) throws IOException {
+        Path spoolRoot = Paths.get(spoolDir);
+        Files.createDirectories(spoolRoot);
+        Path spool = Files.createTempFile(spoolRoot, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            BoundedInputStream bounded = new BoundedInputStream(content, maxBytes);
+            try (InputStream in = new DigestInputStream(bounded, digest);
+                 OutputStream out = Files.newOutputStream(spool)) {
+                in.transferTo(out);
+            }
+            if (bounded.count == 0) {
+                throw new RuntimeException("Media is empty");
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+
+            Optional<Media> existing = acquire(sha256);
+            if (existing.isPresent()) {
+                logger.info("Deduplicated upload of {}", existing.get().getStorageKey());
+                return existing.get();
+            }
+            return storeNew(folder, spool, sha256, contentType, bounded.count);
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    private Media storeNew(String folder, Path spool, String sha256, String contentType, long sizeBytes)
+            throws IOException {
+        MediaStore.StoredMedia stored;
+        try (InputStream in = Files.newInputStream(spool)) {
+            stored = mediaStore.store(folder, in, contentType);
+        }
+
+        Media media = new Media();
+        media.setSha256(sha256);
+        media.setStorageKey(stored.key());
+        media.setUrl(stored.url());
+        media.setContentType(contentType);
+        media.setSizeBytes(sizeBytes);
+        media.setRefCount(1);
+        imageVariantService.generate(media);
+        try {
+            return mediaRepository.save(media);
+        } catch (DataIntegrityViolationException e) {
+            // An identical upload was indexed first; share its object and drop ours
+            Optional<Media> winner = acquire(sha256);
+            discardQuietly(media, winner.orElse(null));
+            return winner.orElseThrow(() -> new RuntimeException("Failed to store media"));
+        } catch (RuntimeException e) {
+            discardQuietly(media, null); // Don't leave objects nobody can reference
+            throw e;
+        }
+    }
+
+    private Optional<Media> acquire(String sha256) {
+        return transactionTemplate.execute(status -> mediaRepository.acquire(sha256) == 1
+                ? mediaRepository.findBySha256(sha256)
+                : Optional.empty());
+    }
+
+    /**
+     * Release one reference to a stored object; the last reference deletes the object and its variants.
+     *
+     * @return false if the key had no reference left to release
+     * @throws RuntimeException if the backend failed to delete the object; releasing again retries it
+     */
+    public boolean release(String key) {
+        List<Media> indexed = mediaRepository.findByStorageKeyIn(List.of(key));
+        if (indexed.isEmpty()) {
+            return mediaStore.delete(key); // Stored before the media index; this was its only reference
+        }
+        return release(referenced(indexed));
+    }
+
+    /**
+     * Take one more reference to stored media by URL, for a caller keeping a URL it did not
+     * upload itself. Give it back with {@link #release(String)}.
+     *
+     * @return false if the URL is not stored media (external links are never deleted and need none)
+     * @throws RuntimeException if the media is stored but can't be shared: it is being deleted, or
+     *         was stored before the media index and belongs to whoever stored it
+     */
+    public boolean acquireUrl(String url) {
+        Optional<String> key = mediaStore.keyOf(url);
+        if (key.isEmpty()) {
+            return false;
+        }
+        List<Media> indexed = mediaRepository.findByStorageKeyIn(List.of(key.get()));
+        if (indexed.isEmpty()) {
+            throw new RuntimeException("Media not available: " + url);
+        }
+        Integer acquired = transactionTemplate.execute(status -> mediaRepository.acquireById(referenced(indexed).getId()));
+        if (acquired == null || acquired == 0) {
+            throw new RuntimeException("Media not available: " + url);
+        }
+        return true;
+    }
+
+    /**
+     * The row of a storage key that references are taken from and given back to. Identical
+     * content stored before deduplication can have several.
+     */
+    private static Media referenced(List<Media> indexed) {
+        return indexed.stream()
+                .filter(media -> media.getRefCount() != null && media.getRefCount() > 0)
+                .min(Comparator.comparing(Media::getId))
+                .orElse(indexed.get(0));
+    }
+
+    private boolean release(Media media) {
+        Boolean lastReference = transactionTemplate.execute(status -> {
+            if (mediaRepository.release(media.getId()) == 0) {
+                return null;
+            }
+            if (mediaRepository.findById(media.getId()).map(Media::getRefCount).orElse(0) > 0) {
+                return false;
+            }
+            mediaUploadRepository.deleteByMediaId(media.getId());
+            mediaRepository.deleteIfUnreferenced(media.getId());
+            return true;
+        });
+        if (lastReference == null) {
+            logger.warn("No reference left to release for {}", media.getStorageKey());
+            return false;
+        }
+        if (lastReference) {
+            discard(media, null);
+            logger.info("Deleted unreferenced media {}", media.getStorageKey());
+        }
+        return true;
+    }
+
+    private void discardQuietly(Media media, Media keep) {
+        try {
+            discard(media, keep);
+        } catch (RuntimeException e) {
+            logger.error("Could not delete orphaned media {}", media.getStorageKey(), e);
+        }
+    }
+
+    /**
+     * Delete the objects of a media row that is not (or no longer) indexed, except those kept by another row.
+     *
+     * @throws RuntimeException if the backend failed
+     */
+    private void discard(Media media, Media keep) {
+        Set<String> keptUrls = keep == null ? Set.of() : new HashSet<>(variantUrls(keep));
+        for (String url : variantUrls(media)) {
+            if (!keptUrls.contains(url)) {
+                mediaStore.keyOf(url).ifPresent(mediaStore::delete);
+            }
+        }
+        // Content-addressed backends give identical content the same key
+        if (!mediaRepository.existsByStorageKey(media.getStorageKey())) {
+            mediaStore.delete(media.getStorageKey());
+        }
+    }
+
+    /**
+     * Variants of each URL, looked up with one query. URLs without stored variants (external
+     * links, videos, media stored before variants existed) map to the original for every size.
+     */
+    public Map<String, MediaVariants> findVariants(Collection<String> urls) {
+        Map<String, String> urlByKey = new HashMap<>();
+        for (String url : urls) {
+            mediaStore.keyOf(url).ifPresent(key -> urlByKey.put(key, url));
+        }
+
+        Map<String, MediaVariants> variants = new HashMap<>();
+        if (!urlByKey.isEmpty()) {
+            for (Media media : mediaRepository.findByStorageKeyIn(urlByKey.keySet())) {
+                String url = urlByKey.get(media.getStorageKey());
+                // Identical content can be stored more than once; any copy with variants will do
+                if (url != null && (!variantUrls(media).isEmpty() || !variants.containsKey(url))) {
+                    variants.put(url, new MediaVariants(url,
+                            orOriginal(media.getThumbnailUrl(), url),
+                            orOriginal(media.getFeedUrl(), url),
+                            orOriginal(media.getFullUrl(), url)));
+                }
+            }
+        }
+        for (String url : urls) {
+            variants.putIfAbsent(url, MediaVariants.original(url));
+        }
+        return variants;
+    }
+
+    public MediaVariants variantsOf(String url) {
+        return url == null ? null : findVariants(List.of(url)).get(url);
+    }
+
+    /**
+     * Attach the user's uploads to a post and return their URLs, in the order the ids were given.
+     * The post holds one reference per attachment: the first attachment of an upload takes over
+     * the upload's reference, later ones (other posts, or the same post after an edit) acquire
+     * another. Call this in the transaction that saves the post, so a failed save gives them back.
+     */
+    public List<String> attachUploads(User user, List<Long> mediaIds) {
+        Map<Long, MediaUpload> byId = mediaUploadRepository.findByIdsAndUserId(mediaIds, user.getId())
+                .stream()
+                .collect(Collectors.toMap(MediaUpload::getId, Function.identity()));
+
+        List<String> urls = new ArrayList<>(mediaIds.size());
+        for (Long mediaId : mediaIds) {
+            MediaUpload upload = byId.get(mediaId);
+            if (upload == null) {
+                throw new RuntimeException("Media not found: " + mediaId);
+            }
+            if (mediaUploadRepository.markAttached(mediaId) == 0
+                    && mediaRepository.acquireById(upload.getMedia().getId()) == 0) {
+                throw new RuntimeException("Media not found: " + mediaId); // Released meanwhile
+            }
+            urls.add(upload.getMedia().getUrl());
+        }
+        return urls;
+    }
+
+    public Optional<Path> localFile(String key) {
+        return mediaStore.localFile(key);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String orOriginal(String variantUrl, String url) {
+        return variantUrl != null ? variantUrl : url;
+    }
+
+    private static List<String> variantUrls(Media media) {
+        return Stream.of(media.getThumbnailUrl(), media.getFeedUrl(), media.getFullUrl())
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private String normalizeContentType(String contentType) {
+        if (contentType == null) {
+            throw new RuntimeException("Content type is required");
+        }
+        String mediaType = contentType.split(";", 2)[0].trim().toLowerCase();
+        if (!mediaType.startsWith("image/") && !mediaType.startsWith("video/")) {
+            throw new RuntimeException("Only images and videos can be uploaded");
+        }
+        return mediaType;
+    }
+
+    /**
+     * Counts bytes as they stream through and fails the upload once media.upload.max-bytes is exceeded.
+     */
+    private static final class BoundedInputStream extends FilterInputStream {
+        private final long limit;
+        private long count;
+
+        private BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                advance(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                advance(read);
+            }
+            return read;
+        }
+
+        private void advance(int read) {
+            count += read;
+            if (count > limit) {
+                throw new RuntimeException("Media exceeds the maximum size of " + limit + " bytes");
+            }
+        }
+    }
+}
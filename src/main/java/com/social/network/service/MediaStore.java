@@ -0,0 +1,67 @@
+package com.social.network.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Storage backend for uploaded media. Content is streamed in, never buffered whole in memory.
+ * The active backend is selected with media.storage (see MediaStoreConfig).
+ */
+public interface MediaStore {
+
+    /**
+     * Stream content into the store under the folder. The backend chooses the object key.
+     */
+    StoredMedia store(String folder, InputStream content, String contentType) throws IOException;
+
+    /**
+     * Read an object's content back, e.g. to derive image variants from it.
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * Delete an object.
+     *
+     * @return false if there was no such object
+     * @throws RuntimeException if the backend failed; the delete can be retried
+     */
+    boolean delete(String key);
+
+    /**
+     * Key of an object by its public URL, or empty if the URL does not belong to this store.
+     */
+    Optional<String> keyOf(String url);
+
+    /**
+     * File of an object served by this application (local backend); empty when the backend serves its own URLs.
+     */
+    Optional<Path> localFile(String key);
+
+    record StoredMedia(String key, String url) {
+    }
+
+    /**
+     * Get file extension based on content type
+     */
+    static String extensionFor(String contentType) {
+        switch (contentType) {
+            case "image/jpeg":
+            case "image/jpg":
+                return ".jpg";
+            case "image/png":
+                return ".png";
+            case "image/gif":
+                return ".gif";
+            case "image/webp":
+                return ".webp";
+            case "video/mp4":
+                return ".mp4";
+            case "video/webm":
+                return ".webm";
+            default:
+                return "";
+        }
+    }
+}
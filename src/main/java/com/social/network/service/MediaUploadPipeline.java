@@ -0,0 +1,110 @@
+package com.social.network.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Uploads the media of a post concurrently on the bounded mediaUploadExecutor, so a post with
+ * many images takes about as long as its slowest image. Deletions go through the
+ * {@link MediaDeletionQueue} outbox and never hold up the request.
+ */
+@Service
+public class MediaUploadPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaUploadPipeline.class);
+
+    private final FirebaseStorageService firebaseStorageService;
+    private final MediaDeletionQueue mediaDeletionQueue;
+    private final ExecutorService executor;
+
+    @Value("${media.upload.timeout-ms:30000}")
+    private long uploadTimeoutMs;
+
+    public MediaUploadPipeline(FirebaseStorageService firebaseStorageService, MediaDeletionQueue mediaDeletionQueue,
+                               @Qualifier("mediaUploadExecutor") ExecutorService executor) {
+        this.firebaseStorageService = firebaseStorageService;
+        this.mediaDeletionQueue = mediaDeletionQueue;
+        this.executor = executor;
+    }
+
+    /**
+     * Upload all images concurrently, each bounded by media.upload.timeout-ms.
+     * If any upload fails or times out, the ones that succeeded (or finish later) are deleted again.
+     *
+     * @return the uploaded URLs, in input order. The caller holds one reference to each, including
+     *         stored media passed in by URL (see {@link FirebaseStorageService#uploadImage})
+     * @throws RuntimeException if any upload failed
+     */
+    public List<String> uploadAll(List<String> base64Images, String folder) {
+        if (base64Images == null || base64Images.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<CompletableFuture<String>> uploads = new ArrayList<>(base64Images.size());
+        for (String base64Image : base64Images) {
+            uploads.add(CompletableFuture.supplyAsync(() -> upload(base64Image, folder), executor));
+        }
+
+        // Timeouts apply to copies so the underlying uploads can still be cleaned up when they finish
+        List<CompletableFuture<String>> bounded = uploads.stream()
+                .map(upload -> upload.copy().orTimeout(uploadTimeoutMs, TimeUnit.MILLISECONDS))
+                .toList();
+        try {
+            CompletableFuture.allOf(bounded.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            for (CompletableFuture<String> upload : uploads) {
+                upload.thenAccept(this::deleteQuietly);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                throw new RuntimeException("Media upload timed out");
+            }
+            throw new RuntimeException("Failed to upload media: " + cause.getMessage());
+        }
+
+        return uploads.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    /**
+     * Delete media once the current transaction commits (right away if there is none). The outbox
+     * entries are written in the transaction, so a rolled-back edit never loses the media it still references.
+     */
+    public void deleteAfterCommit(List<String> urls) {
+        mediaDeletionQueue.enqueue(urls);
+    }
+
+    /**
+     * Delete media in the background.
+     */
+    public void deleteAll(List<String> urls) {
+        mediaDeletionQueue.enqueue(urls);
+    }
+
+    private String upload(String base64Image, String folder) {
+        String url = firebaseStorageService.uploadImage(base64Image, folder);
+        if (url == null) {
+            throw new RuntimeException("empty image");
+        }
+        return url;
+    }
+
+    private void deleteQuietly(String url) {
+        try {
+            mediaDeletionQueue.enqueue(List.of(url));
+        } catch (RuntimeException e) {
+            logger.error("Error queueing deletion of media {}: {}", url, e.getMessage());
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.social.network.entity.Message;
 import com.social.network.entity.User;
 import com.social.network.repository.MessageRepository;
 import com.social.network.repository.UserRepository;
+import com.social.network.security.CurrentUserResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -24,10 +25,11 @@ public class MessageService {
 
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
 
     @Transactional
     public MessageResponse sendMessage(String senderUsername, MessageRequest request) {
-        User sender = userRepository.findByUsername(senderUsername)
+        User sender = currentUserResolver.findByUsername(senderUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("Sender not found"));
 
         User receiver = userRepository.findById(request.getReceiverId())
@@ -45,7 +47,7 @@ public class MessageService {
 
     @Transactional(readOnly = true)
     public List<MessageResponse> getMessagesBetweenUsers(String currentUsername, Long otherUserId) {
-        User currentUser = userRepository.findByUsername(currentUsername)
+        User currentUser = currentUserResolver.findByUsername(currentUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("Current user not found"));
 
         User otherUser = userRepository.findById(otherUserId)
@@ -59,7 +61,7 @@ public class MessageService {
 
     @Transactional
     public void markMessagesAsRead(String currentUsername, Long senderId) {
-        User currentUser = userRepository.findByUsername(currentUsername)
+        User currentUser = currentUserResolver.findByUsername(currentUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("Current user not found"));
 
         User sender = userRepository.findById(senderId)
@@ -77,7 +79,7 @@ public class MessageService {
 
     @Transactional(readOnly = true)
     public List<ConversationResponse> getConversations(String username) {
-        User currentUser = userRepository.findByUsername(username)
+        User currentUser = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
         List<Long> partnerIds = messageRepository.findConversationPartnerIds(currentUser.getId());
         if (partnerIds.isEmpty()) {
@@ -0,0 +1,33 @@
+package com.social.network.service;
+
+import com.google.firebase.messaging.Message;
+
+import java.util.List;
+
+/**
+ * Sends batches of push messages. The active backend is selected with fcm.backend (see
+ * MessagingConfig).
+ */
+public interface MessagingBackend {
+
+    /** Most messages FCM accepts in one sendEach call */
+    int MAX_BATCH_SIZE = 500;
+
+    record Outgoing(String token, Message message) {
+    }
+
+    enum Outcome {
+        SENT,
+        // The token is no longer valid and should be forgotten
+        INVALID_TOKEN,
+        FAILED
+    }
+
+    /**
+     * Send up to {@link #MAX_BATCH_SIZE} messages.
+     *
+     * @return the outcome of each message, in order
+     * @throws RuntimeException if the batch as a whole failed; none of it counts as sent
+     */
+    List<Outcome> sendEach(List<Outgoing> batch);
+}
@@ -1,48 +1,71 @@
 package com.social.network.service;
 
-import com.social.network.entity.EmailOTP;
-import com.social.network.repository.EmailOTPRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.Locale;
 
 @Service
 public class OTPService {
 
-    private final EmailOTPRepository otpRepository;
+    public static final Duration OTP_TTL = Duration.ofMinutes(10);
+
+    private final OtpStore otpStore;
     private final EmailService emailService;
     private final SecureRandom secureRandom;
-    
-    private static final int OTP_LENGTH = 6;
-    private static final int OTP_EXPIRY_MINUTES = 10;
+    // Separate buckets for sending and verifying, so requesting codes doesn't use up verification attempts
+    private final TokenBucketRateLimiter sendsPerEmail;
+    private final TokenBucketRateLimiter sendsPerIp;
+    private final TokenBucketRateLimiter verificationsPerEmail;
+    private final TokenBucketRateLimiter verificationsPerIp;
 
-    public OTPService(EmailOTPRepository otpRepository, @Autowired(required = false) EmailService emailService) {
-        this.otpRepository = otpRepository;
+    public OTPService(OtpStore otpStore,
+                      @Autowired(required = false) EmailService emailService,
+                      @Value("${otp.rate-limit.email.capacity:5}") int emailCapacity,
+                      @Value("${otp.rate-limit.email.refill-per-minute:1}") int emailRefillPerMinute,
+                      @Value("${otp.rate-limit.ip.capacity:20}") int ipCapacity,
+                      @Value("${otp.rate-limit.ip.refill-per-minute:10}") int ipRefillPerMinute,
+                      @Value("${otp.rate-limit.max-keys:100000}") int maxKeys) {
+        this.otpStore = otpStore;
         this.emailService = emailService;
         this.secureRandom = new SecureRandom();
+        this.sendsPerEmail = new TokenBucketRateLimiter(emailCapacity, emailRefillPerMinute, maxKeys);
+        this.sendsPerIp = new TokenBucketRateLimiter(ipCapacity, ipRefillPerMinute, maxKeys);
+        this.verificationsPerEmail = new TokenBucketRateLimiter(emailCapacity, emailRefillPerMinute, maxKeys);
+        this.verificationsPerIp = new TokenBucketRateLimiter(ipCapacity, ipRefillPerMinute, maxKeys);
+    }
+
+    /**
+     * Reject the client if it requested too many codes for the email or from its address.
+     * Applies whether or not the email exists, so the limit reveals nothing about accounts.
+     */
+    public void checkSendAllowed(String email, String clientIp) {
+        if (!sendsPerIp.tryAcquire(clientIp) || !sendsPerEmail.tryAcquire(normalizeEmail(email))) {
+            throw new RateLimitExceededException("Too many OTP requests, please try again later");
+        }
+    }
+
+    /**
+     * Reject the client if it made too many verification attempts for the email or from its
+     * address; six digits would otherwise be brute-forced within the code's lifetime.
+     */
+    public void checkVerifyAllowed(String email, String clientIp) {
+        if (!verificationsPerIp.tryAcquire(clientIp) || !verificationsPerEmail.tryAcquire(normalizeEmail(email))) {
+            throw new RateLimitExceededException("Too many OTP attempts, please try again later");
+        }
     }
 
-    @Transactional
     public void generateAndSendOTP(String email) {
         // Generate 6-digit OTP
         String otp = String.format("%06d", secureRandom.nextInt(1000000));
-        
-        // Delete any existing unverified OTPs for this email
-        otpRepository.deleteByEmail(email);
-        
-        // Create new OTP record
-        EmailOTP emailOTP = new EmailOTP();
-        emailOTP.setEmail(email);
-        emailOTP.setOtp(otp);
-        emailOTP.setExpiresAt(LocalDateTime.now().plusMinutes(OTP_EXPIRY_MINUTES));
-        emailOTP.setVerified(false);
-        
-        otpRepository.save(emailOTP);
-        
+
+        // Replaces any code still pending for this email
+        otpStore.put(normalizeEmail(email), otp, OTP_TTL);
+
         // Send OTP via email if email service is available
         if (emailService != null) {
             emailService.sendOTPEmail(email, otp);
@@ -52,27 +75,20 @@ public class OTPService {
             System.out.println("EMAIL SERVICE NOT CONFIGURED - OTP for testing:");
             System.out.println("Email: " + email);
             System.out.println("OTP: " + otp);
-            System.out.println("Expires at: " + emailOTP.getExpiresAt());
+            System.out.println("Expires at: " + LocalDateTime.now().plus(OTP_TTL));
             System.out.println("=================================================");
         }
     }
 
-    @Transactional
     public boolean verifyOTP(String email, String otp) {
-        Optional<EmailOTP> otpRecord = otpRepository
-            .findByEmailAndOtpAndVerifiedFalseAndExpiresAtAfter(
-                email, 
-                otp, 
-                LocalDateTime.now()
-            );
-        
-        if (otpRecord.isPresent()) {
-            EmailOTP emailOTP = otpRecord.get();
-            emailOTP.setVerified(true);
-            otpRepository.save(emailOTP);
-            return true;
-        }
-        
-        return false;
+        return otp != null && otpStore.consume(normalizeEmail(email), otp);
+    }
+
+    /**
+     * Key for the limits and the store, so differently cased spellings of an address share
+     * one bucket and one code.
+     */
+    static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
     }
 }
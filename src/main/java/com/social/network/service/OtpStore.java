@@ -0,0 +1,21 @@
+package com.social.network.service;
+
+import java.time.Duration;
+
+/**
+ * Pending email verification codes. Selected with otp.store (see OtpStoreConfig).
+ */
+public interface OtpStore {
+
+    /**
+     * Store a code for the email, replacing any code still pending for it.
+     */
+    void put(String email, String otp, Duration ttl);
+
+    /**
+     * Use up the email's pending code if it matches and has not expired.
+     *
+     * @return whether the code was valid
+     */
+    boolean consume(String email, String otp);
+}
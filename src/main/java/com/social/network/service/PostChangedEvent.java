@@ -0,0 +1,41 @@
+package com.social.network.service;
+
+/**
+ * Published when something shown in a {@code PostResponse} changes, so cached post pages can be invalidated.
+ * Listeners run after the publishing transaction commits.
+ */
+public record PostChangedEvent(Type type, Long postId, Long authorId) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        LIKED,
+        COMMENTED,
+        AUTHOR_UPDATED
+    }
+
+    public static PostChangedEvent created(Long postId, Long authorId) {
+        return new PostChangedEvent(Type.CREATED, postId, authorId);
+    }
+
+    public static PostChangedEvent updated(Long postId, Long authorId) {
+        return new PostChangedEvent(Type.UPDATED, postId, authorId);
+    }
+
+    public static PostChangedEvent deleted(Long postId, Long authorId) {
+        return new PostChangedEvent(Type.DELETED, postId, authorId);
+    }
+
+    public static PostChangedEvent liked(Long postId) {
+        return new PostChangedEvent(Type.LIKED, postId, null);
+    }
+
+    public static PostChangedEvent commented(Long postId) {
+        return new PostChangedEvent(Type.COMMENTED, postId, null);
+    }
+
+    public static PostChangedEvent authorUpdated(Long authorId) {
+        return new PostChangedEvent(Type.AUTHOR_UPDATED, null, authorId);
+    }
+}
@@ -0,0 +1,58 @@
+package com.social.network.service;
+
+import com.social.network.repository.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class PostCounterReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostCounterReconciliationService.class);
+
+    private final PostRepository postRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${posts.counters.reconcile-chunk-size:1000}")
+    private int chunkSize;
+
+    public PostCounterReconciliationService(PostRepository postRepository,
+                                            PlatformTransactionManager transactionManager) {
+        this.postRepository = postRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Scheduled task that repairs drift between the denormalized like/comment counters
+     * on posts and the likes/comments tables.
+     *
+     * Posts are walked in id ranges of posts.counters.reconcile-chunk-size, each range in
+     * its own short transaction, so the job never holds locks on the whole table.
+     */
+    @Scheduled(cron = "${posts.counters.reconcile-cron:0 30 3 * * *}") // Default: every day at 03:30
+    public void reconcileCounters() {
+        Long maxId = postRepository.findMaxId();
+        if (maxId == null) {
+            return;
+        }
+
+        logger.info("Starting post counter reconciliation up to post id {}", maxId);
+        int totalRepaired = 0;
+
+        for (long fromId = 0; fromId < maxId; fromId += chunkSize) {
+            long from = fromId;
+            long to = Math.min(fromId + chunkSize, maxId);
+            Integer repaired = transactionTemplate.execute(status -> postRepository.reconcileCounters(from, to));
+            if (repaired != null && repaired > 0) {
+                logger.info("Repaired counters on {} posts with ids in ({}, {}]", repaired, from, to);
+                totalRepaired += repaired;
+            }
+        }
+
+        logger.info("Post counter reconciliation completed. Total posts repaired: {}", totalRepaired);
+    }
+}
@@ -0,0 +1,60 @@
+package com.social.network.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+/**
+ * Normalizes legacy posts with a NULL is_help_section to FALSE.
+ *
+ * The profession feed matches is_help_section = FALSE so it can use its index, which would skip
+ * those posts. New posts never store NULL, so this runs once per startup, before the web server
+ * accepts requests. Rows are updated in id ranges of posts.help-section.backfill-chunk-size, each
+ * range in its own short transaction.
+ */
+@Service
+public class PostHelpSectionBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostHelpSectionBackfillService.class);
+    private static final String SELECT_RANGE_SQL =
+            "SELECT MIN(id) AS min_id, MAX(id) AS max_id FROM posts WHERE is_help_section IS NULL";
+    private static final String BACKFILL_SQL =
+            "UPDATE posts SET is_help_section = FALSE WHERE id > ? AND id <= ? AND is_help_section IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${posts.help-section.backfill-chunk-size:1000}")
+    private int chunkSize;
+
+    public PostHelpSectionBackfillService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void backfill() {
+        Map<String, Object> range = jdbcTemplate.queryForMap(SELECT_RANGE_SQL);
+        if (range.get("min_id") == null) {
+            return;
+        }
+        long minId = ((Number) range.get("min_id")).longValue();
+        long maxId = ((Number) range.get("max_id")).longValue();
+
+        int totalUpdated = 0;
+        for (long fromId = minId - 1; fromId < maxId; fromId += chunkSize) {
+            long from = fromId;
+            long to = Math.min(fromId + chunkSize, maxId);
+            Integer updated = transactionTemplate.execute(status -> jdbcTemplate.update(BACKFILL_SQL, from, to));
+            totalUpdated += updated != null ? updated : 0;
+        }
+        logger.info("Set is_help_section = FALSE on {} legacy posts", totalUpdated);
+    }
+}
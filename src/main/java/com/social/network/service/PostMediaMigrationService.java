@@ -0,0 +1,116 @@
+package com.social.network.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Online backfill of post media from the legacy posts.media_urls string into post_media.
+ *
+ * Rows are moved in id order, posts.media.migration-chunk-size at a time, each chunk in its own
+ * short transaction, so the migration runs while the application serves traffic. Until a post
+ * is migrated PostService renders its media from the legacy string.
+ */
+@Service
+public class PostMediaMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostMediaMigrationService.class);
+    private static final Pattern LEGACY_SEPARATOR = Pattern.compile(Pattern.quote("|||MEDIA_SEPARATOR|||"));
+    private static final String SELECT_CHUNK_SQL =
+            "SELECT id, media_urls FROM posts WHERE media_urls IS NOT NULL AND id > ? ORDER BY id LIMIT ?";
+    // Only clears the string if nobody changed it since it was read; the row stays locked until commit
+    private static final String CLEAR_LEGACY_SQL = "UPDATE posts SET media_urls = NULL WHERE id = ? AND media_urls = ?";
+    private static final String INSERT_MEDIA_SQL = "INSERT INTO post_media (post_id, position, media_url) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    // New posts never write the legacy column, so once a run finds nothing there is nothing left to do
+    private volatile boolean completed;
+
+    @Value("${posts.media.migration-chunk-size:500}")
+    private int chunkSize;
+
+    public PostMediaMigrationService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Split a legacy media_urls value into its URLs.
+     */
+    public static List<String> splitLegacyMediaUrls(String legacyMediaUrls) {
+        if (legacyMediaUrls == null || legacyMediaUrls.isEmpty()) {
+            return List.of();
+        }
+        return List.of(LEGACY_SEPARATOR.split(legacyMediaUrls));
+    }
+
+    /**
+     * Scheduled task that migrates every post still carrying legacy media.
+     */
+    @Scheduled(initialDelayString = "${posts.media.migration-initial-delay-ms:30000}",
+               fixedDelayString = "${posts.media.migration-interval-ms:3600000}")
+    public void migrateLegacyMedia() {
+        if (completed) {
+            return;
+        }
+        long afterId = 0;
+        int totalMigrated = 0;
+        boolean foundLegacyMedia = false;
+
+        while (true) {
+            long from = afterId;
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(SELECT_CHUNK_SQL, from, chunkSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            foundLegacyMedia = true;
+            Integer migrated = transactionTemplate.execute(status -> migrateChunk(rows));
+            totalMigrated += migrated != null ? migrated : 0;
+            afterId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+        }
+
+        if (foundLegacyMedia) {
+            logger.info("Migrated legacy media of {} posts into post_media", totalMigrated);
+        } else {
+            completed = true;
+            logger.info("Legacy post media migration complete");
+        }
+    }
+
+    private int migrateChunk(List<Map<String, Object>> rows) {
+        List<Object[]> claims = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            claims.add(new Object[]{row.get("id"), row.get("media_urls")});
+        }
+        int[] claimed = jdbcTemplate.batchUpdate(CLEAR_LEGACY_SQL, claims);
+
+        List<Object[]> media = new ArrayList<>();
+        int migrated = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (claimed[i] == 0) {
+                continue; // Edited concurrently; the edit already replaced the media
+            }
+            migrated++;
+            Object postId = rows.get(i).get("id");
+            List<String> urls = splitLegacyMediaUrls((String) rows.get(i).get("media_urls"));
+            for (int position = 0; position < urls.size(); position++) {
+                media.add(new Object[]{postId, position, urls.get(position)});
+            }
+        }
+        if (!media.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MEDIA_SQL, media);
+        }
+        return migrated;
+    }
+}
@@ -0,0 +1,166 @@
+package com.social.network.service;
+
+import com.social.network.dto.PostPageResponse;
+import com.social.network.dto.PostResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Cache of viewer-independent post pages (the same for every visitor: counts, authors, media).
+ *
+ * The first tier is a bounded in-process LRU map with a TTL (posts.cache.max-entries,
+ * posts.cache.ttl-seconds); an optional {@link PostResponseCacheTier} bean adds a second tier.
+ * Callers always get a copy, so overlaying viewer-specific state (the {@code liked} flag,
+ * buffered like toggles) never leaks into the cache.
+ *
+ * Invalidation is driven by {@link PostChangedEvent}s after commit: new or edited posts clear
+ * every page, likes, comments and deletes only evict the pages that contain the post. Pages
+ * loaded concurrently with an invalidation are not stored, so a read that raced a write cannot
+ * put stale data back. With several instances only the second tier is shared; the first tier
+ * of the other instances converges within the TTL.
+ */
+@Component
+public class PostResponseCache {
+
+    private final PostResponseCacheTier secondTier;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped on every invalidation; a load that started before the bump is not cached
+    private long generation;
+
+    @Value("${posts.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${posts.cache.max-entries:200}")
+    private int maxEntries;
+
+    @Value("${posts.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    public PostResponseCache(Optional<PostResponseCacheTier> secondTier) {
+        this.secondTier = secondTier.orElse(null);
+    }
+
+    /**
+     * Cached page for the key, loading and caching it on a miss.
+     *
+     * @return a copy the caller is free to modify
+     */
+    public PostPageResponse getOrLoad(String key, Supplier<PostPageResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        long stamp;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                return copy(entry.page);
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+            stamp = generation;
+        }
+
+        PostPageResponse page = secondTier != null ? secondTier.get(key) : null;
+        boolean loaded = page == null;
+        if (loaded) {
+            page = loader.get();
+        }
+        PostPageResponse cached = copy(page);
+
+        synchronized (this) {
+            if (stamp != generation) {
+                return page; // Invalidated while loading; serve it once but don't cache it
+            }
+            entries.put(key, new Entry(cached, System.currentTimeMillis() + ttlSeconds * 1000));
+            if (entries.size() > maxEntries) {
+                entries.remove(entries.keySet().iterator().next()); // Least recently used
+            }
+        }
+        if (loaded && secondTier != null) {
+            secondTier.put(key, cached, Duration.ofSeconds(ttlSeconds));
+        }
+        return page;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        switch (event.type()) {
+            case CREATED, UPDATED -> clear();
+            case DELETED, LIKED, COMMENTED -> evictPost(event.postId());
+            case AUTHOR_UPDATED -> evictAuthor(event.authorId());
+        }
+    }
+
+    public void clear() {
+        synchronized (this) {
+            generation++;
+            entries.clear();
+        }
+        if (secondTier != null) {
+            secondTier.clear();
+        }
+    }
+
+    private void evictPost(Long postId) {
+        synchronized (this) {
+            generation++;
+            entries.values().removeIf(entry -> entry.postIds.contains(postId));
+        }
+        if (secondTier != null) {
+            secondTier.evictPost(postId);
+        }
+    }
+
+    private void evictAuthor(Long authorId) {
+        synchronized (this) {
+            generation++;
+            entries.values().removeIf(entry -> entry.authorIds.contains(authorId));
+        }
+        if (secondTier != null) {
+            secondTier.evictAuthor(authorId);
+        }
+    }
+
+    private static PostPageResponse copy(PostPageResponse page) {
+        List<PostResponse> posts = new ArrayList<>(page.getPosts().size());
+        for (PostResponse post : page.getPosts()) {
+            posts.add(new PostResponse(post.getId(), post.getContent(), post.getIsHelpSection(), post.getIsSolved(),
+                    post.getShowInHome(), post.getMediaUrls(), post.getMediaVariants(), post.getUserId(), post.getUsername(),
+                    post.getUserProfession(), post.getUserProfilePicture(), post.getCreatedAt(),
+                    post.getLikeCount(), post.getCommentCount(), false));
+        }
+        return new PostPageResponse(posts, page.getNextCursor(), page.isHasMore());
+    }
+
+    private static final class Entry {
+        private final PostPageResponse page;
+        private final long expiresAt;
+        private final Set<Long> postIds = new HashSet<>();
+        private final Set<Long> authorIds = new HashSet<>();
+
+        private Entry(PostPageResponse page, long expiresAt) {
+            this.page = page;
+            this.expiresAt = expiresAt;
+            for (PostResponse post : page.getPosts()) {
+                postIds.add(post.getId());
+                authorIds.add(post.getUserId());
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.social.network.service;
+
+import com.social.network.dto.PostPageResponse;
+
+import java.time.Duration;
+
+/**
+ * Optional second cache tier behind the in-process post page cache (e.g. Redis shared by all instances).
+ * Register a bean implementing this interface to enable it.
+ *
+ * Pages stored here are viewer-independent: {@code liked} is always false.
+ */
+public interface PostResponseCacheTier {
+
+    PostPageResponse get(String key);
+
+    void put(String key, PostPageResponse page, Duration ttl);
+
+    /**
+     * Drop every cached page that contains the post.
+     */
+    void evictPost(Long postId);
+
+    /**
+     * Drop every cached page that contains a post by the author.
+     */
+    void evictAuthor(Long authorId);
+
+    void clear();
+}
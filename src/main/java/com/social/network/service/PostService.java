@@ -1,5 +1,7 @@
 package com.social.network.service;
 
+import com.social.network.dto.MediaVariants;
+import com.social.network.dto.PostPageResponse;
 import com.social.network.dto.PostRequest;
 import com.social.network.dto.PostResponse;
 import com.social.network.entity.Post;
@@ -8,32 +10,76 @@ import com.social.network.repository.CommentRepository;
 import com.social.network.repository.LikeRepository;
 import com.social.network.repository.PostRepository;
 import com.social.network.repository.UserRepository;
+import com.social.network.security.CurrentUserResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class PostService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PostService.class);
+
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final CurrentUserResolver currentUserResolver;
     private final LikeRepository likeRepository;
     private final CommentRepository commentRepository;
-    private final FirebaseStorageService firebaseStorageService;
+    private final MediaUploadPipeline mediaUploadPipeline;
+    private final MediaService mediaService;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final TimelineService timelineService;
+    private final PostResponseCache postResponseCache;
+    private final AvatarService avatarService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${posts.feed.page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${posts.feed.max-page-size:100}")
+    private int maxPageSize;
 
     public PostService(PostRepository postRepository, UserRepository userRepository,
-                       LikeRepository likeRepository, CommentRepository commentRepository,
-                       FirebaseStorageService firebaseStorageService) {
+                       CurrentUserResolver currentUserResolver, LikeRepository likeRepository,
+                       CommentRepository commentRepository,
+                       MediaUploadPipeline mediaUploadPipeline, MediaService mediaService,
+                       LikeWriteBuffer likeWriteBuffer, TimelineService timelineService,
+                       PostResponseCache postResponseCache, AvatarService avatarService,
+                       ApplicationEventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
+        this.currentUserResolver = currentUserResolver;
         this.likeRepository = likeRepository;
         this.commentRepository = commentRepository;
-        this.firebaseStorageService = firebaseStorageService;
+        this.mediaUploadPipeline = mediaUploadPipeline;
+        this.mediaService = mediaService;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.timelineService = timelineService;
+        this.postResponseCache = postResponseCache;
+        this.avatarService = avatarService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public PostResponse createPost(String username, PostRequest postRequest) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         if (!user.getProfileCompleted()) {
@@ -42,116 +88,198 @@ public class PostService {
 
         Post post = new Post();
         post.setContent(postRequest.getContent());
-        post.setIsHelpSection(postRequest.getIsHelpSection());
+        post.setIsHelpSection(Boolean.TRUE.equals(postRequest.getIsHelpSection())); // Never null, the feed indexes rely on it
         post.setShowInHome(postRequest.getShowInHome());
         post.setUser(user);
         post.setUserProfession(user.getProfession());
         
-        // Handle media URLs - upload to Firebase Storage
-        if (postRequest.getMediaUrls() != null && !postRequest.getMediaUrls().isEmpty()) {
-            java.util.List<String> uploadedUrls = new java.util.ArrayList<>();
-            
-            for (String mediaUrl : postRequest.getMediaUrls()) {
-                // Upload each media file to Firebase Storage
-                String uploadedUrl = firebaseStorageService.uploadImage(mediaUrl, "posts");
-                uploadedUrls.add(uploadedUrl);
-            }
-            
-            // Use a delimiter that won't appear in URLs
-            post.setMediaUrls(String.join("|||MEDIA_SEPARATOR|||", uploadedUrls));
+        // Every attachment holds one reference. Legacy inline base64 media is uploaded concurrently
+        // and released again if the post is not saved; uploads referenced by id are attached in the
+        // transaction that saves the post
+        List<String> uploadedUrls = mediaUploadPipeline.uploadAll(postRequest.getMediaUrls(), "posts");
+
+        Post savedPost;
+        try {
+            savedPost = transactionTemplate.execute(status -> {
+                List<String> mediaUrls = attachMediaIds(user, postRequest);
+                mediaUrls.addAll(uploadedUrls);
+                post.setMediaUrls(mediaUrls);
+                return postRepository.save(post);
+            });
+        } catch (RuntimeException e) {
+            mediaUploadPipeline.deleteAll(uploadedUrls);
+            throw e;
         }
 
-        Post savedPost = postRepository.save(post);
+        try {
+            timelineService.fanOut(savedPost);
+        } catch (Exception e) {
+            // Log error but don't fail post creation; the post is still in the global feeds
+            logger.error("Error fanning out post {} to follower timelines: {}", savedPost.getId(), e.getMessage(), e);
+        }
+        eventPublisher.publishEvent(PostChangedEvent.created(savedPost.getId(), user.getId()));
 
         return convertToResponse(savedPost, user);
     }
 
+    @Transactional(readOnly = true)
     public List<PostResponse> getAllPosts() {
-        return postRepository.findByShowInHomeTrueOrderByCreatedAtDesc()
-                .stream()
-                .map(post -> convertToResponse(post, null))
-                .collect(Collectors.toList());
+        return cachedPosts("all", postRepository::findByShowInHomeTrueOrderByCreatedAtDesc, null);
     }
 
+    @Transactional(readOnly = true)
     public List<PostResponse> getAllPostsForUser(String username) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        return postRepository.findByShowInHomeTrueOrderByCreatedAtDesc()
-                .stream()
-                .map(post -> convertToResponse(post, user))
-                .collect(Collectors.toList());
+        return cachedPosts("all", postRepository::findByShowInHomeTrueOrderByCreatedAtDesc, user);
+    }
+
+    /**
+     * Keyset-paginated home feed. Pass the previous page's nextCursor to continue;
+     * a null cursor starts from the newest post.
+     *
+     * @param username the viewer, or null for anonymous requests
+     */
+    @Transactional(readOnly = true)
+    public PostPageResponse getHomeFeedPage(String username, String cursor, Integer limit) {
+        User user = username != null ? currentUserResolver.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found")) : null;
+        FeedCursor feedCursor = FeedCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
+
+        // Fetch one extra row to learn whether another page exists without a count query
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        return cachedPage("home:" + pageSize + ":" + cursor, () -> feedCursor == null
+                ? postRepository.findHomeFeed(pageRequest)
+                : postRepository.findHomeFeedBefore(feedCursor.getCreatedAt(), feedCursor.getId(), pageRequest),
+                pageSize, user);
+    }
+
+    /**
+     * Keyset-paginated timeline of posts from accounts the user follows (and their own posts).
+     */
+    @Transactional(readOnly = true)
+    public PostPageResponse getFollowingFeedPage(String username, String cursor, Integer limit) {
+        User user = currentUserResolver.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        FeedCursor feedCursor = FeedCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
+
+        List<Post> posts = timelineService.getTimelinePosts(user.getId(), feedCursor, pageSize + 1);
+        return toPage(posts, pageSize, user);
     }
 
+    /**
+     * The newest posts.feed.max-page-size posts of the user's profession; older ones are reached
+     * through {@link #getProfessionFeedPage}.
+     */
+    @Transactional(readOnly = true)
     public List<PostResponse> getPostsByProfession(String username) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         if (user.getProfession() == null || user.getProfession().isEmpty()) {
             throw new RuntimeException("User profession not set");
         }
 
-        return postRepository.findByUserProfessionOrderByCreatedAtDesc(user.getProfession())
-                .stream()
-                .filter(post -> post.getIsHelpSection() == null || !post.getIsHelpSection()) // Exclude help posts
-                .map(post -> convertToResponse(post, user))
-                .collect(Collectors.toList());
+        // Help posts are excluded by the query itself
+        String profession = user.getProfession();
+        return cachedPosts("profession:" + profession,
+                () -> postRepository.findProfessionFeed(profession, PageRequest.of(0, maxPageSize)), user);
     }
 
+    /**
+     * Keyset-paginated profession feed (help posts excluded).
+     */
+    @Transactional(readOnly = true)
+    public PostPageResponse getProfessionFeedPage(String username, String cursor, Integer limit) {
+        User user = currentUserResolver.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (user.getProfession() == null || user.getProfession().isEmpty()) {
+            throw new RuntimeException("User profession not set");
+        }
+
+        FeedCursor feedCursor = FeedCursor.decode(cursor);
+        int pageSize = resolvePageSize(limit);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        String profession = user.getProfession();
+        return cachedPage("profession:" + profession + ":" + pageSize + ":" + cursor, () -> feedCursor == null
+                ? postRepository.findProfessionFeed(profession, pageRequest)
+                : postRepository.findProfessionFeedBefore(profession, feedCursor.getCreatedAt(), feedCursor.getId(), pageRequest),
+                pageSize, user);
+    }
+
+    @Transactional(readOnly = true)
     public List<PostResponse> getHelpPosts() {
-        return postRepository.findByIsHelpSectionTrueOrderByCreatedAtDesc()
-                .stream()
-                .map(post -> convertToResponse(post, null))
-                .collect(Collectors.toList());
+        return cachedPosts("help", postRepository::findByIsHelpSectionTrueOrderByCreatedAtDesc, null);
     }
 
+    @Transactional(readOnly = true)
     public List<PostResponse> getHelpPostsForUser(String username) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        return postRepository.findByIsHelpSectionTrueOrderByCreatedAtDesc()
-                .stream()
-                .map(post -> convertToResponse(post, user))
-                .collect(Collectors.toList());
+        return cachedPosts("help", postRepository::findByIsHelpSectionTrueOrderByCreatedAtDesc, user);
     }
 
+    @Transactional(readOnly = true)
     public PostResponse getPostById(Long postId, String username) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
-        User user = username != null ? userRepository.findByUsername(username).orElse(null) : null;
+        User user = username != null ? currentUserResolver.findByUsername(username).orElse(null) : null;
         return convertToResponse(post, user);
     }
 
+    @Transactional
     public void toggleLike(Long postId, String username) {
+        if (likeWriteBuffer.isEnabled()) {
+            toggleLikeBuffered(postId, username);
+            return;
+        }
+
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         likeRepository.findByPostAndUser(post, user).ifPresentOrElse(
-                likeRepository::delete,
+                like -> {
+                    likeRepository.delete(like);
+                    postRepository.adjustLikeCount(postId, -1);
+                },
                 () -> {
                     com.social.network.entity.Like like = new com.social.network.entity.Like();
                     like.setPost(post);
                     like.setUser(user);
                     likeRepository.save(like);
+                    postRepository.adjustLikeCount(postId, 1);
                 }
         );
+        eventPublisher.publishEvent(PostChangedEvent.liked(postId));
     }
 
+    private void toggleLikeBuffered(Long postId, String username) {
+        if (!postRepository.existsById(postId)) {
+            throw new RuntimeException("Post not found");
+        }
+        User user = currentUserResolver.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        likeWriteBuffer.toggle(postId, user.getId());
+    }
+
+    @Transactional(readOnly = true)
     public List<PostResponse> getPostsByUserId(Long userId, String currentUsername) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        User currentUser = currentUsername != null ? userRepository.findByUsername(currentUsername).orElse(null) : null;
+        User currentUser = currentUsername != null ? currentUserResolver.findByUsername(currentUsername).orElse(null) : null;
         
-        return postRepository.findByUserOrderByCreatedAtDesc(user)
-                .stream()
-                .map(post -> convertToResponse(post, currentUser))
-                .collect(Collectors.toList());
+        return cachedPosts("user:" + userId, () -> postRepository.findByUserOrderByCreatedAtDesc(user), currentUser);
     }
 
     public void markAsSolved(Long postId, String username) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Only the post author can mark as solved
@@ -166,60 +294,90 @@ public class PostService {
 
         post.setIsSolved(!post.getIsSolved()); // Toggle solved status
         postRepository.save(post);
+        eventPublisher.publishEvent(PostChangedEvent.updated(postId, user.getId()));
     }
 
+    /**
+     * Like createPost, legacy inline media is uploaded with no transaction open: the ownership
+     * check and the diff against the post's media run in a short read, the post is saved in a
+     * second transaction, and the fresh uploads are released if that fails.
+     */
     public PostResponse updatePost(Long postId, String username, PostRequest postRequest) {
+        // New media replaces the old. URLs the post already has keep their reference (that also covers
+        // media stored before the media index, which can't take another); everything else is attached
+        // with a new one, and the references of the old media not kept are released after commit
+        List<String> inputs = postRequest.getMediaUrls() != null ? postRequest.getMediaUrls() : List.of();
+        List<String> toUpload = transactionTemplate.execute(status ->
+                mediaToUpload(findOwnPost(postId, username), inputs));
+        List<String> uploadedUrls = mediaUploadPipeline.uploadAll(toUpload, "posts");
+
+        try {
+            return transactionTemplate.execute(status -> {
+                Post post = findOwnPost(postId, username);
+                User user = post.getUser();
+                if (!mediaToUpload(post, inputs).equals(toUpload)) {
+                    throw new RuntimeException("Post was modified meanwhile, please retry");
+                }
+
+                post.setContent(postRequest.getContent());
+                post.setIsHelpSection(Boolean.TRUE.equals(postRequest.getIsHelpSection()));
+                post.setShowInHome(postRequest.getShowInHome());
+
+                List<String> newMediaUrls = attachMediaIds(user, postRequest);
+                List<String> removedUrls = new ArrayList<>(mediaUrlsOf(post));
+                Iterator<String> uploaded = uploadedUrls.iterator();
+                for (String input : inputs) {
+                    newMediaUrls.add(removedUrls.remove(input) ? input : uploaded.next());
+                }
+                mediaUploadPipeline.deleteAfterCommit(removedUrls);
+                if (post.getLegacyMediaUrls() != null) {
+                    postRepository.clearLegacyMediaUrls(postId);
+                }
+                // Replace rather than mutate the collection so Hibernate rewrites post_media wholesale
+                post.setMediaUrls(newMediaUrls);
+
+                Post updatedPost = postRepository.save(post);
+                eventPublisher.publishEvent(PostChangedEvent.updated(postId, user.getId()));
+                return convertToResponse(updatedPost, user);
+            });
+        } catch (RuntimeException e) {
+            mediaUploadPipeline.deleteAll(uploadedUrls);
+            throw e;
+        }
+    }
+
+    private Post findOwnPost(Long postId, String username) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Only the post author can update
         if (!post.getUser().getId().equals(user.getId())) {
             throw new RuntimeException("You can only update your own posts");
         }
+        return post;
+    }
 
-        post.setContent(postRequest.getContent());
-        post.setIsHelpSection(postRequest.getIsHelpSection());
-        post.setShowInHome(postRequest.getShowInHome());
-        
-        // Handle media URLs
-        if (postRequest.getMediaUrls() != null && !postRequest.getMediaUrls().isEmpty()) {
-            // Delete old media from Firebase Storage if it exists
-            if (post.getMediaUrls() != null && !post.getMediaUrls().isEmpty()) {
-                String[] oldUrls = post.getMediaUrls().split("\\|\\|\\|MEDIA_SEPARATOR\\|\\|\\|");
-                for (String oldUrl : oldUrls) {
-                    firebaseStorageService.deleteImage(oldUrl);
-                }
+    /**
+     * The inputs that are not media of the post yet, in order, each existing URL matching once.
+     */
+    private List<String> mediaToUpload(Post post, List<String> inputs) {
+        List<String> currentUrls = new ArrayList<>(mediaUrlsOf(post));
+        List<String> toUpload = new ArrayList<>();
+        for (String input : inputs) {
+            if (!currentUrls.remove(input)) {
+                toUpload.add(input);
             }
-            
-            // Upload new media to Firebase Storage
-            java.util.List<String> uploadedUrls = new java.util.ArrayList<>();
-            for (String mediaUrl : postRequest.getMediaUrls()) {
-                String uploadedUrl = firebaseStorageService.uploadImage(mediaUrl, "posts");
-                uploadedUrls.add(uploadedUrl);
-            }
-            
-            post.setMediaUrls(String.join("|||MEDIA_SEPARATOR|||", uploadedUrls));
-        } else {
-            // If no new media provided, delete old media
-            if (post.getMediaUrls() != null && !post.getMediaUrls().isEmpty()) {
-                String[] oldUrls = post.getMediaUrls().split("\\|\\|\\|MEDIA_SEPARATOR\\|\\|\\|");
-                for (String oldUrl : oldUrls) {
-                    firebaseStorageService.deleteImage(oldUrl);
-                }
-            }
-            post.setMediaUrls(null);
         }
-
-        Post updatedPost = postRepository.save(post);
-        return convertToResponse(updatedPost, user);
+        return toUpload;
     }
 
+    @Transactional
     public void deletePost(Long postId, String username) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Only the post author can delete
@@ -227,39 +385,161 @@ public class PostService {
             throw new RuntimeException("You can only delete your own posts");
         }
 
-        // Delete media from Firebase Storage if it exists
-        if (post.getMediaUrls() != null && !post.getMediaUrls().isEmpty()) {
-            String[] mediaUrls = post.getMediaUrls().split("\\|\\|\\|MEDIA_SEPARATOR\\|\\|\\|");
-            for (String mediaUrl : mediaUrls) {
-                firebaseStorageService.deleteImage(mediaUrl);
-            }
-        }
+        // Release the reference each attachment holds; the outbox entries commit with the delete
+        mediaUploadPipeline.deleteAfterCommit(mediaUrlsOf(post));
 
+        timelineService.removePost(post.getId());
         postRepository.delete(post);
+        eventPublisher.publishEvent(PostChangedEvent.deleted(postId, user.getId()));
+    }
+
+    /**
+     * Attach the uploads referenced by id (POST /api/media) and return their URLs. Legacy inline
+     * base64 images are appended after them. Must run in the transaction that saves the post.
+     */
+    private List<String> attachMediaIds(User user, PostRequest postRequest) {
+        if (postRequest.getMediaIds() == null || postRequest.getMediaIds().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(mediaService.attachUploads(user, postRequest.getMediaIds()));
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private PostPageResponse toPage(List<Post> posts, int pageSize, User currentUser) {
+        PostPageResponse page = toBasePage(posts, pageSize);
+        applyViewerState(page.getPosts(), currentUser);
+        return page;
+    }
+
+    private PostPageResponse toBasePage(List<Post> posts, int pageSize) {
+        boolean hasMore = posts.size() > pageSize;
+        List<Post> page = hasMore ? posts.subList(0, pageSize) : posts;
+        String nextCursor = hasMore ? FeedCursor.of(page.get(page.size() - 1)).encode() : null;
+
+        return new PostPageResponse(toBaseResponses(page), nextCursor, hasMore);
+    }
+
+    /**
+     * Viewer-independent responses come from {@link PostResponseCache}; only the viewer state is computed per request.
+     */
+    private List<PostResponse> cachedPosts(String cacheKey, Supplier<List<Post>> query, User currentUser) {
+        List<PostResponse> responses = postResponseCache.getOrLoad(cacheKey,
+                () -> new PostPageResponse(toBaseResponses(query.get()), null, false)).getPosts();
+        applyViewerState(responses, currentUser);
+        return responses;
+    }
+
+    private PostPageResponse cachedPage(String cacheKey, Supplier<List<Post>> query, int pageSize, User currentUser) {
+        PostPageResponse page = postResponseCache.getOrLoad(cacheKey, () -> toBasePage(query.get(), pageSize));
+        applyViewerState(page.getPosts(), currentUser);
+        return page;
     }
 
     private PostResponse convertToResponse(Post post, User currentUser) {
-        PostResponse response = new PostResponse();
-        response.setId(post.getId());
-        response.setContent(post.getContent());
-        response.setIsHelpSection(post.getIsHelpSection());
-        response.setIsSolved(post.getIsSolved());
-        response.setShowInHome(post.getShowInHome());
-        
-        // Parse media URLs
+        return convertToResponses(List.of(post), currentUser).get(0);
+    }
+
+    /**
+     * Render a page of posts with a fixed number of queries regardless of page size:
+     * counts come from the denormalized post columns and "liked by viewer" is a single lookup.
+     * Authors are expected to be fetch-joined by the repository query.
+     */
+    private List<PostResponse> convertToResponses(List<Post> posts, User currentUser) {
+        List<PostResponse> responses = toBaseResponses(posts);
+        applyViewerState(responses, currentUser);
+        return responses;
+    }
+
+    /**
+     * Viewer-independent part of the response; {@code liked} is left false.
+     */
+    private List<PostResponse> toBaseResponses(List<Post> posts) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<List<String>> mediaByPost = posts.stream().map(this::mediaUrlsOf).toList();
+        Set<String> allMediaUrls = mediaByPost.stream().flatMap(List::stream).collect(Collectors.toSet());
+        // One lookup for the variants of every image on the page
+        Map<String, MediaVariants> variants = allMediaUrls.isEmpty() ? Map.of() : mediaService.findVariants(allMediaUrls);
+
+        List<PostResponse> responses = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            Post post = posts.get(i);
+            PostResponse response = new PostResponse();
+            response.setId(post.getId());
+            response.setContent(post.getContent());
+            response.setIsHelpSection(post.getIsHelpSection());
+            response.setIsSolved(post.getIsSolved());
+            response.setShowInHome(post.getShowInHome());
+
+            List<String> mediaUrls = mediaByPost.get(i);
+            if (!mediaUrls.isEmpty()) {
+                response.setMediaUrls(mediaUrls);
+                response.setMediaVariants(mediaUrls.stream()
+                        .map(url -> variants.getOrDefault(url, MediaVariants.original(url)))
+                        .toList());
+            }
+
+            response.setUserId(post.getUser().getId());
+            response.setUsername(post.getUser().getUsername());
+            response.setUserProfession(post.getUserProfession());
+            response.setUserProfilePicture(avatarService.avatarUrl(post.getUser()));
+            response.setCreatedAt(post.getCreatedAt());
+            response.setLikeCount(post.getLikeCount() != null ? post.getLikeCount() : 0L);
+            response.setCommentCount(post.getCommentCount() != null ? post.getCommentCount() : 0L);
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    /**
+     * Media from post_media, or from the legacy string for posts PostMediaMigrationService has not reached yet.
+     * post_media is lazy and batch-fetched, so rendering a page loads it in a few IN queries.
+     */
+    private List<String> mediaUrlsOf(Post post) {
         if (post.getMediaUrls() != null && !post.getMediaUrls().isEmpty()) {
-            response.setMediaUrls(List.of(post.getMediaUrls().split("\\|\\|\\|MEDIA_SEPARATOR\\|\\|\\|")));
+            return List.copyOf(post.getMediaUrls());
         }
-        
-        response.setUserId(post.getUser().getId());
-        response.setUsername(post.getUser().getUsername());
-        response.setUserProfession(post.getUserProfession());
-        response.setUserProfilePicture(post.getUser().getProfilePicture());
-        response.setCreatedAt(post.getCreatedAt());
-        response.setLikeCount(likeRepository.countByPost(post));
-        response.setCommentCount(commentRepository.countByPost(post));
-        response.setLiked(currentUser != null && likeRepository.existsByPostAndUser(post, currentUser));
-        return response;
+        return PostMediaMigrationService.splitLegacyMediaUrls(post.getLegacyMediaUrls());
     }
-}
 
+    /**
+     * Overlay state that is not in the post rows: like toggles still sitting in the write-behind
+     * buffer, and the viewer-specific {@code liked} flag (a single IN query).
+     */
+    private void applyViewerState(List<PostResponse> responses, User currentUser) {
+        if (responses.isEmpty()) {
+            return;
+        }
+
+        if (likeWriteBuffer.isEnabled()) {
+            for (PostResponse response : responses) {
+                long pendingDelta = likeWriteBuffer.pendingLikeDelta(response.getId());
+                if (pendingDelta != 0) {
+                    response.setLikeCount(Math.max(0, response.getLikeCount() + pendingDelta));
+                }
+            }
+        }
+
+        if (currentUser == null) {
+            return;
+        }
+
+        List<Long> postIds = responses.stream().map(PostResponse::getId).collect(Collectors.toList());
+        Set<Long> likedPostIds = new HashSet<>(likeRepository.findLikedPostIds(currentUser.getId(), postIds));
+        for (PostResponse response : responses) {
+            boolean liked = likedPostIds.contains(response.getId());
+            if (likeWriteBuffer.isEnabled()) {
+                liked = likeWriteBuffer.pendingState(response.getId(), currentUser.getId()).orElse(liked);
+            }
+            response.setLiked(liked);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.social.network.service;
+
+/**
+ * Thrown when a caller exceeds a rate limit; controllers answer 429 Too Many Requests.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    public RateLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -2,6 +2,7 @@ package com.social.network.service;
 
 import com.social.network.entity.SosAlert;
 import com.social.network.repository.SosAlertRepository;
+import com.social.network.repository.SosDispatchRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -17,9 +18,15 @@ public class SosAlertCleanupService {
     private static final Logger logger = LoggerFactory.getLogger(SosAlertCleanupService.class);
 
     private final SosAlertRepository sosAlertRepository;
+    private final SosDispatchRepository sosDispatchRepository;
+    private final ActiveSosAlertIndex activeAlertIndex;
 
-    public SosAlertCleanupService(SosAlertRepository sosAlertRepository) {
+    public SosAlertCleanupService(SosAlertRepository sosAlertRepository,
+                                  SosDispatchRepository sosDispatchRepository,
+                                  ActiveSosAlertIndex activeAlertIndex) {
         this.sosAlertRepository = sosAlertRepository;
+        this.sosDispatchRepository = sosDispatchRepository;
+        this.activeAlertIndex = activeAlertIndex;
     }
 
     /**
@@ -67,7 +74,10 @@ public class SosAlertCleanupService {
             emergencyType, threshold);
         
         if (!oldAlerts.isEmpty()) {
+            List<Long> alertIds = oldAlerts.stream().map(SosAlert::getId).toList();
             sosAlertRepository.deleteAll(oldAlerts);
+            sosDispatchRepository.deleteByAlertIds(alertIds);
+            activeAlertIndex.removeAll(alertIds);
             logger.info("Deleted {} {} alerts older than {}", 
                 oldAlerts.size(), emergencyType, threshold);
             return oldAlerts.size();
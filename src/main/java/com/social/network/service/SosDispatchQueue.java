@@ -0,0 +1,58 @@
+package com.social.network.service;
+
+import com.social.network.dto.SosDispatchResponse;
+import com.social.network.entity.SosAlert;
+import com.social.network.entity.SosDispatch;
+import com.social.network.repository.SosDispatchRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Persistent queue of SOS alerts to push, drained by {@link SosDispatchWorker}. Enqueueing is a
+ * single insert in the transaction that creates the alert, so the alert is returned without
+ * waiting on the fan-out and an alert that committed is always pushed, even if the instance
+ * dies before the worker gets to it.
+ */
+@Service
+public class SosDispatchQueue {
+
+    private final SosDispatchRepository sosDispatchRepository;
+
+    public SosDispatchQueue(SosDispatchRepository sosDispatchRepository) {
+        this.sosDispatchRepository = sosDispatchRepository;
+    }
+
+    public void enqueue(SosAlert alert) {
+        SosDispatch dispatch = new SosDispatch();
+        dispatch.setAlertId(alert.getId());
+        dispatch.setPriority(priority(alert.getEmergencyType()));
+        dispatch.setNextAttemptAt(LocalDateTime.now());
+        sosDispatchRepository.save(dispatch);
+    }
+
+    public Optional<SosDispatchResponse> progress(Long alertId) {
+        return sosDispatchRepository.findByAlertId(alertId).map(dispatch -> new SosDispatchResponse(
+                dispatch.getAlertId(),
+                dispatch.getCompletedAt() != null ? "COMPLETED" : dispatch.getAttempts() > 0 ? "IN_PROGRESS" : "PENDING",
+                dispatch.getTotalRecipients(),
+                dispatch.getSentCount(),
+                dispatch.getFailedCount(),
+                dispatch.getAttempts(),
+                dispatch.getCreatedAt(),
+                dispatch.getCompletedAt()
+        ));
+    }
+
+    /**
+     * Dispatches of threats to life go out first when the worker is backed up.
+     */
+    static int priority(String emergencyType) {
+        return switch (emergencyType) {
+            case "IMMEDIATE_EMERGENCY", "WOMEN_SAFETY" -> 3;
+            case "FIRE", "MEDICAL" -> 2;
+            default -> 1;
+        };
+    }
+}
@@ -0,0 +1,266 @@
+package com.social.network.service;
+
+import com.social.network.entity.SosAlert;
+import com.social.network.entity.SosDispatch;
+import com.social.network.entity.User;
+import com.social.network.repository.SosAlertRepository;
+import com.social.network.repository.SosDispatchRepository;
+import com.social.network.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drains the sos_dispatches outbox on the sosDispatchExecutor, highest priority first. Every
+ * poll claims as many due entries as there are idle workers, with SKIP LOCKED so several
+ * instances can drain concurrently. A claim leases the entry for sos.dispatch.lease-ms; the lease
+ * is extended after every chunk of recipients, so only the entries of a worker that died are
+ * picked up again. Those resume after the last recipient recorded, so each recipient gets at
+ * least one delivery attempt and at most the unrecorded chunk is sent twice.
+ *
+ * Recipients are the users with a token whose last location, reported within
+ * sos.push.location-max-age-hours, is inside the push radius of the alert's type. The temporary
+ * sos.push.unlocated-fallback also pushes to users with a token that never reported a location,
+ * for deployments whose clients don't report one yet.
+ */
+@Service
+public class SosDispatchWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SosDispatchWorker.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final SosDispatchRepository sosDispatchRepository;
+    private final SosAlertRepository sosAlertRepository;
+    private final UserRepository userRepository;
+    private final FcmService fcmService;
+    private final ExecutorService executor;
+    private final TransactionTemplate transactionTemplate;
+    // One permit per worker thread, so nothing is claimed that can't start right away
+    private final Semaphore idleWorkers;
+
+    @Value("${sos.dispatch.chunk-size:2000}")
+    private int chunkSize;
+
+    @Value("${sos.dispatch.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${sos.dispatch.base-backoff-ms:5000}")
+    private long baseBackoffMs;
+
+    @Value("${sos.dispatch.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    // Users are notified of an alert when their last location is within the radius of its type
+    @Value("${sos.push.radius-km.immediate-emergency:10}")
+    private double immediateEmergencyRadiusKm;
+
+    @Value("${sos.push.radius-km.accident:10}")
+    private double accidentRadiusKm;
+
+    @Value("${sos.push.radius-km.women-safety:5}")
+    private double womenSafetyRadiusKm;
+
+    @Value("${sos.push.radius-km.medical:5}")
+    private double medicalRadiusKm;
+
+    @Value("${sos.push.radius-km.fire:15}")
+    private double fireRadiusKm;
+
+    // Locations older than this no longer say where the user is
+    @Value("${sos.push.location-max-age-hours:24}")
+    private long locationMaxAgeHours;
+
+    // Temporary, until every client reports its location; see application.properties
+    @Value("${sos.push.unlocated-fallback:false}")
+    private boolean unlocatedFallback;
+
+    public SosDispatchWorker(SosDispatchRepository sosDispatchRepository,
+                             SosAlertRepository sosAlertRepository,
+                             UserRepository userRepository,
+                             FcmService fcmService,
+                             @Qualifier("sosDispatchExecutor") ExecutorService executor,
+                             @Value("${sos.dispatch.parallelism:4}") int parallelism,
+                             PlatformTransactionManager transactionManager) {
+        this.sosDispatchRepository = sosDispatchRepository;
+        this.sosAlertRepository = sosAlertRepository;
+        this.userRepository = userRepository;
+        this.fcmService = fcmService;
+        this.executor = executor;
+        this.idleWorkers = new Semaphore(parallelism);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    private record Target(Long alertId, Long userId, String username, String emergencyType,
+                          double latitude, double longitude) {
+    }
+
+    // distanceKm is null for users that never reported a location
+    private record Recipient(User user, Double distanceKm) {
+    }
+
+    @Scheduled(initialDelayString = "${sos.dispatch.initial-delay-ms:5000}",
+               fixedDelayString = "${sos.dispatch.poll-interval-ms:1000}")
+    public void poll() {
+        int idle = idleWorkers.availablePermits();
+        if (idle == 0) {
+            return;
+        }
+        for (SosDispatch dispatch : claim(idle)) {
+            idleWorkers.acquireUninterruptibly(); // Only this thread acquires, so never blocks
+            try {
+                executor.execute(() -> {
+                    try {
+                        dispatch(dispatch);
+                    } finally {
+                        idleWorkers.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                idleWorkers.release();
+                logger.warn("SOS dispatch {} rejected, retrying after its lease: {}", dispatch.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private List<SosDispatch> claim(int limit) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<SosDispatch> due = sosDispatchRepository.findDueForUpdate(now, limit);
+            if (!due.isEmpty()) {
+                sosDispatchRepository.claim(due.stream().map(SosDispatch::getId).toList(), leaseUntil());
+            }
+            return due;
+        });
+    }
+
+    void dispatch(SosDispatch dispatch) {
+        try {
+            Target target = transactionTemplate.execute(status -> sosAlertRepository.findById(dispatch.getAlertId())
+                    .filter(alert -> "ACTIVE".equals(alert.getStatus())) // Cancelled or resolved before its turn
+                    .filter(alert -> alert.getLatitude() != null && alert.getLongitude() != null)
+                    .map(this::target)
+                    .orElse(null));
+            if (target == null) {
+                complete(dispatch);
+                return;
+            }
+
+            double radiusKm = pushRadiusKm(target.emergencyType());
+            LocalDateTime locatedAfter = LocalDateTime.now().minusHours(locationMaxAgeHours);
+            List<Recipient> candidates = new ArrayList<>();
+            userRepository.findWithFcmTokenInCells(
+                            GeoHash.coveringCells(target.latitude(), target.longitude(), radiusKm), locatedAfter)
+                    .stream()
+                    .map(user -> new Recipient(user, distanceKm(target, user)))
+                    .filter(recipient -> recipient.distanceKm() <= radiusKm) // In a covering cell but outside the radius
+                    .forEach(candidates::add);
+            if (unlocatedFallback) {
+                userRepository.findUnlocatedFcmRecipients()
+                        .forEach(recipient -> candidates.add(new Recipient(unlocatedUser(recipient), null)));
+            }
+            List<Recipient> recipients = candidates.stream()
+                    .filter(recipient -> !recipient.user().getId().equals(target.userId())) // Skip alert creator
+                    .sorted(Comparator.comparing(recipient -> recipient.user().getId()))
+                    .toList();
+            long unlocated = recipients.stream().filter(recipient -> recipient.distanceKm() == null).count();
+            if (recipients.isEmpty()) {
+                logger.warn("SOS alert {} has no users to notify within {} km", target.alertId(), radiusKm);
+            }
+
+            Long cursor = dispatch.getLastRecipientId();
+            List<Recipient> remaining = cursor == null ? recipients
+                    : recipients.stream().filter(recipient -> recipient.user().getId() > cursor).toList();
+            int sent = dispatch.getSentCount();
+            int failed = dispatch.getFailedCount();
+            recordProgress(dispatch, recipients.size(), cursor, sent, failed);
+            for (int from = 0; from < remaining.size(); from += chunkSize) {
+                List<Recipient> chunk = remaining.subList(from, Math.min(from + chunkSize, remaining.size()));
+                FcmService.SendSummary summary = fcmService.sendAll(chunk.stream()
+                        .map(recipient -> FcmService.sosAlertPush(recipient.user(), target.username(),
+                                target.emergencyType(), recipient.distanceKm()))
+                        .toList());
+                sent += summary.sent();
+                failed += summary.failed();
+                recordProgress(dispatch, recipients.size(), chunk.get(chunk.size() - 1).user().getId(), sent, failed);
+            }
+            complete(dispatch);
+            logger.info("Sent FCM notifications for alert {} to {} of {} users within {} km ({} without a location)",
+                    target.alertId(), sent, recipients.size(), radiusKm, unlocated);
+        } catch (RuntimeException e) {
+            retryLater(dispatch, e);
+        }
+    }
+
+    private Target target(SosAlert alert) {
+        return new Target(alert.getId(), alert.getUser().getId(), alert.getUser().getUsername(),
+                alert.getEmergencyType(), alert.getLatitude(), alert.getLongitude());
+    }
+
+    private static User unlocatedUser(UserRepository.FcmRecipient recipient) {
+        User user = new User();
+        user.setId(recipient.getId());
+        user.setFcmToken(recipient.getFcmToken());
+        return user;
+    }
+
+    private static double distanceKm(Target target, User user) {
+        return GeoHash.distanceKm(target.latitude(), target.longitude(), user.getLastLatitude(), user.getLastLongitude());
+    }
+
+    private double pushRadiusKm(String emergencyType) {
+        return switch (emergencyType) {
+            case "IMMEDIATE_EMERGENCY" -> immediateEmergencyRadiusKm;
+            case "ACCIDENT" -> accidentRadiusKm;
+            case "WOMEN_SAFETY" -> womenSafetyRadiusKm;
+            case "MEDICAL" -> medicalRadiusKm;
+            case "FIRE" -> fireRadiusKm;
+            default -> immediateEmergencyRadiusKm;
+        };
+    }
+
+    /**
+     * Also extends the lease, so a live worker's dispatch isn't claimed by another one.
+     */
+    private void recordProgress(SosDispatch dispatch, int totalRecipients, Long lastRecipientId, int sent, int failed) {
+        transactionTemplate.executeWithoutResult(status -> sosDispatchRepository.recordProgress(
+                dispatch.getId(), totalRecipients, lastRecipientId, sent, failed, leaseUntil()));
+    }
+
+    private void complete(SosDispatch dispatch) {
+        transactionTemplate.executeWithoutResult(status ->
+                sosDispatchRepository.complete(dispatch.getId(), LocalDateTime.now()));
+    }
+
+    private void retryLater(SosDispatch dispatch, Throwable error) {
+        int attempts = dispatch.getAttempts() + 1;
+        long backoffMs = MediaDeletionWorker.backoffMs(attempts, baseBackoffMs, maxBackoffMs);
+        String message = String.valueOf(error.getMessage());
+        String lastError = message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+        try {
+            transactionTemplate.executeWithoutResult(status -> sosDispatchRepository.reschedule(dispatch.getId(),
+                    LocalDateTime.now().plusNanos(backoffMs * 1_000_000), lastError));
+        } catch (RuntimeException e) {
+            // The lease runs out and the dispatch is claimed again
+            logger.warn("Could not reschedule SOS dispatch {}: {}", dispatch.getId(), e.getMessage());
+        }
+        logger.warn("SOS dispatch for alert {} failed (attempt {}), retrying in {} ms: {}",
+                dispatch.getAlertId(), attempts, backoffMs, lastError);
+    }
+
+    private LocalDateTime leaseUntil() {
+        return LocalDateTime.now().plusNanos(leaseMs * 1_000_000);
+    }
+}
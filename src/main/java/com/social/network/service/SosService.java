@@ -1,8 +1,10 @@
 package com.social.network.service;
 
 import com.social.network.dto.LeaderboardResponse;
+import com.social.network.dto.LocationRequest;
 import com.social.network.dto.SosAlertRequest;
 import com.social.network.dto.SosAlertResponse;
+import com.social.network.dto.SosDispatchResponse;
 import com.social.network.dto.SosResponseRequest;
 import com.social.network.dto.SosResponseResponse;
 import com.social.network.entity.SosAlert;
@@ -11,13 +13,17 @@ import com.social.network.entity.User;
 import com.social.network.repository.SosAlertRepository;
 import com.social.network.repository.SosResponseRepository;
 import com.social.network.repository.UserRepository;
+import com.social.network.security.CurrentUserResolver;
+import com.social.network.security.UserDetailsImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -29,27 +35,39 @@ public class SosService {
     private final SosAlertRepository sosAlertRepository;
     private final SosResponseRepository sosResponseRepository;
     private final UserRepository userRepository;
-    private final FcmService fcmService;
+    private final CurrentUserResolver currentUserResolver;
+    private final SosDispatchQueue sosDispatchQueue;
+    private final ActiveSosAlertIndex activeAlertIndex;
+    private final AvatarService avatarService;
 
     public SosService(SosAlertRepository sosAlertRepository,
                      SosResponseRepository sosResponseRepository,
                      UserRepository userRepository,
-                     FcmService fcmService) {
+                     CurrentUserResolver currentUserResolver,
+                     SosDispatchQueue sosDispatchQueue,
+                     ActiveSosAlertIndex activeAlertIndex,
+                     AvatarService avatarService) {
         this.sosAlertRepository = sosAlertRepository;
         this.sosResponseRepository = sosResponseRepository;
         this.userRepository = userRepository;
-        this.fcmService = fcmService;
+        this.currentUserResolver = currentUserResolver;
+        this.sosDispatchQueue = sosDispatchQueue;
+        this.activeAlertIndex = activeAlertIndex;
+        this.avatarService = avatarService;
     }
 
     @Transactional
     public SosAlertResponse createSosAlert(String username, SosAlertRequest request) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         SosAlert alert = new SosAlert();
         alert.setUser(user);
         alert.setLatitude(request.getLatitude());
         alert.setLongitude(request.getLongitude());
+        if (request.getLatitude() != null && request.getLongitude() != null) {
+            alert.setGeohash(GeoHash.encode(request.getLatitude(), request.getLongitude(), GeoHash.STORED_PRECISION));
+        }
         alert.setLocationAddress(request.getLocationAddress());
         alert.setEmergencyType(request.getEmergencyType());
         alert.setDescription(request.getDescription());
@@ -57,16 +75,32 @@ public class SosService {
         alert.setCancelledByUser(false);
 
         SosAlert savedAlert = sosAlertRepository.save(alert);
+        activeAlertIndex.put(ActiveSosAlert.of(savedAlert, List.of(), avatarService.avatarUrl(savedAlert.getUser())));
         
-        // Send FCM push notifications to nearby users (within 50km)
-        sendPushNotificationsToNearbyUsers(savedAlert);
+        // FCM push notifications to nearby users go out from SosDispatchWorker once this commits
+        sosDispatchQueue.enqueue(savedAlert);
         
         return convertToResponse(savedAlert, null, user);
     }
 
+    /**
+     * Record the location reported by the user's device, used to push alerts nearby to them
+     */
+    @Transactional
+    public void updateLocation(String username, LocationRequest request) {
+        User user = currentUserResolver.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        user.setLastLatitude(request.getLatitude());
+        user.setLastLongitude(request.getLongitude());
+        user.setLastLocationGeohash(GeoHash.encode(request.getLatitude(), request.getLongitude(), GeoHash.STORED_PRECISION));
+        user.setLastLocationAt(LocalDateTime.now());
+        userRepository.save(user);
+    }
+
     @Transactional
     public SosAlertResponse cancelSosAlert(String username, Long alertId) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         SosAlert alert = sosAlertRepository.findById(alertId)
@@ -83,22 +117,41 @@ public class SosService {
         alert.setStatus("CANCELLED");
         alert.setCancelledByUser(true);
         SosAlert savedAlert = sosAlertRepository.save(alert);
+        activeAlertIndex.remove(alertId);
         
         return convertToResponse(savedAlert, null, user);
     }
 
     public List<SosAlertResponse> getActiveAlerts(String username, Double latitude, Double longitude, Double radiusKm) {
-        User currentUser = username != null ? userRepository.findByUsername(username).orElse(null) : null;
+        if (activeAlertIndex.isReady()) {
+            Long viewerId = viewerId(username);
+            if (latitude != null && longitude != null && radiusKm != null) {
+                return activeAlertIndex.nearby(latitude, longitude, radiusKm).stream()
+                        .map(nearby -> convertToResponse(nearby.alert(), nearby.distanceKm(), viewerId))
+                        .collect(Collectors.toList());
+            }
+            return activeAlertIndex.all().stream()
+                    .map(alert -> convertToResponse(alert, null, viewerId))
+                    .collect(Collectors.toList());
+        }
+
+        User currentUser = username != null ? currentUserResolver.findByUsername(username).orElse(null) : null;
         
         if (latitude != null && longitude != null && radiusKm != null) {
-            List<SosAlert> alerts = sosAlertRepository.findNearbyActiveAlerts(latitude, longitude, radiusKm, "ACTIVE");
-            return alerts.stream()
-                    .filter(this::isAlertStillValid) // Filter out expired alerts
-                    .map(alert -> {
-                        Double distance = calculateDistance(latitude, longitude, alert.getLatitude(), alert.getLongitude());
-                        return convertToResponse(alert, distance, currentUser);
-                    })
-                    .collect(Collectors.toList());
+            // Index range lookup on the cells around the point, then the exact distance on the few candidates
+            List<SosAlert> alerts = sosAlertRepository.findByStatusInCells("ACTIVE",
+                    GeoHash.coveringCells(latitude, longitude, radiusKm));
+            List<SosAlertResponse> responses = new ArrayList<>();
+            for (SosAlert alert : alerts) {
+                if (!isAlertStillValid(alert)) { // Filter out expired alerts
+                    continue;
+                }
+                Double distance = calculateDistance(latitude, longitude, alert.getLatitude(), alert.getLongitude());
+                if (distance != null && distance <= radiusKm) {
+                    responses.add(convertToResponse(alert, distance, currentUser));
+                }
+            }
+            return responses;
         } else {
             List<SosAlert> alerts = sosAlertRepository.findByStatusOrderByCreatedAtDesc("ACTIVE");
             return alerts.stream()
@@ -110,36 +163,42 @@ public class SosService {
     
     /**
      * Check if an alert is still valid based on its type-specific retention period
+     */
+    private boolean isAlertStillValid(SosAlert alert) {
+        return alert.getCreatedAt().isAfter(LocalDateTime.now().minus(retention(alert.getEmergencyType())));
+    }
+
+    /**
+     * Type-specific retention period of an alert
      * - IMMEDIATE_EMERGENCY: 24 hours
      * - WOMEN_SAFETY: 24 hours
      * - MEDICAL: 24 hours
      * - FIRE: 2 days (48 hours)
      * - ACCIDENT: 3 days (72 hours)
      */
-    private boolean isAlertStillValid(SosAlert alert) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime createdAt = alert.getCreatedAt();
-        
-        switch (alert.getEmergencyType()) {
-            case "IMMEDIATE_EMERGENCY":
-            case "WOMEN_SAFETY":
-            case "MEDICAL":
-                // Valid for 24 hours
-                return createdAt.isAfter(now.minusHours(24));
-            case "FIRE":
-                // Valid for 2 days (48 hours)
-                return createdAt.isAfter(now.minusDays(2));
-            case "ACCIDENT":
-                // Valid for 3 days (72 hours)
-                return createdAt.isAfter(now.minusDays(3));
-            default:
-                // Default to 24 hours for unknown types
-                return createdAt.isAfter(now.minusHours(24));
+    static Duration retention(String emergencyType) {
+        return switch (emergencyType) {
+            case "FIRE" -> Duration.ofDays(2);
+            case "ACCIDENT" -> Duration.ofDays(3);
+            default -> Duration.ofHours(24); // Also for unknown types
+        };
+    }
+
+    /**
+     * Id of the viewer, from the token when it's the caller so the index path needs no query.
+     */
+    private Long viewerId(String username) {
+        if (username == null) {
+            return null;
         }
+        return currentUserResolver.currentPrincipal()
+                .filter(principal -> principal.getUsername().equals(username))
+                .map(UserDetailsImpl::getId)
+                .orElseGet(() -> currentUserResolver.findByUsername(username).map(User::getId).orElse(null));
     }
 
     public List<SosAlertResponse> getUserAlerts(String username) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         List<SosAlert> alerts = sosAlertRepository.findByUserAndStatusOrderByCreatedAtDesc(user, "ACTIVE");
@@ -163,7 +222,7 @@ public class SosService {
 
     @Transactional
     public SosResponseResponse respondToAlert(String username, SosResponseRequest request) {
-        User responder = userRepository.findByUsername(username)
+        User responder = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         SosAlert alert = sosAlertRepository.findById(request.getSosAlertId())
@@ -201,6 +260,9 @@ public class SosService {
             alert.setStatus("RESOLVED");
             alert.setResolvedAt(LocalDateTime.now());
             sosAlertRepository.save(alert);
+            activeAlertIndex.remove(alert.getId());
+        } else {
+            activeAlertIndex.addResponse(alert.getId(), responder.getId(), request.getResponseType(), request.getMessage());
         }
 
         return convertToResponseResponse(savedResponse);
@@ -208,7 +270,7 @@ public class SosService {
 
     @Transactional
     public SosResponseResponse confirmHelpReceived(String username, Long responseId) {
-        User alertOwner = userRepository.findByUsername(username)
+        User alertOwner = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         SosResponse response = sosResponseRepository.findById(responseId)
@@ -239,6 +301,24 @@ public class SosService {
         return convertToResponseResponse(response);
     }
 
+    /**
+     * Progress of the push notifications of an alert, for its owner
+     */
+    public SosDispatchResponse getDispatchProgress(String username, Long alertId) {
+        User user = currentUserResolver.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        SosAlert alert = sosAlertRepository.findById(alertId)
+                .orElseThrow(() -> new RuntimeException("SOS Alert not found"));
+
+        if (!alert.getUser().getId().equals(user.getId())) {
+            throw new RuntimeException("Only the alert owner can see its notification progress");
+        }
+
+        return sosDispatchQueue.progress(alertId)
+                .orElseThrow(() -> new RuntimeException("No notifications were queued for this alert"));
+    }
+
     public List<SosResponseResponse> getAlertResponses(Long alertId) {
         SosAlert alert = sosAlertRepository.findById(alertId)
                 .orElseThrow(() -> new RuntimeException("SOS Alert not found"));
@@ -250,7 +330,7 @@ public class SosService {
     }
 
     public List<SosResponseResponse> getUserResponses(String username) {
-        User user = userRepository.findByUsername(username)
+        User user = currentUserResolver.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         List<SosResponse> responses = sosResponseRepository.findByResponderOrderByCreatedAtDesc(user);
@@ -283,7 +363,7 @@ public class SosService {
                             user.getUsername(),
                             user.getName(),
                             user.getProfession(),
-                            user.getProfilePicture(),
+                            avatarService.avatarUrl(user),
                             user.getLeaderboardPoints() != null ? user.getLeaderboardPoints() : 0,
                             rank,
                             badge
@@ -329,7 +409,7 @@ public class SosService {
                 alert.getUser().getId(),
                 alert.getUser().getUsername(),
                 alert.getUser().getProfession(),
-                alert.getUser().getProfilePicture(),
+                avatarService.avatarUrl(alert.getUser()),
                 alert.getLatitude(),
                 alert.getLongitude(),
                 alert.getLocationAddress(),
@@ -350,6 +430,40 @@ public class SosService {
         );
     }
 
+    private SosAlertResponse convertToResponse(ActiveSosAlert alert, Double distance, Long viewerId) {
+        ActiveSosAlert.Response viewerResponse = viewerId != null ? alert.responses().get(viewerId) : null;
+
+        String googleMapsUrl = null;
+        if (alert.hasLocation()) {
+            googleMapsUrl = String.format("https://www.google.com/maps?q=%f,%f", alert.latitude(), alert.longitude());
+        }
+
+        return new SosAlertResponse(
+                alert.id(),
+                alert.userId(),
+                alert.username(),
+                alert.profession(),
+                alert.avatarUrl(),
+                alert.latitude(),
+                alert.longitude(),
+                alert.locationAddress(),
+                alert.emergencyType(),
+                "ACTIVE",
+                alert.description(),
+                false,
+                alert.createdAt(),
+                null,
+                alert.responses().size(), // One response per responder
+                distance,
+                googleMapsUrl,
+                getEmergencyContactNumber(alert.emergencyType()),
+                viewerResponse != null,
+                viewerResponse != null ? viewerResponse.type() : null,
+                viewerResponse != null ? viewerResponse.message() : null,
+                alert.userId().equals(viewerId)
+        );
+    }
+
     private String getEmergencyContactNumber(String emergencyType) {
         return switch (emergencyType) {
             case "WOMEN_SAFETY", "IMMEDIATE_EMERGENCY", "ACCIDENT" -> "12"; // Police
@@ -365,7 +479,7 @@ public class SosService {
                 response.getSosAlert().getId(),
                 response.getResponder().getId(),
                 response.getResponder().getUsername(),
-                response.getResponder().getProfilePicture(),
+                avatarService.avatarUrl(response.getResponder()),
                 response.getResponseType(),
                 response.getMessage(),
                 response.getPointsAwarded(),
@@ -389,16 +503,7 @@ public class SosService {
             return null;
         }
 
-        // Haversine formula to calculate distance in kilometers
-        final int R = 6371; // Radius of the earth in km
-
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        return R * c;
+        return GeoHash.distanceKm(lat1, lon1, lat2, lon2);
     }
 
     /**
@@ -406,7 +511,7 @@ public class SosService {
      * Counts active alerts created after user's last check time
      */
     public long getUnreadSosAlertsCount(String username) {
-        User user = userRepository.findByUsername(username).orElse(null);
+        User user = currentUserResolver.findByUsername(username).orElse(null);
         
         // If user not found, return 0 (shouldn't happen with authenticated requests)
         if (user == null) {
@@ -414,6 +519,13 @@ public class SosService {
         }
 
         LocalDateTime lastCheckTime = user.getLastSosCheckAt();
+
+        if (activeAlertIndex.isReady()) {
+            return activeAlertIndex.all().stream()
+                    .filter(alert -> lastCheckTime == null || alert.createdAt().isAfter(lastCheckTime))
+                    .filter(alert -> !alert.userId().equals(user.getId())) // Exclude user's own alerts
+                    .count();
+        }
         
         // If user has never checked, count all active alerts
         if (lastCheckTime == null) {
@@ -438,7 +550,7 @@ public class SosService {
      */
     @Transactional
     public void markSosAlertsAsRead(String username) {
-        User user = userRepository.findByUsername(username).orElse(null);
+        User user = currentUserResolver.findByUsername(username).orElse(null);
         
         // If user not found, silently return (shouldn't happen with authenticated requests)
         if (user == null) {
@@ -448,48 +560,4 @@ public class SosService {
         user.setLastSosCheckAt(LocalDateTime.now());
         userRepository.save(user);
     }
-
-    /**
-     * Send FCM push notifications to users within radius of the alert
-     */
-    private void sendPushNotificationsToNearbyUsers(SosAlert alert) {
-        try {
-            // Get only users with registered FCM tokens for efficiency
-            List<User> usersWithTokens = userRepository.findByFcmTokenIsNotNull();
-            
-            logger.info("Sending FCM notifications for alert {} to {} users with tokens", 
-                alert.getId(), usersWithTokens.size());
-            
-            for (User user : usersWithTokens) {
-                // Skip alert creator
-                if (user.getId().equals(alert.getUser().getId())) {
-                    continue;
-                }
-                
-                // Calculate distance if both have location
-                // TODO: Implement proper distance filtering using Haversine formula
-                // For now, we send to all users (backend can implement radius-based filtering later)
-                Double distance = null;
-                if (alert.getLatitude() != null && alert.getLongitude() != null) {
-                    // Placeholder: In production, calculate actual distance here
-                    // distance = calculateHaversineDistance(userLat, userLon, alertLat, alertLon);
-                    distance = null; // Will show as "location nearby" in notification
-                }
-                
-                // Send FCM notification
-                fcmService.sendSosAlertNotification(
-                    user,
-                    alert.getUser().getUsername(),
-                    alert.getEmergencyType(),
-                    distance
-                );
-            }
-            
-            logger.info("Completed sending FCM notifications for alert {}", alert.getId());
-        } catch (Exception e) {
-            // Log error but don't fail alert creation
-            logger.error("Error sending FCM notifications for alert {}: {}", 
-                alert.getId(), e.getMessage(), e);
-        }
-    }
 }
@@ -0,0 +1,147 @@
+package com.social.network.service;
+
+import com.social.network.entity.Post;
+import com.social.network.repository.FollowRepository;
+import com.social.network.repository.PostRepository;
+import com.social.network.repository.TimelineEntryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Materialized "following" timelines.
+ *
+ * New posts are pushed into the timeline_entries of every accepted follower (and the author)
+ * when they are created, so reading a timeline is one indexed range scan. Authors with more
+ * than timeline.fanout.max-followers followers are not fanned out; their posts are merged in
+ * at read time instead, which keeps a single post from turning into millions of inserts.
+ * Timelines are trimmed back to timeline.max-entries by a scheduled job.
+ */
+@Service
+public class TimelineService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimelineService.class);
+    private static final String INSERT_ENTRY_SQL =
+            "INSERT IGNORE INTO timeline_entries (user_id, post_id, author_id, post_created_at, created_at) " +
+            "VALUES (?, ?, ?, ?, NOW())";
+    private static final Comparator<Post> NEWEST_FIRST = Comparator
+            .comparing(Post::getCreatedAt, Comparator.reverseOrder())
+            .thenComparing(Post::getId, Comparator.reverseOrder());
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final FollowRepository followRepository;
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${timeline.fanout.max-followers:10000}")
+    private long maxFanOutFollowers;
+
+    @Value("${timeline.max-entries:800}")
+    private int maxEntries;
+
+    public TimelineService(TimelineEntryRepository timelineEntryRepository,
+                           FollowRepository followRepository,
+                           PostRepository postRepository,
+                           JdbcTemplate jdbcTemplate) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.followRepository = followRepository;
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Push a newly created post into the timelines of its author's followers.
+     */
+    @Transactional
+    public void fanOut(Post post) {
+        Long authorId = post.getUser().getId();
+        List<Long> recipientIds = new ArrayList<>();
+        recipientIds.add(authorId);
+
+        long followerCount = followRepository.countFollowersByUserId(authorId);
+        if (followerCount <= maxFanOutFollowers) {
+            recipientIds.addAll(followRepository.findAcceptedFollowerIdsByUserId(authorId));
+        } else {
+            logger.debug("Skipping fan-out of post {}: author {} has {} followers, merged on read instead",
+                    post.getId(), authorId, followerCount);
+        }
+
+        Timestamp postCreatedAt = Timestamp.valueOf(post.getCreatedAt());
+        List<Object[]> rows = new ArrayList<>(recipientIds.size());
+        for (Long recipientId : recipientIds) {
+            rows.add(new Object[]{recipientId, post.getId(), authorId, postCreatedAt});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY_SQL, rows);
+    }
+
+    /**
+     * Up to {@code limit} timeline posts strictly after the cursor, newest first.
+     */
+    @Transactional(readOnly = true)
+    public List<Post> getTimelinePosts(Long userId, FeedCursor cursor, int limit) {
+        PageRequest pageRequest = PageRequest.of(0, limit);
+        List<Post> materialized = cursor == null
+                ? timelineEntryRepository.findTimelinePosts(userId, pageRequest)
+                : timelineEntryRepository.findTimelinePostsBefore(userId, cursor.getCreatedAt(), cursor.getId(), pageRequest);
+
+        // Fan-out on read for followed accounts that are too large to fan out on write
+        List<Long> largeAuthorIds = followRepository.findAcceptedFollowingIdsWithMoreFollowersThan(userId, maxFanOutFollowers);
+        if (largeAuthorIds.isEmpty()) {
+            return materialized;
+        }
+        List<Post> merged = cursor == null
+                ? postRepository.findByAuthors(largeAuthorIds, pageRequest)
+                : postRepository.findByAuthorsBefore(largeAuthorIds, cursor.getCreatedAt(), cursor.getId(), pageRequest);
+
+        Map<Long, Post> byId = new LinkedHashMap<>();
+        materialized.forEach(post -> byId.put(post.getId(), post));
+        merged.forEach(post -> byId.putIfAbsent(post.getId(), post));
+        return byId.values().stream()
+                .sorted(NEWEST_FIRST)
+                .limit(limit)
+                .toList();
+    }
+
+    @Transactional
+    public void removePost(Long postId) {
+        timelineEntryRepository.deleteByPostId(postId);
+    }
+
+    @Transactional
+    public void removeAuthorFromTimeline(Long userId, Long authorId) {
+        timelineEntryRepository.deleteByUserIdAndAuthorId(userId, authorId);
+    }
+
+    /**
+     * Scheduled task that trims timelines longer than timeline.max-entries, oldest entries first.
+     */
+    @Scheduled(cron = "${timeline.trim-cron:0 15 * * * *}") // Default: every hour at minute 15
+    @Transactional
+    public void trimTimelines() {
+        List<Long> userIds = timelineEntryRepository.findUserIdsWithMoreEntriesThan(maxEntries);
+        int totalDeleted = 0;
+        for (Long userId : userIds) {
+            List<LocalDateTime> cutoff = timelineEntryRepository.findPostCreatedAtByUserId(
+                    userId, PageRequest.of(maxEntries - 1, 1));
+            if (!cutoff.isEmpty()) {
+                totalDeleted += timelineEntryRepository.deleteByUserIdAndPostCreatedAtBefore(userId, cutoff.get(0));
+            }
+        }
+        if (totalDeleted > 0) {
+            logger.info("Trimmed {} timeline entries across {} timelines", totalDeleted, userIds.size());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.social.network.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token buckets per key (email, client IP): each key may burst up to capacity requests and then
+ * gets refillPerMinute more per minute. Buckets of the least recently seen keys beyond maxKeys
+ * are dropped, which at worst hands a forgotten key a fresh bucket.
+ */
+public class TokenBucketRateLimiter {
+
+    private final int capacity;
+    private final double tokensPerMs;
+    private final int maxKeys;
+    private final Map<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+
+    public TokenBucketRateLimiter(int capacity, int refillPerMinute, int maxKeys) {
+        this.capacity = capacity;
+        this.tokensPerMs = refillPerMinute / 60_000.0;
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Take a token from the key's bucket.
+     *
+     * @return false if the bucket is empty
+     */
+    public synchronized boolean tryAcquire(String key) {
+        long now = System.currentTimeMillis();
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = new Bucket(capacity, now);
+            buckets.put(key, bucket);
+            Iterator<Bucket> eldest = buckets.values().iterator();
+            while (buckets.size() > maxKeys && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.refilledAt) * tokensPerMs);
+        bucket.refilledAt = now;
+        if (bucket.tokens < 1) {
+            return false;
+        }
+        bucket.tokens--;
+        return true;
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+}
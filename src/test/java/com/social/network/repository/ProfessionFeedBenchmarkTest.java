@@ -0,0 +1,145 @@
+package com.social.network.repository;
+
+import com.social.network.entity.Post;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the old profession feed (load every post of the profession, drop help posts in
+ * memory) with the indexed keyset query at 1M posts. Both are warmed up and averaged the same way.
+ *
+ * Seeds a real MySQL database, so it only runs when asked for, against the benchmark profile's
+ * database (see application-benchmark.properties):
+ *   mvn test -Dtest=ProfessionFeedBenchmarkTest -Dbenchmark=true
+ * The seeded rows are deleted afterwards; rows left by an interrupted run are reused.
+ */
+@SpringBootTest
+@ActiveProfiles("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProfessionFeedBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfessionFeedBenchmarkTest.class);
+    private static final String USERNAME = "benchmark_profession_feed";
+    private static final int TOTAL_POSTS = 1_000_000;
+    private static final int PROFESSIONS = 10;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int PAGE_SIZE = 20;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT IGNORE INTO users (username, email, password, profession, profile_completed, " +
+                "email_verified, leaderboard_points, created_at, updated_at) VALUES (?, ?, 'x', ?, TRUE, TRUE, 0, NOW(), NOW())",
+                USERNAME, USERNAME + "@example.com", profession(0));
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, USERNAME);
+
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM posts WHERE user_id = ?", Long.class, userId);
+        if (existing != null && existing >= TOTAL_POSTS) {
+            return;
+        }
+
+        LocalDateTime start = LocalDateTime.now().minusDays(365);
+        String sql = "INSERT INTO posts (content, is_help_section, is_solved, show_in_home, user_id, user_profession, " +
+                "created_at, updated_at) VALUES (?, ?, FALSE, TRUE, ?, ?, ?, ?)";
+        for (int offset = existing == null ? 0 : existing.intValue(); offset < TOTAL_POSTS; offset += BATCH_SIZE) {
+            List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+            for (int i = offset; i < Math.min(offset + BATCH_SIZE, TOTAL_POSTS); i++) {
+                Timestamp createdAt = Timestamp.valueOf(start.plusSeconds(i * 30L));
+                // Every fifth post is a help post, which the profession feed must skip
+                rows.add(new Object[]{"Benchmark post " + i, i % 5 == 0, userId, profession(i % PROFESSIONS), createdAt, createdAt});
+            }
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+
+    @AfterAll
+    void cleanUp() {
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, USERNAME);
+        // In batches, so no single statement holds a million row locks
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM posts WHERE user_id = ? LIMIT ?", userId, BATCH_SIZE);
+        } while (deleted > 0);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    void indexedQueryBeatsInMemoryFilter() {
+        String profession = profession(3);
+
+        Supplier<List<Post>> legacyQuery = () -> postRepository.findByUserProfessionOrderByCreatedAtDesc(profession)
+                .stream()
+                .filter(post -> post.getIsHelpSection() == null || !post.getIsHelpSection())
+                .limit(PAGE_SIZE)
+                .collect(Collectors.toList());
+        Supplier<List<Post>> indexedQuery = () -> postRepository.findProfessionFeed(profession, PageRequest.of(0, PAGE_SIZE));
+
+        List<Post> legacy = legacyQuery.get();
+        List<Post> indexed = indexedQuery.get();
+        long legacyMicros = averageMicros(legacyQuery);
+        long indexedMicros = averageMicros(indexedQuery);
+
+        logger.info("Profession feed @ {} posts: in-memory filter {} us/page, indexed query {} us/page ({}x)",
+                TOTAL_POSTS, legacyMicros, indexedMicros, legacyMicros / Math.max(indexedMicros, 1));
+
+        assertEquals(legacy.stream().map(Post::getId).toList(), indexed.stream().map(Post::getId).toList());
+        assertTrue(indexed.stream().noneMatch(Post::getIsHelpSection));
+    }
+
+    /**
+     * Mean time of one query after warming up, each run with an empty persistence context so no
+     * run reuses the entities of the previous one.
+     */
+    private long averageMicros(Supplier<List<Post>> query) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            query.get();
+            entityManager.clear();
+        }
+        long elapsed = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            query.get();
+            elapsed += System.nanoTime() - start;
+            entityManager.clear();
+        }
+        return elapsed / 1_000 / ITERATIONS;
+    }
+
+    private static String profession(int index) {
+        return "Benchmark Profession " + index;
+    }
+}
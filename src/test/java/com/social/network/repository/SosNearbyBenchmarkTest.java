@@ -0,0 +1,128 @@
+package com.social.network.repository;
+
+import com.social.network.entity.SosAlert;
+import com.social.network.service.GeoHash;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the old nearby alert query (acos() distance on every active alert) with the geohash
+ * range lookup plus exact distance check at 100k active alerts.
+ *
+ * Seeds a real MySQL database, so it only runs when asked for, against the benchmark profile's
+ * database (see application-benchmark.properties):
+ *   mvn test -Dtest=SosNearbyBenchmarkTest -Dbenchmark=true
+ * The seeded rows are deleted afterwards; rows left by an interrupted run are reused.
+ */
+@SpringBootTest
+@ActiveProfiles("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SosNearbyBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SosNearbyBenchmarkTest.class);
+    private static final String USERNAME = "benchmark_sos_nearby";
+    private static final int TOTAL_ALERTS = 100_000;
+    private static final int BATCH_SIZE = 10_000;
+    private static final int ITERATIONS = 20;
+    // Alerts spread over roughly the size of India
+    private static final double MIN_LAT = 8, MAX_LAT = 35, MIN_LON = 68, MAX_LON = 97;
+    private static final double LATITUDE = 12.9716, LONGITUDE = 77.5946, RADIUS_KM = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SosAlertRepository sosAlertRepository;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("INSERT IGNORE INTO users (username, email, password, profile_completed, " +
+                "email_verified, leaderboard_points, created_at, updated_at) VALUES (?, ?, 'x', TRUE, TRUE, 0, NOW(), NOW())",
+                USERNAME, USERNAME + "@example.com");
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, USERNAME);
+
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sos_alerts WHERE user_id = ?", Long.class, userId);
+        if (existing != null && existing >= TOTAL_ALERTS) {
+            return;
+        }
+
+        Random random = new Random(42);
+        String sql = "INSERT INTO sos_alerts (user_id, latitude, longitude, geohash, emergency_type, status, " +
+                "cancelled_by_user, created_at, updated_at) VALUES (?, ?, ?, ?, 'MEDICAL', 'ACTIVE', FALSE, NOW(), NOW())";
+        for (int offset = existing == null ? 0 : existing.intValue(); offset < TOTAL_ALERTS; offset += BATCH_SIZE) {
+            List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+            for (int i = offset; i < Math.min(offset + BATCH_SIZE, TOTAL_ALERTS); i++) {
+                double latitude = MIN_LAT + random.nextDouble() * (MAX_LAT - MIN_LAT);
+                double longitude = MIN_LON + random.nextDouble() * (MAX_LON - MIN_LON);
+                rows.add(new Object[]{userId, latitude, longitude,
+                        GeoHash.encode(latitude, longitude, GeoHash.STORED_PRECISION)});
+            }
+            jdbcTemplate.batchUpdate(sql, rows);
+        }
+    }
+
+    @AfterAll
+    void cleanUp() {
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, USERNAME);
+        // In batches, so no single statement holds 100k row locks
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM sos_alerts WHERE user_id = ? LIMIT ?", userId, BATCH_SIZE);
+        } while (deleted > 0);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    void geohashLookupBeatsDistanceScan() {
+        long legacyStart = System.nanoTime();
+        List<SosAlert> legacy = sosAlertRepository.findNearbyActiveAlerts(LATITUDE, LONGITUDE, RADIUS_KM, "ACTIVE");
+        long legacyMillis = (System.nanoTime() - legacyStart) / 1_000_000;
+
+        List<SosAlert> indexed = nearby();
+        long indexedStart = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            indexed = nearby();
+        }
+        long indexedMicros = (System.nanoTime() - indexedStart) / 1_000 / ITERATIONS;
+
+        logger.info("Nearby SOS alerts @ {} active: distance scan {} ms, geohash lookup {} us",
+                TOTAL_ALERTS, legacyMillis, indexedMicros);
+
+        assertFalse(indexed.isEmpty());
+        assertEquals(legacy.stream().map(SosAlert::getId).sorted().toList(),
+                indexed.stream().map(SosAlert::getId).sorted().toList());
+    }
+
+    private List<SosAlert> nearby() {
+        return sosAlertRepository.findByStatusInCells("ACTIVE", GeoHash.coveringCells(LATITUDE, LONGITUDE, RADIUS_KM))
+                .stream()
+                .filter(alert -> haversineKm(alert.getLatitude(), alert.getLongitude()) <= RADIUS_KM)
+                .toList();
+    }
+
+    private static double haversineKm(double latitude, double longitude) {
+        double dLat = Math.toRadians(latitude - LATITUDE);
+        double dLon = Math.toRadians(longitude - LONGITUDE);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(LATITUDE))
+                * Math.cos(Math.toRadians(latitude)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 6371 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,85 @@
+package com.social.network.security;
+
+import com.social.network.entity.User;
+import com.social.network.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserResolverTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private CurrentUserResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new CurrentUserResolver(userRepository);
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "alice", null, null, List.of(), 0);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void authenticatedUserIsLoadedOncePerRequest() {
+        User alice = user(1L, "alice");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(alice));
+
+        assertSame(alice, resolver.currentUser().orElseThrow());
+        assertSame(alice, resolver.findByUsername("alice").orElseThrow());
+        assertSame(alice, resolver.findByUsername("alice").orElseThrow());
+
+        verify(userRepository, times(1)).findById(1L);
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void otherUsersAreLookedUpByUsername() {
+        User bob = user(2L, "bob");
+        when(userRepository.findByUsername("bob")).thenReturn(Optional.of(bob));
+
+        assertSame(bob, resolver.findByUsername("bob").orElseThrow());
+        verify(userRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void withoutRequestNothingIsMemoized() {
+        RequestContextHolder.resetRequestAttributes();
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L, "alice")));
+
+        resolver.currentUser();
+        resolver.currentUser();
+
+        verify(userRepository, times(2)).findById(1L);
+    }
+
+    private User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
@@ -0,0 +1,77 @@
+package com.social.network.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTest {
+
+    private static final byte[] KEY = new byte[32];
+
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", Base64.getEncoder().encodeToString(KEY));
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationMs", 60_000L);
+        ReflectionTestUtils.setField(tokenProvider, "verifiedCacheMaxEntries", 10);
+    }
+
+    @Test
+    void principalIsRebuiltFromClaims() {
+        UserDetailsImpl user = new UserDetailsImpl(42L, "alice", "alice@example.com", "hash", List.of("ROLE_USER"), 3);
+        String token = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+
+        UserDetailsImpl principal = tokenProvider.getUserDetailsFromJWT(token);
+
+        assertEquals(42L, principal.getId());
+        assertEquals("alice", principal.getUsername());
+        assertEquals(List.of("ROLE_USER"), principal.getRoles());
+        assertEquals(3, principal.getTokenVersion());
+        assertNull(principal.getPassword());
+    }
+
+    @Test
+    void tokensWithoutClaimsNeedTheUserLoaded() {
+        String legacy = signed("alice", 60_000);
+
+        assertTrue(tokenProvider.validateToken(legacy));
+        assertNull(tokenProvider.getUserDetailsFromJWT(legacy));
+        assertEquals("alice", tokenProvider.getUsernameFromJWT(legacy));
+    }
+
+    @Test
+    void verifiedTokensAreCachedButTamperedAndExpiredOnesRejected() {
+        String token = signed("alice", 60_000);
+
+        Claims first = tokenProvider.getValidClaims(token);
+        assertNotNull(first);
+        assertSame(first, tokenProvider.getValidClaims(token));
+
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertNull(tokenProvider.getValidClaims(tampered));
+        assertNull(tokenProvider.getValidClaims(signed("alice", -1_000)));
+    }
+
+    private String signed(String subject, long expiresInMs) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + expiresInMs))
+                .signWith(Keys.hmacShaKeyFor(KEY), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
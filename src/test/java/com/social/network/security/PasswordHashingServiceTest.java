@@ -0,0 +1,60 @@
+package com.social.network.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingServiceTest {
+
+    private ThreadPoolExecutor executor;
+    private PasswordHashingService service;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1),
+                new ThreadPoolExecutor.AbortPolicy());
+        service = new PasswordHashingService(executor);
+        ReflectionTestUtils.setField(service, "timeoutMs", 5_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void resultsAndFailuresOfTheWorkAreReturnedAsIs() {
+        assertEquals("hash", service.run(() -> "hash"));
+        assertThrows(BadCredentialsException.class, () -> service.run(() -> {
+            throw new BadCredentialsException("Bad credentials");
+        }));
+    }
+
+    @Test
+    void saturatedPoolRefusesWork() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> release.await()); // Busy thread
+        executor.submit(() -> release.await()); // Full queue
+
+        assertThrows(PasswordHashingBusyException.class, () -> service.run(() -> "hash"));
+        release.countDown();
+    }
+
+    @Test
+    void calibratedCostDoublesUpToTheTarget() {
+        long ms = 1_000_000L;
+        assertEquals(10, BCryptCostCalibrator.costFor(80 * ms, 100 * ms, 10, 14));
+        assertEquals(12, BCryptCostCalibrator.costFor(60 * ms, 250 * ms, 10, 14));
+        assertEquals(14, BCryptCostCalibrator.costFor(1 * ms, 250 * ms, 10, 14));
+        assertEquals(10, BCryptCostCalibrator.costFor(900 * ms, 250 * ms, 10, 14));
+    }
+}
@@ -0,0 +1,60 @@
+package com.social.network.security;
+
+import com.social.network.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenVersionCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private TokenVersionCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TokenVersionCache(userRepository);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttlMs", 30_000L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+    }
+
+    @Test
+    void versionIsCachedUntilEvicted() {
+        when(userRepository.findTokenVersionById(1L)).thenReturn(Optional.of(0), Optional.of(1));
+
+        assertTrue(cache.isCurrent(1L, 0));
+        assertTrue(cache.isCurrent(1L, 0));
+        cache.evict(1L);
+
+        assertFalse(cache.isCurrent(1L, 0));
+        verify(userRepository, times(2)).findTokenVersionById(1L);
+    }
+
+    @Test
+    void versionLoadedBeforeARevocationIsNotCached() {
+        // The load reads the old version, then logout-all bumps it and evicts before the load stores it
+        when(userRepository.findTokenVersionById(1L))
+                .thenAnswer(invocation -> {
+                    cache.evict(1L);
+                    return Optional.of(0);
+                })
+                .thenReturn(Optional.of(1));
+
+        cache.isCurrent(1L, 0);
+
+        assertFalse(cache.isCurrent(1L, 0));
+        assertTrue(cache.isCurrent(1L, 1));
+        verify(userRepository, times(2)).findTokenVersionById(1L);
+    }
+}
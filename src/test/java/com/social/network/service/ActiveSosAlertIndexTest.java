@@ -0,0 +1,80 @@
+package com.social.network.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActiveSosAlertIndexTest {
+
+    private ActiveSosAlertIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ActiveSosAlertIndex(null, null, null, null);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "cellDegrees", 0.5);
+    }
+
+    @Test
+    void nearbyAlertsAreFilteredByDistanceAndNewestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        index.put(alert(1L, 12.97, 77.59, now.minusHours(2)));
+        index.put(alert(2L, 13.10, 77.60, now.minusHours(1))); // ~15 km, in the next grid row
+        index.put(alert(3L, 19.07, 72.87, now)); // ~840 km
+        index.put(alert(4L, null, null, now));
+        assertEquals(List.of(4L, 3L, 2L, 1L), index.all().stream().map(ActiveSosAlert::id).toList());
+        putFarAway();
+
+        List<ActiveSosAlertIndex.Nearby> nearby = index.nearby(12.97, 77.59, 50);
+
+        assertEquals(List.of(2L, 1L), nearby.stream().map(found -> found.alert().id()).toList());
+        assertEquals(14.5, nearby.get(0).distanceKm(), 0.5);
+    }
+
+    @Test
+    void searchWrapsAroundTheAntimeridian() {
+        index.put(alert(1L, 0.0, -179.95, LocalDateTime.now()));
+        putFarAway();
+
+        assertEquals(1, index.nearby(0.0, 179.95, 20).size());
+    }
+
+    @Test
+    void removedAndExpiredAlertsAreNotReturned() {
+        LocalDateTime now = LocalDateTime.now();
+        index.put(alert(1L, 12.97, 77.59, now));
+        index.put(alert(2L, 12.97, 77.59, now.minusHours(25)));
+        index.put(alert(3L, 12.98, 77.59, now));
+        index.remove(3L);
+
+        assertEquals(List.of(1L), index.nearby(12.97, 77.59, 5).stream().map(found -> found.alert().id()).toList());
+    }
+
+    @Test
+    void responsesAreAddedToTheSnapshot() {
+        index.put(alert(1L, 12.97, 77.59, LocalDateTime.now()));
+        index.addResponse(1L, 7L, "ON_WAY", "Coming");
+
+        ActiveSosAlert alert = index.all().get(0);
+        assertEquals(new ActiveSosAlert.Response("ON_WAY", "Coming"), alert.responses().get(7L));
+        assertEquals(alert, index.nearby(12.97, 77.59, 1).get(0).alert());
+    }
+
+    // Enough alerts elsewhere that lookups go through the grid rather than a full scan
+    private void putFarAway() {
+        for (long id = 1000; id < 1050; id++) {
+            index.put(alert(id, -60.0, -100.0 + id % 50, LocalDateTime.now()));
+        }
+    }
+
+    private ActiveSosAlert alert(Long id, Double latitude, Double longitude, LocalDateTime createdAt) {
+        return new ActiveSosAlert(id, 100L, "owner", null, null, latitude, longitude, null, "MEDICAL", null,
+                createdAt, createdAt.plus(SosService.retention("MEDICAL")), Map.of());
+    }
+}
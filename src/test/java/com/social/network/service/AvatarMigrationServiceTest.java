@@ -0,0 +1,75 @@
+package com.social.network.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvatarMigrationServiceTest {
+
+    private static final String INLINE_PICTURE = "data:image/png;base64,AAAA";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private FirebaseStorageService firebaseStorageService;
+    @Mock
+    private MediaDeletionQueue mediaDeletionQueue;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private AvatarMigrationService avatarMigrationService;
+
+    @BeforeEach
+    void setUp() {
+        avatarMigrationService = new AvatarMigrationService(jdbcTemplate, transactionManager,
+                firebaseStorageService, mediaDeletionQueue, eventPublisher);
+        ReflectionTestUtils.setField(avatarMigrationService, "chunkSize", 50);
+    }
+
+    @Test
+    void failedUploadsAreRetriedOnTheNextRun() {
+        when(jdbcTemplate.queryForList(anyString(), eq(0L), eq(50))).thenReturn(List.of(row(1L, INLINE_PICTURE)));
+        when(jdbcTemplate.queryForList(anyString(), eq(1L), eq(50))).thenReturn(List.of());
+        when(firebaseStorageService.uploadImage(INLINE_PICTURE, "profiles"))
+                .thenThrow(new RuntimeException("Failed to upload image"))
+                .thenReturn("https://cdn/profiles/1.png");
+        when(jdbcTemplate.update(anyString(), eq("https://cdn/profiles/1.png"), eq(1L), eq(INLINE_PICTURE))).thenReturn(1);
+
+        avatarMigrationService.migrateInlineAvatars();
+        avatarMigrationService.migrateInlineAvatars();
+
+        verify(firebaseStorageService, times(2)).uploadImage(INLINE_PICTURE, "profiles");
+        verify(eventPublisher).publishEvent(any(PostChangedEvent.class));
+    }
+
+    @Test
+    void onlyUndecodablePicturesLeftCompletesTheMigration() {
+        when(jdbcTemplate.queryForList(anyString(), eq(0L), eq(50))).thenReturn(List.of(row(1L, "data:image/png;base64,*not base64*")));
+        when(jdbcTemplate.queryForList(anyString(), eq(1L), eq(50))).thenReturn(List.of());
+
+        avatarMigrationService.migrateInlineAvatars();
+        avatarMigrationService.migrateInlineAvatars();
+
+        verify(jdbcTemplate, times(1)).queryForList(anyString(), eq(0L), eq(50));
+        verify(firebaseStorageService, never()).uploadImage(anyString(), anyString());
+    }
+
+    private static Map<String, Object> row(Long id, String picture) {
+        return Map.of("id", id, "profile_picture", picture);
+    }
+}
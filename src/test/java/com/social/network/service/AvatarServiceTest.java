@@ -0,0 +1,93 @@
+package com.social.network.service;
+
+import com.social.network.dto.MediaVariants;
+import com.social.network.entity.User;
+import com.social.network.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AvatarServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private FirebaseStorageService firebaseStorageService;
+    @Mock
+    private MediaService mediaService;
+
+    private AvatarService avatarService;
+
+    @BeforeEach
+    void setUp() {
+        avatarService = new AvatarService(userRepository, firebaseStorageService, mediaService);
+        ReflectionTestUtils.setField(avatarService, "baseUrl", "https://api.example.com/api/media/avatars");
+    }
+
+    @Test
+    void avatarUrlIsAbsoluteVersionedAndNullWithoutPicture() {
+        User user = user(5L, "data:image/png;base64,AAAA");
+        user.setAvatarVersion(3);
+
+        String url = avatarService.avatarUrl(user);
+        assertEquals("https://api.example.com/api/media/avatars/5?v=3", url);
+        assertTrue(AvatarService.isAvatarUrl(url));
+        assertNull(avatarService.avatarUrl(user(6L, null)));
+    }
+
+    @Test
+    void storedPictureRedirectsToTheRequestedVariant() {
+        User user = user(5L, "https://cdn/profiles/a.jpg");
+        when(userRepository.findById(5L)).thenReturn(Optional.of(user));
+        when(firebaseStorageService.isUrl("https://cdn/profiles/a.jpg")).thenReturn(true);
+        when(mediaService.variantsOf("https://cdn/profiles/a.jpg")).thenReturn(new MediaVariants(
+                "https://cdn/profiles/a.jpg", "https://cdn/variants/t.jpg", "https://cdn/variants/f.jpg", null));
+
+        AvatarService.Avatar avatar = avatarService.findAvatar(5L, "thumbnail").orElseThrow();
+
+        assertEquals("https://cdn/variants/t.jpg", avatar.redirectUrl());
+        assertNull(avatar.content());
+    }
+
+    @Test
+    void inlinePictureIsDecoded() throws IOException {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G'};
+        User user = user(5L, "data:image/png;base64," + Base64.getEncoder().encodeToString(png));
+        when(userRepository.findById(5L)).thenReturn(Optional.of(user));
+        when(firebaseStorageService.isUrl(user.getProfilePicture())).thenReturn(false);
+
+        AvatarService.Avatar avatar = avatarService.findAvatar(5L, "thumbnail").orElseThrow();
+
+        assertNull(avatar.redirectUrl());
+        assertEquals("image/png", avatar.contentType());
+        try (InputStream content = avatar.content()) {
+            assertArrayEquals(png, content.readAllBytes());
+        }
+    }
+
+    @Test
+    void userWithoutPictureHasNoAvatar() {
+        when(userRepository.findById(6L)).thenReturn(Optional.of(user(6L, "")));
+
+        assertTrue(avatarService.findAvatar(6L, "thumbnail").isEmpty());
+    }
+
+    private User user(Long id, String picture) {
+        User user = new User();
+        user.setId(id);
+        user.setProfilePicture(picture);
+        return user;
+    }
+}
@@ -0,0 +1,115 @@
+package com.social.network.service;
+
+import com.social.network.entity.User;
+import com.social.network.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FcmServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final AtomicInteger batches = new AtomicInteger();
+    private final LocalMessagingBackend local = new LocalMessagingBackend(0, "invalid-");
+    private ExecutorService executor;
+    private FcmService fcmService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        MessagingBackend counting = batch -> {
+            assertTrue(batch.size() <= MessagingBackend.MAX_BATCH_SIZE);
+            batches.incrementAndGet();
+            return local.sendEach(batch);
+        };
+        fcmService = new FcmService(userRepository, counting, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void pushesAreSentInBatchesOfAtMost500() {
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= 1201; id++) {
+            users.add(user(id, "token-" + id));
+        }
+
+        FcmService.SendSummary summary = fcmService.sendNotificationToUsers(users, "Title", "Body", Map.of());
+
+        assertEquals(new FcmService.SendSummary(1201, 0, 0), summary);
+        assertEquals(3, batches.get());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void usersWithoutATokenCountAsFailed() {
+        List<User> users = List.of(user(1L, "token-1"), user(2L, null), user(3L, ""));
+
+        FcmService.SendSummary summary = fcmService.sendNotificationToUsers(users, "Title", "Body", null);
+
+        assertEquals(new FcmService.SendSummary(1, 2, 0), summary);
+        assertEquals(1, batches.get());
+    }
+
+    @Test
+    void invalidTokensAreClearedInOneUpdate() {
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= 600; id++) {
+            users.add(user(id, (id % 300 == 0 ? "invalid-" : "token-") + id));
+        }
+        when(userRepository.clearFcmTokens(anyCollection())).thenReturn(2);
+
+        FcmService.SendSummary summary = fcmService.sendNotificationToUsers(users, "Title", "Body", Map.of());
+
+        assertEquals(new FcmService.SendSummary(598, 2, 2), summary);
+        verify(userRepository).clearFcmTokens(Set.of("invalid-300", "invalid-600"));
+    }
+
+    @Test
+    void aFailedBatchCountsAsFailedWithoutAffectingTheOthers() {
+        MessagingBackend failingFirst = batch -> {
+            if (batch.get(0).token().equals("token-1")) {
+                throw new IllegalStateException("FCM unavailable");
+            }
+            return local.sendEach(batch);
+        };
+        fcmService = new FcmService(userRepository, failingFirst, executor);
+        List<User> users = new ArrayList<>();
+        for (long id = 1; id <= 700; id++) {
+            users.add(user(id, "token-" + id));
+        }
+
+        FcmService.SendSummary summary = fcmService.sendNotificationToUsers(users, "Title", "Body", Map.of());
+
+        assertEquals(new FcmService.SendSummary(200, 500, 0), summary);
+    }
+
+    private User user(Long id, String token) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setFcmToken(token);
+        return user;
+    }
+}
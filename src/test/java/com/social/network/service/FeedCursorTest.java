@@ -0,0 +1,32 @@
+package com.social.network.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeedCursorTest {
+
+    @Test
+    void encodedCursorRoundTrips() {
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456000), 42L);
+
+        FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+        assertEquals(cursor.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertNull(FeedCursor.decode(null));
+        assertNull(FeedCursor.decode(""));
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> FeedCursor.decode("not-a-cursor"));
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+}
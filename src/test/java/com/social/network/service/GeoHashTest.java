@@ -0,0 +1,55 @@
+package com.social.network.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoHashTest {
+
+    @Test
+    void encodesStandardGeohashes() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("tdr1v", GeoHash.encode(12.9716, 77.5946, 5));
+    }
+
+    @Test
+    void coveringCellsContainEveryPointInRange() {
+        Random random = new Random(42);
+        double[][] centers = {{12.97, 77.59}, {0.0, 0.0}, {-33.87, 151.21}, {64.1, -21.9}, {10.0, 179.99}};
+        double[] radii = {0.5, 5, 50, 300};
+
+        for (double[] center : centers) {
+            for (double radiusKm : radii) {
+                List<String> cells = GeoHash.coveringCells(center[0], center[1], radiusKm);
+                assertTrue(cells.size() <= 16);
+                for (int i = 0; i < 200; i++) {
+                    // Random point within the radius, at a random bearing
+                    double distance = radiusKm * Math.sqrt(random.nextDouble());
+                    double[] point = destination(center[0], center[1], distance, random.nextDouble() * 2 * Math.PI);
+                    String hash = GeoHash.encode(point[0], point[1], GeoHash.STORED_PRECISION);
+                    assertTrue(cells.stream().anyMatch(hash::startsWith),
+                            () -> hash + " not covered for " + radiusKm + " km around " + center[0] + "," + center[1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void hugeRadiusMatchesEverything() {
+        assertEquals(List.of(""), GeoHash.coveringCells(45, 10, 20_000));
+    }
+
+    private static double[] destination(double lat, double lon, double distanceKm, double bearing) {
+        double angular = distanceKm / 6371;
+        double lat1 = Math.toRadians(lat);
+        double lat2 = Math.asin(Math.sin(lat1) * Math.cos(angular)
+                + Math.cos(lat1) * Math.sin(angular) * Math.cos(bearing));
+        double lon2 = Math.toRadians(lon) + Math.atan2(Math.sin(bearing) * Math.sin(angular) * Math.cos(lat1),
+                Math.cos(angular) - Math.sin(lat1) * Math.sin(lat2));
+        double lonDeg = Math.toDegrees(lon2);
+        return new double[]{Math.toDegrees(lat2), ((lonDeg + 540) % 360) - 180};
+    }
+}
@@ -0,0 +1,155 @@
+package com.social.network.service;
+
+import com.social.network.entity.Media;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path root;
+
+    private LocalMediaStore store;
+    private ExecutorService executor;
+    private ImageVariantService service;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalMediaStore(root.toString(), "/api/media/files", 1024);
+        executor = Executors.newSingleThreadExecutor();
+        service = new ImageVariantService(store, executor);
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "thumbnailSize", 160);
+        ReflectionTestUtils.setField(service, "feedSize", 640);
+        ReflectionTestUtils.setField(service, "fullSize", 1280);
+        ReflectionTestUtils.setField(service, "jpegQuality", 0.8f);
+        ReflectionTestUtils.setField(service, "maxPixels", 40_000_000L);
+        ReflectionTestUtils.setField(service, "timeoutMs", 10_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void largeImageGetsDownscaledJpegVariants() throws IOException {
+        Media media = stored(noise(2000, 1000, BufferedImage.TYPE_INT_RGB), "image/png");
+
+        service.generate(media);
+
+        assertDimensions(media.getThumbnailUrl(), 160, 80);
+        assertDimensions(media.getFeedUrl(), 640, 320);
+        assertDimensions(media.getFullUrl(), 1280, 640);
+        assertTrue(media.getFeedUrl().endsWith(".jpg"));
+    }
+
+    @Test
+    void smallImageIsNeverUpscaled() throws IOException {
+        Media media = stored(noise(300, 150, BufferedImage.TYPE_INT_RGB), "image/png");
+
+        service.generate(media);
+
+        assertDimensions(media.getThumbnailUrl(), 160, 80);
+        assertNull(media.getFeedUrl());
+        assertNull(media.getFullUrl());
+    }
+
+    @Test
+    void transparentImageKeepsItsAlphaChannel() throws IOException {
+        Media media = stored(noise(800, 800, BufferedImage.TYPE_INT_ARGB), "image/png");
+
+        service.generate(media);
+
+        assertTrue(media.getFeedUrl().endsWith(".png"));
+        assertTrue(read(media.getFeedUrl()).getColorModel().hasAlpha());
+    }
+
+    @Test
+    void undecodableImageIsStoredWithoutVariants() throws IOException {
+        byte[] garbage = new byte[4096];
+        new Random(7).nextBytes(garbage);
+        Media media = stored(garbage, "image/jpeg");
+
+        service.generate(media);
+
+        assertNull(media.getThumbnailUrl());
+        assertNull(media.getFeedUrl());
+        assertNull(media.getFullUrl());
+    }
+
+    @Test
+    void oversizedImageIsNotDecoded() throws IOException {
+        ReflectionTestUtils.setField(service, "maxPixels", 1_000L);
+        Media media = stored(noise(2000, 1000, BufferedImage.TYPE_INT_RGB), "image/png");
+
+        service.generate(media);
+
+        assertNull(media.getThumbnailUrl());
+    }
+
+    @Test
+    void halvingScaleHitsTheExactTargetSize() {
+        BufferedImage scaled = ImageVariantService.scale(new BufferedImage(4000, 3001, BufferedImage.TYPE_INT_RGB), 640, false);
+
+        assertEquals(640, scaled.getWidth());
+        assertEquals(480, scaled.getHeight());
+    }
+
+    private Media stored(BufferedImage image, String contentType) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return stored(out.toByteArray(), contentType);
+    }
+
+    private Media stored(byte[] content, String contentType) throws IOException {
+        MediaStore.StoredMedia stored = store.store("media", new ByteArrayInputStream(content), contentType);
+        Media media = new Media();
+        media.setStorageKey(stored.key());
+        media.setUrl(stored.url());
+        media.setContentType(contentType);
+        media.setSizeBytes((long) content.length);
+        return media;
+    }
+
+    private BufferedImage read(String url) throws IOException {
+        try (InputStream in = store.open(store.keyOf(url).orElseThrow())) {
+            return ImageIO.read(in);
+        }
+    }
+
+    private void assertDimensions(String url, int width, int height) throws IOException {
+        assertNotNull(url);
+        BufferedImage image = read(url);
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+    }
+
+    // Noise compresses badly, so the variants are always smaller than the original
+    private static BufferedImage noise(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(42);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,97 @@
+package com.social.network.service;
+
+import com.social.network.repository.LikeRepository;
+import com.social.network.repository.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LikeWriteBufferTest {
+
+    @Mock
+    private LikeRepository likeRepository;
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private LikeWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        buffer = new LikeWriteBuffer(likeRepository, postRepository, jdbcTemplate, transactionManager, eventPublisher);
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+    }
+
+    @Test
+    void toggleIsVisibleBeforeFlush() {
+        when(likeRepository.existsByPostIdAndUserId(1L, 7L)).thenReturn(false);
+
+        assertTrue(buffer.toggle(1L, 7L));
+
+        assertEquals(Optional.of(true), buffer.pendingState(1L, 7L));
+        assertEquals(1L, buffer.pendingLikeDelta(1L));
+    }
+
+    @Test
+    void likeThenUnlikeCoalescesToNothing() {
+        when(likeRepository.existsByPostIdAndUserId(1L, 7L)).thenReturn(false);
+
+        buffer.toggle(1L, 7L);
+        assertFalse(buffer.toggle(1L, 7L));
+        buffer.flush();
+
+        assertEquals(Optional.empty(), buffer.pendingState(1L, 7L));
+        assertEquals(0L, buffer.pendingLikeDelta(1L));
+        verifyNoInteractions(jdbcTemplate, transactionManager, eventPublisher);
+    }
+
+    @Test
+    void flushBatchesInsertsDeletesAndCounters() {
+        when(likeRepository.existsByPostIdAndUserId(1L, 7L)).thenReturn(false);
+        when(likeRepository.existsByPostIdAndUserId(1L, 8L)).thenReturn(true);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+        when(likeRepository.deleteByPostIdAndUserIds(1L, List.of(8L))).thenReturn(1);
+
+        buffer.toggle(1L, 7L); // like
+        buffer.toggle(1L, 8L); // unlike
+        buffer.flush();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        verify(likeRepository).deleteByPostIdAndUserIds(1L, List.of(8L));
+        // +1 and -1 on the same post net out, so the counter is not touched
+        verify(postRepository, never()).adjustLikeCount(anyLong(), anyLong());
+        assertEquals(Optional.empty(), buffer.pendingState(1L, 7L));
+        assertEquals(0L, buffer.pendingLikeDelta(1L));
+    }
+
+    @Test
+    void failedFlushIsRetained() {
+        when(likeRepository.existsByPostIdAndUserId(2L, 7L)).thenReturn(false);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new RuntimeException("db down"));
+
+        buffer.toggle(2L, 7L);
+        buffer.flush();
+
+        assertEquals(Optional.of(true), buffer.pendingState(2L, 7L));
+        assertEquals(1L, buffer.pendingLikeDelta(2L));
+    }
+}
@@ -0,0 +1,98 @@
+package com.social.network.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalMediaStoreTest {
+
+    // SHA-256 of the bytes {1, 2, 3}
+    private static final String HASH_123 = "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81";
+
+    @TempDir
+    Path root;
+
+    private LocalMediaStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new LocalMediaStore(root.toString(), "/api/media/files", 1024);
+    }
+
+    @Test
+    void storesContentLargerThanOneChunk() throws IOException {
+        byte[] content = new byte[10_000];
+        new Random(42).nextBytes(content);
+
+        MediaStore.StoredMedia stored = store.store("media", new ByteArrayInputStream(content), "image/jpeg");
+
+        assertEquals("/api/media/files/" + stored.key(), stored.url());
+        Path file = store.localFile(stored.key()).orElseThrow();
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    @Test
+    void keysAreContentAddressed() throws IOException {
+        MediaStore.StoredMedia first = store.store("media", new ByteArrayInputStream(new byte[]{1, 2, 3}), "image/png");
+        MediaStore.StoredMedia second = store.store("media", new ByteArrayInputStream(new byte[]{1, 2, 3}), "image/png");
+
+        assertEquals("media/03/" + HASH_123 + ".png", first.key());
+        assertEquals(first.key(), second.key());
+        try (var files = Files.list(root.resolve(".tmp"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void failedUploadLeavesNothingBehind() throws IOException {
+        InputStream failing = new InputStream() {
+            private int served;
+
+            @Override
+            public int read() throws IOException {
+                if (served++ > 2048) {
+                    throw new IOException("client disconnected");
+                }
+                return 1;
+            }
+        };
+
+        assertThrows(IOException.class, () -> store.store("media", failing, "image/jpeg"));
+
+        try (var files = Files.list(root.resolve(".tmp"))) {
+            assertEquals(0, files.count());
+        }
+        assertFalse(Files.exists(root.resolve("media")));
+    }
+
+    @Test
+    void urlsMapBackToKeys() throws IOException {
+        MediaStore.StoredMedia stored = store.store("media", new ByteArrayInputStream(new byte[]{1, 2, 3}), "image/jpeg");
+
+        assertEquals(Optional.of(stored.key()), store.keyOf(stored.url()));
+        assertEquals(Optional.empty(), store.keyOf("https://storage.googleapis.com/bucket/media/a.jpg"));
+    }
+
+    @Test
+    void deleteRemovesTheFile() throws IOException {
+        MediaStore.StoredMedia stored = store.store("media", new ByteArrayInputStream(new byte[]{1, 2, 3}), "image/jpeg");
+
+        assertTrue(store.delete(stored.key()));
+        assertTrue(store.localFile(stored.key()).isEmpty());
+    }
+
+    @Test
+    void keysCannotEscapeTheRoot() {
+        assertThrows(RuntimeException.class, () -> store.localFile("../outside.jpg"));
+    }
+}
@@ -0,0 +1,104 @@
+package com.social.network.service;
+
+import com.social.network.entity.MediaDeletion;
+import com.social.network.repository.MediaDeletionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaDeletionWorkerTest {
+
+    @Mock
+    private MediaDeletionRepository mediaDeletionRepository;
+    @Mock
+    private FirebaseStorageService firebaseStorageService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService executor;
+    private MediaDeletionWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        worker = new MediaDeletionWorker(mediaDeletionRepository, firebaseStorageService, executor, transactionManager);
+        ReflectionTestUtils.setField(worker, "batchSize", 10);
+        ReflectionTestUtils.setField(worker, "maxBatchesPerRun", 5);
+        ReflectionTestUtils.setField(worker, "leaseMs", 300_000L);
+        ReflectionTestUtils.setField(worker, "baseBackoffMs", 10_000L);
+        ReflectionTestUtils.setField(worker, "maxBackoffMs", 3_600_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void deletedEntriesLeaveTheQueueAndFailuresAreRescheduled() {
+        List<MediaDeletion> batch = List.of(entry(1L, "https://cdn/a.jpg", 0), entry(2L, "https://cdn/b.jpg", 2),
+                entry(3L, "https://cdn/gone.jpg", 0));
+        when(mediaDeletionRepository.findDueForUpdate(any(), eq(10))).thenReturn(batch);
+        when(firebaseStorageService.deleteImage("https://cdn/a.jpg")).thenReturn(true);
+        when(firebaseStorageService.deleteImage("https://cdn/b.jpg")).thenThrow(new IllegalStateException("503"));
+        when(firebaseStorageService.deleteImage("https://cdn/gone.jpg")).thenReturn(false);
+
+        LocalDateTime before = LocalDateTime.now();
+        worker.drain();
+
+        verify(mediaDeletionRepository).claim(eq(List.of(1L, 2L, 3L)), any());
+        verify(mediaDeletionRepository).deleteAllByIdInBatch(List.of(1L, 3L));
+        // Third attempt: 10 s doubled twice
+        verify(mediaDeletionRepository).reschedule(eq(2L),
+                argThat(next -> !next.isBefore(before.plusSeconds(40)) && next.isBefore(before.plusSeconds(45))),
+                eq("503"));
+    }
+
+    @Test
+    void fullBatchesAreDrainedUntilTheQueueIsEmpty() {
+        List<MediaDeletion> full = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            full.add(entry(id, "https://cdn/" + id + ".jpg", 0));
+        }
+        when(mediaDeletionRepository.findDueForUpdate(any(), eq(10))).thenReturn(full, List.of());
+        when(firebaseStorageService.deleteImage(anyString())).thenReturn(true);
+
+        worker.drain();
+
+        verify(mediaDeletionRepository, times(2)).findDueForUpdate(any(), eq(10));
+        verify(mediaDeletionRepository, times(1)).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void backoffDoublesUpToTheCap() {
+        assertEquals(10_000L, MediaDeletionWorker.backoffMs(1, 10_000L, 3_600_000L));
+        assertEquals(20_000L, MediaDeletionWorker.backoffMs(2, 10_000L, 3_600_000L));
+        assertEquals(3_600_000L, MediaDeletionWorker.backoffMs(20, 10_000L, 3_600_000L));
+        assertEquals(3_600_000L, MediaDeletionWorker.backoffMs(1_000, 10_000L, 3_600_000L));
+    }
+
+    private MediaDeletion entry(Long id, String url, int attempts) {
+        MediaDeletion entry = new MediaDeletion();
+        entry.setId(id);
+        entry.setUrl(url);
+        entry.setAttempts(attempts);
+        entry.setNextAttemptAt(LocalDateTime.now());
+        return entry;
+    }
+}
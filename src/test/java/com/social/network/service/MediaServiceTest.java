@@ -0,0 +1,216 @@
+package com.social.network.service;
+
+import com.social.network.entity.Media;
+import com.social.network.entity.MediaUpload;
+import com.social.network.entity.User;
+import com.social.network.repository.MediaRepository;
+import com.social.network.repository.MediaUploadRepository;
+import com.social.network.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Identical content is stored once and only deleted with its last reference.
+ */
+@ExtendWith(MockitoExtension.class)
+class MediaServiceTest {
+
+    // SHA-256 of the bytes {1, 2, 3}
+    private static final String HASH_123 = "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81";
+
+    @TempDir
+    Path spoolDir;
+
+    @Mock
+    private MediaStore mediaStore;
+    @Mock
+    private MediaRepository mediaRepository;
+    @Mock
+    private MediaUploadRepository mediaUploadRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ImageVariantService imageVariantService;
+    @Mock
+    private MediaDeletionQueue mediaDeletionQueue;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MediaService mediaService;
+
+    @BeforeEach
+    void setUp() {
+        mediaService = new MediaService(mediaStore, mediaRepository, mediaUploadRepository, userRepository,
+                imageVariantService, mediaDeletionQueue, transactionManager);
+        ReflectionTestUtils.setField(mediaService, "spoolDir", spoolDir.toString());
+    }
+
+    @Test
+    void duplicateContentSharesTheStoredObject() throws IOException {
+        Media existing = media(7L, "posts/a.jpg", "https://cdn/posts/a.jpg");
+        when(mediaRepository.acquire(HASH_123)).thenReturn(1);
+        when(mediaRepository.findBySha256(HASH_123)).thenReturn(Optional.of(existing));
+
+        String url = mediaService.storeInline("profiles", new ByteArrayInputStream(new byte[]{1, 2, 3}), "image/jpeg");
+
+        assertEquals("https://cdn/posts/a.jpg", url);
+        verify(mediaStore, never()).store(anyString(), any(), anyString());
+        verify(mediaRepository, never()).save(any());
+        try (var spooled = Files.list(spoolDir)) {
+            assertEquals(0, spooled.count(), "spooled upload must be removed");
+        }
+    }
+
+    @Test
+    void newContentIsStoredAndIndexedByHash() throws IOException {
+        when(mediaRepository.acquire(HASH_123)).thenReturn(0);
+        when(mediaStore.store(eq("posts"), any(), eq("image/jpeg")))
+                .thenReturn(new MediaStore.StoredMedia("posts/new.jpg", "https://cdn/posts/new.jpg"));
+        when(mediaRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        String url = mediaService.storeInline("posts", new ByteArrayInputStream(new byte[]{1, 2, 3}), "image/jpeg");
+
+        assertEquals("https://cdn/posts/new.jpg", url);
+        verify(mediaRepository).save(argThat(media -> HASH_123.equals(media.getSha256())
+                && media.getRefCount() == 1 && media.getSizeBytes() == 3L));
+    }
+
+    @Test
+    void releaseKeepsObjectWhileStillReferenced() {
+        Media media = media(7L, "posts/a.jpg", "https://cdn/posts/a.jpg");
+        Media afterRelease = media(7L, "posts/a.jpg", "https://cdn/posts/a.jpg");
+        afterRelease.setRefCount(1);
+        when(mediaRepository.findByStorageKeyIn(List.of("posts/a.jpg"))).thenReturn(List.of(media));
+        when(mediaRepository.release(7L)).thenReturn(1);
+        when(mediaRepository.findById(7L)).thenReturn(Optional.of(afterRelease));
+
+        assertTrue(mediaService.release("posts/a.jpg"));
+
+        verify(mediaStore, never()).delete(anyString());
+        verify(mediaRepository, never()).deleteIfUnreferenced(anyLong());
+    }
+
+    @Test
+    void lastReleaseDeletesObjectAndVariants() {
+        Media media = media(7L, "posts/a.jpg", "https://cdn/posts/a.jpg");
+        media.setThumbnailUrl("https://cdn/variants/t.jpg");
+        Media afterRelease = media(7L, "posts/a.jpg", "https://cdn/posts/a.jpg");
+        afterRelease.setRefCount(0);
+        when(mediaRepository.findByStorageKeyIn(List.of("posts/a.jpg"))).thenReturn(List.of(media));
+        when(mediaRepository.release(7L)).thenReturn(1);
+        when(mediaRepository.findById(7L)).thenReturn(Optional.of(afterRelease));
+        when(mediaStore.keyOf("https://cdn/variants/t.jpg")).thenReturn(Optional.of("variants/t.jpg"));
+
+        assertTrue(mediaService.release("posts/a.jpg"));
+
+        verify(mediaUploadRepository).deleteByMediaId(7L);
+        verify(mediaRepository).deleteIfUnreferenced(7L);
+        verify(mediaStore).delete("variants/t.jpg");
+        verify(mediaStore).delete("posts/a.jpg");
+    }
+
+    @Test
+    void unindexedObjectIsDeletedDirectly() {
+        when(mediaRepository.findByStorageKeyIn(List.of("posts/old.jpg"))).thenReturn(List.of());
+        when(mediaStore.delete("posts/old.jpg")).thenReturn(true);
+
+        assertTrue(mediaService.release("posts/old.jpg"));
+
+        verify(mediaRepository, never()).release(anyLong());
+    }
+
+    @Test
+    void mediaSharedByTwoPostsSurvivesDeletingOne() {
+        Media media = media(7L, "media/a.jpg", "https://cdn/media/a.jpg"); // refCount 1, held by the upload
+        User user = new User();
+        user.setId(1L);
+        MediaUpload upload = new MediaUpload();
+        upload.setId(3L);
+        upload.setUser(user);
+        upload.setMedia(media);
+        when(mediaUploadRepository.findByIdsAndUserId(List.of(3L), 1L)).thenReturn(List.of(upload));
+        when(mediaUploadRepository.markAttached(3L)).thenReturn(1, 0);
+        when(mediaRepository.acquireById(7L)).thenAnswer(invocation -> {
+            media.setRefCount(media.getRefCount() + 1);
+            return 1;
+        });
+        when(mediaRepository.release(7L)).thenAnswer(invocation -> {
+            media.setRefCount(media.getRefCount() - 1);
+            return 1;
+        });
+        when(mediaRepository.findById(7L)).thenAnswer(invocation -> Optional.of(media));
+        when(mediaRepository.findByStorageKeyIn(List.of("media/a.jpg"))).thenReturn(List.of(media));
+
+        // The first post takes over the upload's reference, the second acquires its own
+        assertEquals(List.of("https://cdn/media/a.jpg"), mediaService.attachUploads(user, List.of(3L)));
+        assertEquals(List.of("https://cdn/media/a.jpg"), mediaService.attachUploads(user, List.of(3L)));
+        assertEquals(2, media.getRefCount());
+
+        // Deleting the first post
+        assertTrue(mediaService.release("media/a.jpg"));
+        verify(mediaStore, never()).delete(anyString());
+        verify(mediaUploadRepository, never()).deleteByMediaId(anyLong());
+
+        // Deleting the second
+        assertTrue(mediaService.release("media/a.jpg"));
+        verify(mediaRepository).deleteIfUnreferenced(7L);
+        verify(mediaStore).delete("media/a.jpg");
+    }
+
+    @Test
+    void reusingStoredMediaByUrlTakesAReference() {
+        Media media = media(7L, "posts/a.jpg", "https://cdn/posts/a.jpg");
+        when(mediaStore.keyOf("https://cdn/posts/a.jpg")).thenReturn(Optional.of("posts/a.jpg"));
+        when(mediaRepository.findByStorageKeyIn(List.of("posts/a.jpg"))).thenReturn(List.of(media));
+        when(mediaRepository.acquireById(7L)).thenReturn(1);
+
+        assertTrue(mediaService.acquireUrl("https://cdn/posts/a.jpg"));
+
+        verify(mediaRepository).acquireById(7L);
+    }
+
+    @Test
+    void unindexedMediaCannotBeReusedByUrl() {
+        when(mediaStore.keyOf("https://cdn/posts/old.jpg")).thenReturn(Optional.of("posts/old.jpg"));
+        when(mediaRepository.findByStorageKeyIn(List.of("posts/old.jpg"))).thenReturn(List.of());
+
+        assertThrows(RuntimeException.class, () -> mediaService.acquireUrl("https://cdn/posts/old.jpg"));
+    }
+
+    @Test
+    void externalUrlsNeedNoReference() {
+        when(mediaStore.keyOf("https://example.com/a.jpg")).thenReturn(Optional.empty());
+
+        assertFalse(mediaService.acquireUrl("https://example.com/a.jpg"));
+
+        verifyNoInteractions(mediaRepository);
+    }
+
+    private Media media(Long id, String key, String url) {
+        Media media = new Media();
+        media.setId(id);
+        media.setSha256(HASH_123);
+        media.setStorageKey(key);
+        media.setUrl(url);
+        media.setContentType("image/jpeg");
+        media.setSizeBytes(3L);
+        return media;
+    }
+}
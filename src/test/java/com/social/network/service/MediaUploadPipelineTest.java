@@ -0,0 +1,98 @@
+package com.social.network.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MediaUploadPipelineTest {
+
+    @Mock
+    private FirebaseStorageService firebaseStorageService;
+    @Mock
+    private MediaDeletionQueue mediaDeletionQueue;
+
+    private ExecutorService executor;
+    private MediaUploadPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        pipeline = new MediaUploadPipeline(firebaseStorageService, mediaDeletionQueue, executor);
+        ReflectionTestUtils.setField(pipeline, "uploadTimeoutMs", 2000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void uploadsRunConcurrentlyAndKeepOrder() {
+        // Each upload blocks until all four are in flight, so a sequential pipeline would time out
+        CountDownLatch allStarted = new CountDownLatch(4);
+        when(firebaseStorageService.uploadImage(anyString(), eq("posts"))).thenAnswer(invocation -> {
+            allStarted.countDown();
+            assertTrue(allStarted.await(1, TimeUnit.SECONDS));
+            return "https://storage.googleapis.com/bucket/" + invocation.getArgument(0);
+        });
+
+        List<String> urls = pipeline.uploadAll(List.of("a", "b", "c", "d"), "posts");
+
+        assertEquals(List.of(
+                "https://storage.googleapis.com/bucket/a",
+                "https://storage.googleapis.com/bucket/b",
+                "https://storage.googleapis.com/bucket/c",
+                "https://storage.googleapis.com/bucket/d"), urls);
+    }
+
+    @Test
+    void failedUploadRollsBackTheOthers() {
+        when(firebaseStorageService.uploadImage("good", "posts")).thenReturn("https://storage.googleapis.com/bucket/good");
+        when(firebaseStorageService.uploadImage("bad", "posts")).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(RuntimeException.class, () -> pipeline.uploadAll(List.of("good", "bad"), "posts"));
+
+        verify(mediaDeletionQueue, timeout(1000)).enqueue(List.of("https://storage.googleapis.com/bucket/good"));
+    }
+
+    @Test
+    void uploadFinishingAfterTimeoutIsDeleted() {
+        ReflectionTestUtils.setField(pipeline, "uploadTimeoutMs", 50L);
+        when(firebaseStorageService.uploadImage("slow", "posts")).thenAnswer(invocation -> {
+            Thread.sleep(300);
+            return "https://storage.googleapis.com/bucket/slow";
+        });
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> pipeline.uploadAll(List.of("slow"), "posts"));
+
+        assertEquals("Media upload timed out", e.getMessage());
+        verify(mediaDeletionQueue, timeout(2000)).enqueue(List.of("https://storage.googleapis.com/bucket/slow"));
+    }
+
+    @Test
+    void failedUploadReleasesUrlsThatWerePassedThrough() {
+        // A URL passed through holds a reference too (uploadImage acquired one)
+        String shared = "https://storage.googleapis.com/bucket/shared";
+        when(firebaseStorageService.uploadImage(shared, "posts")).thenReturn(shared);
+        when(firebaseStorageService.uploadImage("bad", "posts")).thenThrow(new IllegalStateException("boom"));
+
+        assertThrows(RuntimeException.class, () -> pipeline.uploadAll(List.of(shared, "bad"), "posts"));
+
+        verify(mediaDeletionQueue, timeout(1000)).enqueue(List.of(shared));
+    }
+}
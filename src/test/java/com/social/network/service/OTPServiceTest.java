@@ -0,0 +1,80 @@
+package com.social.network.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OTPServiceTest {
+
+    private InMemoryOtpStore store;
+    private OTPService otpService;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryOtpStore(10, OTPService.OTP_TTL);
+        otpService = new OTPService(store, null, 3, 1, 5, 1, 100);
+    }
+
+    @Test
+    void codeIsAcceptedOnceAndOnlyForItsEmail() {
+        store.put("a@example.com", "123456", OTPService.OTP_TTL);
+
+        assertFalse(otpService.verifyOTP("b@example.com", "123456"));
+        assertFalse(otpService.verifyOTP("a@example.com", "654321"));
+        assertTrue(otpService.verifyOTP("a@example.com", "123456"));
+        assertFalse(otpService.verifyOTP("a@example.com", "123456"));
+    }
+
+    @Test
+    void differentlyCasedEmailsShareTheirCodeAndBuckets() {
+        store.put(OTPService.normalizeEmail("A@Example.com"), "123456", OTPService.OTP_TTL);
+
+        assertTrue(otpService.verifyOTP(" a@EXAMPLE.com ", "123456"));
+
+        otpService.checkVerifyAllowed("a@example.com", "10.0.0.1");
+        otpService.checkVerifyAllowed("A@example.com", "10.0.0.2");
+        otpService.checkVerifyAllowed("a@Example.COM", "10.0.0.3");
+        assertThrows(RateLimitExceededException.class, () -> otpService.checkVerifyAllowed(" A@EXAMPLE.COM", "10.0.0.4"));
+    }
+
+    @Test
+    void newCodeReplacesThePendingOne() {
+        store.put("a@example.com", "111111", OTPService.OTP_TTL);
+        store.put("a@example.com", "222222", OTPService.OTP_TTL);
+
+        assertFalse(otpService.verifyOTP("a@example.com", "111111"));
+        assertTrue(otpService.verifyOTP("a@example.com", "222222"));
+    }
+
+    @Test
+    void expiredCodesAreRejectedAndEvicted() throws InterruptedException {
+        InMemoryOtpStore shortLived = new InMemoryOtpStore(10, Duration.ofMillis(50));
+        shortLived.put("a@example.com", "123456", Duration.ofMillis(20));
+        shortLived.put("b@example.com", "123456", Duration.ofMillis(20));
+
+        Thread.sleep(60);
+        assertFalse(shortLived.consume("a@example.com", "123456"));
+        shortLived.evictExpired();
+
+        assertEquals(0, shortLived.size());
+    }
+
+    @Test
+    void requestsBeyondTheBucketAreRejectedPerEmailAndPerIp() {
+        for (int i = 0; i < 3; i++) {
+            otpService.checkSendAllowed("a@example.com", "10.0.0.1");
+        }
+        assertThrows(RateLimitExceededException.class, () -> otpService.checkSendAllowed("a@example.com", "10.0.0.2"));
+
+        // The IP bucket (5) runs out across emails
+        otpService.checkSendAllowed("b@example.com", "10.0.0.1");
+        otpService.checkSendAllowed("c@example.com", "10.0.0.1");
+        assertThrows(RateLimitExceededException.class, () -> otpService.checkSendAllowed("d@example.com", "10.0.0.1"));
+
+        // Verification attempts have their own buckets
+        otpService.checkVerifyAllowed("a@example.com", "10.0.0.1");
+    }
+}
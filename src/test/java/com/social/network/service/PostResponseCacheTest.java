@@ -0,0 +1,97 @@
+package com.social.network.service;
+
+import com.social.network.dto.PostPageResponse;
+import com.social.network.dto.PostResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostResponseCacheTest {
+
+    private PostResponseCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PostResponseCache(Optional.empty());
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 30L);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void callersGetCopiesOfTheCachedPage() {
+        cache.getOrLoad("all", () -> page(1L, 2L)).getPosts().get(0).setLiked(true);
+
+        PostPageResponse second = cache.getOrLoad("all", () -> page(1L, 2L));
+
+        assertFalse(second.getPosts().get(0).isLiked());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void likeEvictsOnlyPagesContainingThePost() {
+        cache.getOrLoad("a", () -> page(1L));
+        cache.getOrLoad("b", () -> page(2L));
+
+        cache.onPostChanged(PostChangedEvent.liked(1L));
+        cache.getOrLoad("a", () -> page(1L));
+        cache.getOrLoad("b", () -> page(2L));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void newPostClearsEveryPage() {
+        cache.getOrLoad("a", () -> page(1L));
+
+        cache.onPostChanged(PostChangedEvent.created(9L, 5L));
+        cache.getOrLoad("a", () -> page(1L));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void pageLoadedDuringInvalidationIsNotCached() {
+        cache.getOrLoad("a", () -> {
+            cache.onPostChanged(PostChangedEvent.commented(1L));
+            return page(1L);
+        });
+        cache.getOrLoad("a", () -> page(1L));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void leastRecentlyUsedPageIsEvictedWhenFull() {
+        cache.getOrLoad("a", () -> page(1L));
+        cache.getOrLoad("b", () -> page(2L));
+        cache.getOrLoad("a", () -> page(1L));
+        cache.getOrLoad("c", () -> page(3L));
+
+        cache.getOrLoad("a", () -> page(1L));
+        cache.getOrLoad("b", () -> page(2L));
+
+        assertEquals(4, loads.get());
+    }
+
+    private PostPageResponse page(Long... postIds) {
+        loads.incrementAndGet();
+        List<PostResponse> posts = new ArrayList<>();
+        for (Long postId : postIds) {
+            PostResponse post = new PostResponse();
+            post.setId(postId);
+            post.setUserId(5L);
+            posts.add(post);
+        }
+        return new PostPageResponse(posts, null, false);
+    }
+}
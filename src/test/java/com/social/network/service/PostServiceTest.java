@@ -0,0 +1,220 @@
+package com.social.network.service;
+
+import com.social.network.dto.PostRequest;
+import com.social.network.dto.PostResponse;
+import com.social.network.entity.Post;
+import com.social.network.entity.User;
+import com.social.network.repository.CommentRepository;
+import com.social.network.repository.LikeRepository;
+import com.social.network.repository.PostRepository;
+import com.social.network.repository.UserRepository;
+import com.social.network.security.CurrentUserResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Guards the feed against N+1 regressions: rendering a page must cost the same
+ * number of repository round trips whether it holds 1 post or 200.
+ */
+@ExtendWith(MockitoExtension.class)
+class PostServiceTest {
+
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private LikeRepository likeRepository;
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private MediaUploadPipeline mediaUploadPipeline;
+    @Mock
+    private MediaService mediaService;
+    @Mock
+    private LikeWriteBuffer likeWriteBuffer;
+    @Mock
+    private TimelineService timelineService;
+    @Mock
+    private AvatarService avatarService;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PostService postService;
+    private User viewer;
+
+    @BeforeEach
+    void setUp() {
+        PostResponseCache postResponseCache = new PostResponseCache(Optional.empty());
+        ReflectionTestUtils.setField(postResponseCache, "enabled", true);
+        ReflectionTestUtils.setField(postResponseCache, "maxEntries", 10);
+        ReflectionTestUtils.setField(postResponseCache, "ttlSeconds", 30L);
+        postService = new PostService(postRepository, userRepository, new CurrentUserResolver(userRepository),
+                likeRepository, commentRepository, mediaUploadPipeline, mediaService, likeWriteBuffer, timelineService,
+                postResponseCache, avatarService, eventPublisher, transactionManager);
+        viewer = user(1L, "viewer");
+    }
+
+    @Test
+    void feedPageUsesConstantNumberOfQueries() {
+        List<Post> posts = posts(200);
+        posts.get(4).setLikeCount(3L);
+        posts.get(4).setCommentCount(2L);
+        when(userRepository.findByUsername("viewer")).thenReturn(Optional.of(viewer));
+        when(postRepository.findByShowInHomeTrueOrderByCreatedAtDesc()).thenReturn(posts);
+        when(likeRepository.findLikedPostIds(eq(1L), anyCollection())).thenReturn(List.of(5L));
+
+        List<PostResponse> responses = postService.getAllPostsForUser("viewer");
+
+        assertEquals(200, responses.size());
+        PostResponse fifth = responses.get(4);
+        assertEquals(3L, fifth.getLikeCount());
+        assertEquals(2L, fifth.getCommentCount());
+        assertTrue(fifth.isLiked());
+        assertFalse(responses.get(0).isLiked());
+
+        verify(likeRepository, times(1)).findLikedPostIds(eq(1L), anyCollection());
+        verify(likeRepository, never()).countByPost(any());
+        verify(likeRepository, never()).existsByPostAndUser(any(), any());
+        verify(commentRepository, never()).countByPost(any());
+    }
+
+    @Test
+    void anonymousFeedSkipsLikedLookup() {
+        when(postRepository.findByIsHelpSectionTrueOrderByCreatedAtDesc()).thenReturn(posts(3));
+
+        List<PostResponse> responses = postService.getHelpPosts();
+
+        assertEquals(3, responses.size());
+        verify(likeRepository, never()).findLikedPostIds(anyLong(), anyCollection());
+    }
+
+    @Test
+    void toggleLikeAdjustsCounterAtomically() {
+        Post post = posts(1).get(0);
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(userRepository.findByUsername("viewer")).thenReturn(Optional.of(viewer));
+        when(likeRepository.findByPostAndUser(post, viewer)).thenReturn(Optional.empty());
+
+        postService.toggleLike(1L, "viewer");
+
+        verify(likeRepository).save(any());
+        verify(postRepository).adjustLikeCount(1L, 1);
+    }
+
+    @Test
+    void cachedPageIsSharedAcrossViewersButLikedIsNot() {
+        User other = user(3L, "other");
+        when(userRepository.findByUsername("viewer")).thenReturn(Optional.of(viewer));
+        when(userRepository.findByUsername("other")).thenReturn(Optional.of(other));
+        when(postRepository.findByShowInHomeTrueOrderByCreatedAtDesc()).thenReturn(posts(3));
+        when(likeRepository.findLikedPostIds(eq(1L), anyCollection())).thenReturn(List.of(1L));
+        when(likeRepository.findLikedPostIds(eq(3L), anyCollection())).thenReturn(List.of());
+
+        assertTrue(postService.getAllPostsForUser("viewer").get(0).isLiked());
+        assertFalse(postService.getAllPostsForUser("other").get(0).isLiked());
+        assertFalse(postService.getAllPosts().get(0).isLiked());
+
+        verify(postRepository, times(1)).findByShowInHomeTrueOrderByCreatedAtDesc();
+    }
+
+    @Test
+    void unmigratedPostsStillRenderLegacyMedia() {
+        List<Post> posts = posts(2);
+        posts.get(0).setMediaUrls(List.of("https://cdn/a.jpg"));
+        posts.get(1).setLegacyMediaUrls("https://cdn/b.jpg|||MEDIA_SEPARATOR|||https://cdn/c.jpg");
+        when(postRepository.findByIsHelpSectionTrueOrderByCreatedAtDesc()).thenReturn(posts);
+
+        List<PostResponse> responses = postService.getHelpPosts();
+
+        assertEquals(List.of("https://cdn/a.jpg"), responses.get(0).getMediaUrls());
+        assertEquals(List.of("https://cdn/b.jpg", "https://cdn/c.jpg"), responses.get(1).getMediaUrls());
+    }
+
+    @Test
+    void updateUploadsNewMediaWithNoTransactionOpen() {
+        Post post = ownPost();
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(userRepository.findByUsername("author")).thenReturn(Optional.of(post.getUser()));
+        when(mediaUploadPipeline.uploadAll(List.of("data:new"), "posts")).thenReturn(List.of("https://cdn/new.jpg"));
+        when(postRepository.save(post)).thenReturn(post);
+
+        postService.updatePost(1L, "author", updateRequest(List.of("data:new", "https://cdn/kept.jpg")));
+
+        InOrder inOrder = inOrder(transactionManager, mediaUploadPipeline);
+        inOrder.verify(transactionManager).commit(any());
+        inOrder.verify(mediaUploadPipeline).uploadAll(List.of("data:new"), "posts");
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(mediaUploadPipeline).deleteAfterCommit(List.of("https://cdn/dropped.jpg"));
+        inOrder.verify(transactionManager).commit(any());
+        assertEquals(List.of("https://cdn/new.jpg", "https://cdn/kept.jpg"), post.getMediaUrls());
+        verify(mediaUploadPipeline, never()).deleteAll(any());
+    }
+
+    @Test
+    void failedUpdateReleasesTheFreshUploads() {
+        Post post = ownPost();
+        when(postRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(userRepository.findByUsername("author")).thenReturn(Optional.of(post.getUser()));
+        when(mediaUploadPipeline.uploadAll(List.of("data:new"), "posts")).thenReturn(List.of("https://cdn/new.jpg"));
+        when(postRepository.save(post)).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class,
+                () -> postService.updatePost(1L, "author", updateRequest(List.of("data:new"))));
+
+        verify(transactionManager).rollback(any());
+        verify(mediaUploadPipeline).deleteAll(List.of("https://cdn/new.jpg"));
+    }
+
+    private Post ownPost() {
+        Post post = posts(1).get(0);
+        post.setMediaUrls(List.of("https://cdn/kept.jpg", "https://cdn/dropped.jpg"));
+        return post;
+    }
+
+    private PostRequest updateRequest(List<String> mediaUrls) {
+        PostRequest request = new PostRequest();
+        request.setContent("Edited");
+        request.setMediaUrls(mediaUrls);
+        return request;
+    }
+
+    private List<Post> posts(int count) {
+        User author = user(2L, "author");
+        List<Post> posts = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            Post post = new Post();
+            post.setId(id);
+            post.setContent("Post " + id);
+            post.setUser(author);
+            post.setCreatedAt(LocalDateTime.now().minusMinutes(id));
+            posts.add(post);
+        }
+        return posts;
+    }
+
+    private User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+}
@@ -0,0 +1,206 @@
+package com.social.network.service;
+
+import com.social.network.entity.SosAlert;
+import com.social.network.entity.SosDispatch;
+import com.social.network.entity.User;
+import com.social.network.repository.SosAlertRepository;
+import com.social.network.repository.SosDispatchRepository;
+import com.social.network.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SosDispatchWorkerTest {
+
+    @Mock
+    private SosDispatchRepository sosDispatchRepository;
+    @Mock
+    private SosAlertRepository sosAlertRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private FcmService fcmService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ExecutorService executor;
+    private SosDispatchWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        worker = new SosDispatchWorker(sosDispatchRepository, sosAlertRepository, userRepository, fcmService,
+                executor, 2, transactionManager);
+        ReflectionTestUtils.setField(worker, "chunkSize", 2);
+        ReflectionTestUtils.setField(worker, "leaseMs", 120_000L);
+        ReflectionTestUtils.setField(worker, "baseBackoffMs", 5_000L);
+        ReflectionTestUtils.setField(worker, "maxBackoffMs", 300_000L);
+        ReflectionTestUtils.setField(worker, "medicalRadiusKm", 5.0);
+        ReflectionTestUtils.setField(worker, "locationMaxAgeHours", 24L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void recipientsInRangeArePushedInChunksAndProgressRecorded() {
+        when(sosAlertRepository.findById(10L)).thenReturn(Optional.of(alert("ACTIVE")));
+        User near = user(2L, 12.98, 77.59);
+        User nearer = user(3L, 12.971, 77.591);
+        User far = user(4L, 13.5, 77.59); // In a covering cell, ~60 km away
+        User owner = user(1L, 12.97, 77.59);
+        User last = user(5L, 12.96, 77.59);
+        when(userRepository.findWithFcmTokenInCells(anyList(), any())).thenReturn(List.of(last, far, near, owner, nearer));
+        // The push to the last one fails
+        when(fcmService.sendAll(anyList())).thenAnswer(invocation -> {
+            List<FcmService.Push> pushes = invocation.getArgument(0);
+            int sent = (int) pushes.stream().filter(push -> push.user() != last).count();
+            return new FcmService.SendSummary(sent, pushes.size() - sent, 0);
+        });
+
+        worker.dispatch(dispatch(null, 0, 0));
+
+        verify(fcmService).sendAll(argThat(pushes -> recipients(pushes).equals(List.of(2L, 3L))));
+        verify(fcmService).sendAll(argThat(pushes -> recipients(pushes).equals(List.of(5L))));
+        verify(sosDispatchRepository).recordProgress(eq(7L), eq(3), isNull(), eq(0), eq(0), any());
+        verify(sosDispatchRepository).recordProgress(eq(7L), eq(3), eq(3L), eq(2), eq(0), any());
+        verify(sosDispatchRepository).recordProgress(eq(7L), eq(3), eq(5L), eq(2), eq(1), any());
+        verify(sosDispatchRepository).complete(eq(7L), any());
+    }
+
+    @Test
+    void retriedDispatchResumesAfterTheLastRecordedRecipient() {
+        when(sosAlertRepository.findById(10L)).thenReturn(Optional.of(alert("ACTIVE")));
+        User done = user(2L, 12.98, 77.59);
+        User pending = user(3L, 12.971, 77.591);
+        when(userRepository.findWithFcmTokenInCells(anyList(), any())).thenReturn(List.of(done, pending));
+        when(fcmService.sendAll(anyList())).thenReturn(new FcmService.SendSummary(1, 0, 0));
+
+        worker.dispatch(dispatch(2L, 1, 0));
+
+        verify(fcmService).sendAll(argThat(pushes -> recipients(pushes).equals(List.of(3L))));
+        verify(sosDispatchRepository).recordProgress(eq(7L), eq(2), eq(3L), eq(2), eq(0), any());
+        verify(sosDispatchRepository).complete(eq(7L), any());
+    }
+
+    @Test
+    void usersThatNeverReportedALocationArePushedWithTheFallback() {
+        ReflectionTestUtils.setField(worker, "unlocatedFallback", true);
+        when(sosAlertRepository.findById(10L)).thenReturn(Optional.of(alert("ACTIVE")));
+        User near = user(3L, 12.98, 77.59);
+        when(userRepository.findWithFcmTokenInCells(anyList(), any())).thenReturn(List.of(near));
+        when(userRepository.findUnlocatedFcmRecipients()).thenReturn(List.of(fcmRecipient(2L), fcmRecipient(1L)));
+        when(fcmService.sendAll(anyList())).thenReturn(new FcmService.SendSummary(2, 0, 0));
+
+        worker.dispatch(dispatch(null, 0, 0));
+
+        verify(fcmService).sendAll(argThat(pushes -> recipients(pushes).equals(List.of(2L, 3L))
+                && pushes.get(0).user().getFcmToken().equals("token-2")
+                && pushes.get(0).body().endsWith("location nearby")));
+        verify(sosDispatchRepository).recordProgress(eq(7L), eq(2), eq(3L), eq(2), eq(0), any());
+    }
+
+    @Test
+    void usersThatNeverReportedALocationAreSkippedByDefault() {
+        when(sosAlertRepository.findById(10L)).thenReturn(Optional.of(alert("ACTIVE")));
+        when(userRepository.findWithFcmTokenInCells(anyList(), any())).thenReturn(List.of());
+
+        worker.dispatch(dispatch(null, 0, 0));
+
+        verify(userRepository, never()).findUnlocatedFcmRecipients();
+        verifyNoInteractions(fcmService);
+        verify(sosDispatchRepository).recordProgress(eq(7L), eq(0), isNull(), eq(0), eq(0), any());
+        verify(sosDispatchRepository).complete(eq(7L), any());
+    }
+
+    @Test
+    void cancelledAlertsAreNotPushed() {
+        when(sosAlertRepository.findById(10L)).thenReturn(Optional.of(alert("CANCELLED")));
+
+        worker.dispatch(dispatch(null, 0, 0));
+
+        verifyNoInteractions(userRepository, fcmService);
+        verify(sosDispatchRepository).complete(eq(7L), any());
+    }
+
+    @Test
+    void failedDispatchIsRescheduledWithBackoff() {
+        when(sosAlertRepository.findById(10L)).thenReturn(Optional.of(alert("ACTIVE")));
+        when(userRepository.findWithFcmTokenInCells(anyList(), any())).thenThrow(new IllegalStateException("db down"));
+
+        LocalDateTime before = LocalDateTime.now();
+        worker.dispatch(dispatch(null, 0, 0));
+
+        verify(sosDispatchRepository).reschedule(eq(7L),
+                argThat(next -> !next.isBefore(before.plusSeconds(5)) && next.isBefore(before.plusSeconds(10))),
+                eq("db down"));
+        verify(sosDispatchRepository, never()).complete(any(), any());
+    }
+
+    private static List<Long> recipients(List<FcmService.Push> pushes) {
+        return pushes.stream().map(push -> push.user().getId()).toList();
+    }
+
+    private static UserRepository.FcmRecipient fcmRecipient(Long id) {
+        return new UserRepository.FcmRecipient() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getFcmToken() {
+                return "token-" + id;
+            }
+        };
+    }
+
+    private SosDispatch dispatch(Long lastRecipientId, int sent, int failed) {
+        SosDispatch dispatch = new SosDispatch();
+        dispatch.setId(7L);
+        dispatch.setAlertId(10L);
+        dispatch.setPriority(2);
+        dispatch.setAttempts(0);
+        dispatch.setLastRecipientId(lastRecipientId);
+        dispatch.setSentCount(sent);
+        dispatch.setFailedCount(failed);
+        return dispatch;
+    }
+
+    private SosAlert alert(String status) {
+        SosAlert alert = new SosAlert();
+        alert.setId(10L);
+        alert.setUser(user(1L, 12.97, 77.59));
+        alert.getUser().setUsername("owner");
+        alert.setLatitude(12.97);
+        alert.setLongitude(77.59);
+        alert.setEmergencyType("MEDICAL");
+        alert.setStatus(status);
+        return alert;
+    }
+
+    private User user(Long id, double latitude, double longitude) {
+        User user = new User();
+        user.setId(id);
+        user.setLastLatitude(latitude);
+        user.setLastLongitude(longitude);
+        return user;
+    }
+}